@@ -0,0 +1,51 @@
+package com.iecas.evaluate.benchmark;
+
+import com.iecas.evaluate.pojo.entity.SubMetricsResult;
+import com.iecas.evaluate.utils.EntityMetricsUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 22:47
+ * @Description: 实体列表聚合计算的基准测试，列表版本包含转换为实体表的开销
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AggregationBenchmark {
+
+
+    @Benchmark
+    public SubMetricsResult microList(Corpus corpus) {
+        return EntityMetricsUtils.computeMicroEntityMetrics(corpus.trueList, corpus.predList);
+    }
+
+
+    @Benchmark
+    public SubMetricsResult microTable(Corpus corpus) {
+        return EntityMetricsUtils.computeMicroEntityMetrics(corpus.trueTable, corpus.predTable);
+    }
+
+
+    @Benchmark
+    public SubMetricsResult macroList(Corpus corpus) {
+        return EntityMetricsUtils.computeMacroEntityMetrics(corpus.trueList, corpus.predList);
+    }
+
+
+    @Benchmark
+    public List<SubMetricsResult> perClassList(Corpus corpus) {
+        return EntityMetricsUtils.computePerClassMetrics(corpus.trueList, corpus.predList);
+    }
+
+
+    @Benchmark
+    public List<SubMetricsResult> perClassTable(Corpus corpus) {
+        return EntityMetricsUtils.computePerClassMetrics(corpus.trueTable, corpus.predTable);
+    }
+}
@@ -0,0 +1,81 @@
+package com.iecas.evaluate.benchmark;
+
+import com.iecas.evaluate.pojo.entity.EntityInfo;
+import com.iecas.evaluate.utils.EntityMetricsUtils;
+import com.iecas.evaluate.utils.EntityTable;
+import com.iecas.evaluate.utils.ParsedTruth;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 22:47
+ * @Description: 基准测试共享的语料状态，每组参数生成一次语料并预先解析
+ */
+@State(Scope.Benchmark)
+public class Corpus {
+
+    @Param({"100000", "1000000"})
+    public int tokens;
+
+    @Param({"0.1"})
+    public double density;
+
+    @Param({"8"})
+    public int classes;
+
+    public Path directory;
+
+    public String truePath;
+
+    public String predPath;
+
+    public String gtJsonPath;
+
+    public String preJsonPath;
+
+    public EntityTable trueTable;
+
+    public EntityTable predTable;
+
+    public List<EntityInfo> trueList;
+
+    public List<EntityInfo> predList;
+
+    public ParsedTruth parsedTruth;
+
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("entity-evaluate-jmh");
+        Path truth = directory.resolve("true.txt");
+        Path pred = directory.resolve("pred.txt");
+        Path gt = directory.resolve("gt.json");
+        Path pre = directory.resolve("pre.json");
+        CorpusGenerator.writeBio(truth, pred, tokens, density, classes, 42);
+        CorpusGenerator.writeIecas(gt, pre, tokens, density, classes, 42);
+        truePath = truth.toString();
+        predPath = pred.toString();
+        gtJsonPath = gt.toString();
+        preJsonPath = pre.toString();
+
+        trueTable = EntityMetricsUtils.parseEntityTable(truePath, true);
+        predTable = EntityMetricsUtils.parseEntityTable(predPath, true);
+        trueList = trueTable.toEntityInfos();
+        predList = predTable.toEntityInfos();
+        parsedTruth = ParsedTruth.parse(truePath);
+    }
+
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        for (String path : new String[]{truePath, predPath, gtJsonPath, preJsonPath}) {
+            Files.deleteIfExists(directory.resolve(path));
+        }
+        Files.deleteIfExists(directory);
+    }
+}
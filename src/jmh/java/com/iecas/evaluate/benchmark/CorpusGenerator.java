@@ -0,0 +1,145 @@
+package com.iecas.evaluate.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 22:47
+ * @Description: 基准测试用的合成语料生成器，可配置token数、实体密度以及类别数。
+ * 预测文件由真实文件扰动得到：部分实体改变类别、部分实体漏检、部分位置误检
+ */
+public class CorpusGenerator {
+
+    /**
+     * 预测实体改变类别的概率
+     */
+    private static final double WRONG_CLASS = 0.1;
+
+    /**
+     * 预测实体漏检的概率
+     */
+    private static final double MISSED = 0.05;
+
+    /**
+     * 非实体位置误检的概率
+     */
+    private static final double SPURIOUS = 0.01;
+
+    private static final String CHARS = "的一是在不了有和人这中大为上个国我以要他时来用们生到作地于出就分对成会可主发年动同工也能下过子说产种面而方后多定行学法所民得经";
+
+
+    /**
+     * 生成BIO格式的真实文件与预测文件
+     * @param truePath 真实文件路径
+     * @param predPath 预测文件路径
+     * @param tokens token总数
+     * @param density 每个token作为实体开头的概率
+     * @param classes 实体类别数
+     * @param seed 随机种子
+     * @throws IOException 文件写入异常
+     */
+    public static void writeBio(Path truePath, Path predPath, int tokens, double density, int classes, long seed) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+        try (BufferedWriter truth = Files.newBufferedWriter(truePath, StandardCharsets.UTF_8);
+             BufferedWriter pred = Files.newBufferedWriter(predPath, StandardCharsets.UTF_8)) {
+            int written = 0;
+            while (written < tokens) {
+                int length = Math.min(tokens - written, 5 + random.nextInt(36));
+                int i = 0;
+                while (i < length) {
+                    if (random.nextDouble() < density) {
+                        // 一个实体，长度1~4
+                        int span = Math.min(length - i, 1 + random.nextInt(4));
+                        int clazz = random.nextInt(classes);
+                        double r = random.nextDouble();
+                        int predClazz = r < WRONG_CLASS ? random.nextInt(classes) : clazz;
+                        boolean missed = r >= WRONG_CLASS && r < WRONG_CLASS + MISSED;
+                        for (int k = 0; k < span; k++, i++) {
+                            String prefix = k == 0 ? "B-" : "I-";
+                            writeToken(truth, random, prefix + "C" + clazz);
+                            writeToken(pred, random, missed ? "O" : prefix + "C" + predClazz);
+                        }
+                    } else {
+                        writeToken(truth, random, "O");
+                        writeToken(pred, random, random.nextDouble() < SPURIOUS ? "B-C" + random.nextInt(classes) : "O");
+                        i++;
+                    }
+                }
+                truth.newLine();
+                pred.newLine();
+                written += length;
+            }
+        }
+    }
+
+
+    private static void writeToken(BufferedWriter writer, SplittableRandom random, String label) throws IOException {
+        writer.write(CHARS.charAt(random.nextInt(CHARS.length())));
+        writer.write(' ');
+        writer.write(label);
+        writer.newLine();
+    }
+
+
+    /**
+     * 生成空天模型JSON格式的真实文件与预测文件
+     * @param gtPath 真实文件路径
+     * @param prePath 预测文件路径
+     * @param tokens 文本总长度
+     * @param density 每个位置作为实体开头的概率
+     * @param classes 实体类别数
+     * @param seed 随机种子
+     * @throws IOException 文件写入异常
+     */
+    public static void writeIecas(Path gtPath, Path prePath, int tokens, double density, int classes, long seed) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+        try (BufferedWriter truth = Files.newBufferedWriter(gtPath, StandardCharsets.UTF_8);
+             BufferedWriter pred = Files.newBufferedWriter(prePath, StandardCharsets.UTF_8)) {
+            truth.write('[');
+            pred.write('[');
+            boolean firstTruth = true, firstPred = true;
+            int position = 0;
+            while (position < tokens) {
+                int span = 1 + random.nextInt(4);
+                if (random.nextDouble() < density) {
+                    String word = word(random, span);
+                    int clazz = random.nextInt(classes);
+                    double r = random.nextDouble();
+                    firstTruth = writeEntity(truth, firstTruth, position, position + span, clazz, word);
+                    if (r >= WRONG_CLASS + MISSED || r < WRONG_CLASS) {
+                        int predClazz = r < WRONG_CLASS ? random.nextInt(classes) : clazz;
+                        firstPred = writeEntity(pred, firstPred, position, position + span, predClazz, word);
+                    }
+                } else if (random.nextDouble() < SPURIOUS) {
+                    firstPred = writeEntity(pred, firstPred, position, position + span, random.nextInt(classes), word(random, span));
+                }
+                position += span;
+            }
+            truth.write(']');
+            pred.write(']');
+        }
+    }
+
+
+    private static String word(SplittableRandom random, int length) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append(CHARS.charAt(random.nextInt(CHARS.length())));
+        }
+        return builder.toString();
+    }
+
+
+    private static boolean writeEntity(BufferedWriter writer, boolean first, int start, int end, int clazz, String word) throws IOException {
+        if (!first) {
+            writer.write(',');
+        }
+        writer.write("{\"start\":" + start + ",\"end\":" + end + ",\"type\":\"C" + clazz + "\",\"word\":\"" + word + "\"}");
+        return false;
+    }
+}
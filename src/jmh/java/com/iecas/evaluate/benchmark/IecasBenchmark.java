@@ -0,0 +1,34 @@
+package com.iecas.evaluate.benchmark;
+
+import com.iecas.evaluate.pojo.entity.SubMetricsResult;
+import com.iecas.evaluate.pojo.entity.TextIdentifyEntity;
+import com.iecas.evaluate.utils.EntityMetricsUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 22:47
+ * @Description: 空天模型JSON格式解析与评估的基准测试
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IecasBenchmark {
+
+
+    @Benchmark
+    public SubMetricsResult calculateIecasTextMetrics(Corpus corpus) {
+        return EntityMetricsUtils.calculateIecasTextMetrics(corpus.preJsonPath, corpus.gtJsonPath);
+    }
+
+
+    @Benchmark
+    public List<TextIdentifyEntity> fileToEntity(Corpus corpus) {
+        return EntityMetricsUtils.fileToEntity(corpus.gtJsonPath);
+    }
+}
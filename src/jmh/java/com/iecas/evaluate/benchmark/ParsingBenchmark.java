@@ -0,0 +1,55 @@
+package com.iecas.evaluate.benchmark;
+
+import com.iecas.evaluate.pojo.entity.EntityInfo;
+import com.iecas.evaluate.pojo.entity.MetricsResult;
+import com.iecas.evaluate.utils.EntityMetricsUtils;
+import com.iecas.evaluate.utils.EntityTable;
+import com.iecas.evaluate.utils.ParsedTruth;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 22:47
+ * @Description: BIO文件解析与端到端评估的基准测试，同时统计吞吐量与延迟分布（SampleTime给出p99）
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParsingBenchmark {
+
+
+    @Benchmark
+    public List<EntityInfo> extraEntity(Corpus corpus) {
+        return EntityMetricsUtils.extraEntity(corpus.truePath);
+    }
+
+
+    @Benchmark
+    public EntityTable parseEntityTable(Corpus corpus) {
+        return EntityMetricsUtils.parseEntityTable(corpus.truePath, false);
+    }
+
+
+    @Benchmark
+    public ParsedTruth parseTruth(Corpus corpus) throws IOException {
+        return ParsedTruth.parse(corpus.truePath);
+    }
+
+
+    @Benchmark
+    public MetricsResult calculateMetrics(Corpus corpus) {
+        return EntityMetricsUtils.calculateMetrics(corpus.truePath, corpus.predPath);
+    }
+
+
+    @Benchmark
+    public MetricsResult calculateMetricsWithParsedTruth(Corpus corpus) {
+        return corpus.parsedTruth.evaluate(corpus.predPath, null, null).toMetricsResult();
+    }
+}
@@ -0,0 +1,33 @@
+package com.iecas.evaluate;
+
+import com.iecas.evaluate.config.EvaluateTruthIndexProperties;
+import com.iecas.evaluate.pojo.entity.TruthIndexInfo;
+import com.iecas.evaluate.service.TruthIndexService;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 23:00
+ * @Description: 离线生成真实文件索引，不启动Web服务。
+ * 用法: BioIndexCli [-d 索引目录] BIO文件...
+ */
+public class BioIndexCli {
+
+    public static void main(String[] args) throws Exception {
+        EvaluateTruthIndexProperties properties = new EvaluateTruthIndexProperties();
+        int first = 0;
+        if (args.length >= 2 && "-d".equals(args[0])) {
+            properties.setDirectory(args[1]);
+            first = 2;
+        }
+        if (first >= args.length) {
+            System.err.println("用法: BioIndexCli [-d 索引目录] BIO文件...");
+            System.exit(1);
+        }
+        TruthIndexService service = new TruthIndexService(properties);
+        for (int i = first; i < args.length; i++) {
+            TruthIndexInfo info = service.build(args[i]);
+            System.out.printf("%s -> %s (句子 %d, 实体 %d, 类别 %d, %d 字节)%n", info.getSourcePath(),
+                    info.getIndexPath(), info.getSentences(), info.getEntities(), info.getClasses(), info.getBytes());
+        }
+    }
+}
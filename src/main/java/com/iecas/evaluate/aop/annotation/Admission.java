@@ -0,0 +1,21 @@
+package com.iecas.evaluate.aop.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 23:50
+ * @Description: 评估接口的准入控制，按输入文件大小估算请求的内存占用，获得准入后才执行
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Admission {
+
+    /**
+     * 每字节输入估算的堆内存字节数
+     */
+    double memoryFactor() default 1.0;
+}
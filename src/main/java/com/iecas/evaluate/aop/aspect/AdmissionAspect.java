@@ -0,0 +1,67 @@
+package com.iecas.evaluate.aop.aspect;
+
+import com.iecas.evaluate.aop.annotation.Admission;
+import com.iecas.evaluate.config.EvaluateAdmissionProperties;
+import com.iecas.evaluate.service.AdmissionService;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 23:50
+ * @Description: 评估接口准入控制切面，获得准入后执行接口，接口返回时释放准入；
+ * 异步执行的接口由评估任务接管准入，任务结束时释放
+ */
+@Aspect
+@Component
+public class AdmissionAspect {
+
+    private final EvaluateAdmissionProperties properties;
+
+    private final AdmissionService admissionService;
+
+
+    public AdmissionAspect(EvaluateAdmissionProperties properties, AdmissionService admissionService) {
+        this.properties = properties;
+        this.admissionService = admissionService;
+    }
+
+
+    @Around("@annotation(admission)")
+    public Object doAround(ProceedingJoinPoint proceedingJoinPoint, Admission admission) throws Throwable {
+        if (!properties.isEnabled()) {
+            return proceedingJoinPoint.proceed();
+        }
+        long cost = admissionService.estimate(proceedingJoinPoint.getArgs(), admission.memoryFactor());
+        AdmissionService.Permit permit = admissionService.acquire(clientId(), cost);
+        AdmissionService.bind(permit);
+        try {
+            return proceedingJoinPoint.proceed();
+        } finally {
+            // 已被评估任务取走时由任务释放
+            if (AdmissionService.detach() != null) {
+                permit.close();
+            }
+        }
+    }
+
+
+    /**
+     * 客户端标识，优先取配置的请求头，否则为来源IP
+     */
+    private String clientId() {
+        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return "";
+        }
+        HttpServletRequest request = attributes.getRequest();
+        String client = request.getHeader(properties.getClientHeader());
+        return client != null && !client.isEmpty() ? client : request.getRemoteAddr();
+    }
+}
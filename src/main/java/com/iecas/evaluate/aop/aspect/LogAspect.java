@@ -9,23 +9,55 @@ package com.iecas.evaluate.aop.aspect;
 
 import com.alibaba.fastjson.JSON;
 import com.iecas.evaluate.aop.annotation.Logger;
+import com.iecas.evaluate.common.CommonResult;
+import com.iecas.evaluate.config.EvaluateLogProperties;
+import com.iecas.evaluate.pojo.entity.MetricsResult;
+import com.iecas.evaluate.pojo.entity.SubMetricsResult;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.*;
 import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
+import javax.annotation.PreDestroy;
 import javax.servlet.http.HttpServletRequest;
 import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Aspect
 @Slf4j
 @Component
 public class LogAspect {
 
+    private final EvaluateLogProperties properties;
+
+    /**
+     * 生成日志内容的后台线程，请求线程只提交对象引用
+     */
+    private final ThreadPoolExecutor logExecutor;
+
+    private final AtomicLong dropped = new AtomicLong();
+
+
+    public LogAspect(EvaluateLogProperties properties) {
+        this.properties = properties;
+        this.logExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity())), r -> {
+                    Thread thread = new Thread(r, "log-writer");
+                    thread.setDaemon(true);
+                    return thread;
+                }, (r, executor) -> dropped.incrementAndGet());
+    }
+
+
     @Pointcut("@annotation(com.iecas.evaluate.aop.annotation.Logger)")
     public void pointCut(){}
 
@@ -42,16 +74,26 @@ public class LogAspect {
 
     @Before("pointCut()")
     public void doBefore(JoinPoint joinPoint) throws Exception{
+        if (!isEnabled()) {
+            return;
+        }
         ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
         HttpServletRequest request = attributes.getRequest();
-        log.info("请求 --> url: {}, method: {}, ip: {}, args: {}, class_method: {}",
-                request.getRequestURI(), request.getMethod(), request.getRemoteAddr(), joinPoint.getArgs(),
-                joinPoint.getSignature().getDeclaringType().getName() + "." + joinPoint.getSignature().getName());
+        String uri = request.getRequestURI();
+        String method = request.getMethod();
+        String ip = request.getRemoteAddr();
+        Object[] args = joinPoint.getArgs();
+        String classMethod = joinPoint.getSignature().getDeclaringType().getName() + "." + joinPoint.getSignature().getName();
+        submit(() -> log.info("请求 --> url: {}, method: {}, ip: {}, args: {}, class_method: {}",
+                uri, method, ip, abbreviate(describeArgs(args)), classMethod));
     }
 
 
     @AfterReturning(pointcut = "pointCut()", returning = "result")
     public void doAfter(JoinPoint joinPoint, Object result){
+        if (!isEnabled()) {
+            return;
+        }
         MethodSignature methodSignature = (MethodSignature) joinPoint.getSignature();
         Method method = methodSignature.getMethod();
         Logger logger = method.getAnnotation(Logger.class);
@@ -59,7 +101,103 @@ public class LogAspect {
         if (logger != null){
             value = logger.value();
         }
-        log.info("{}方法返回值为: {}", value, JSON.toJSONString(result));
+        String name = value;
+        submit(() -> log.info("{}方法返回值为: {}", name, describe(result)));
+    }
+
+
+    private boolean isEnabled() {
+        return log.isInfoEnabled() && !EvaluateLogProperties.MODE_NONE.equals(properties.getMode());
+    }
+
+
+    /**
+     * 在后台线程中生成并输出日志，队列已满时丢弃
+     */
+    private void submit(Runnable task) {
+        if (!properties.isAsync()) {
+            task.run();
+            return;
+        }
+        try {
+            logExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            dropped.incrementAndGet();
+        }
     }
 
-}
\ No newline at end of file
+
+    private String describeArgs(Object[] args) {
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < args.length; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(args[i]);
+            if (builder.length() > properties.getMaxLength()) {
+                break;
+            }
+        }
+        return builder.append(']').toString();
+    }
+
+
+    /**
+     * 生成返回值日志，摘要模式下评估结果只输出关键指标
+     */
+    private String describe(Object result) {
+        if (EvaluateLogProperties.MODE_SUMMARY.equals(properties.getMode())) {
+            Object data = result;
+            String prefix = "";
+            if (result instanceof CommonResult) {
+                data = ((CommonResult) result).getData();
+                prefix = "status=" + ((CommonResult) result).getStatus() + ", ";
+            }
+            if (data instanceof MetricsResult) {
+                MetricsResult metrics = (MetricsResult) data;
+                int classes = metrics.getPreClassResult() == null ? 0 : metrics.getPreClassResult().size();
+                return prefix + "classes=" + classes + ", micro=" + summarize(metrics.getMicro())
+                        + ", macro=" + summarize(metrics.getMacro());
+            }
+            if (data instanceof SubMetricsResult) {
+                return prefix + summarize((SubMetricsResult) data);
+            }
+        }
+        if (result instanceof ResponseEntity) {
+            // 流式响应的内容在返回后才生成，只记录状态码
+            return "status=" + ((ResponseEntity<?>) result).getStatusCodeValue();
+        }
+        return abbreviate(JSON.toJSONString(result));
+    }
+
+
+    private static String summarize(SubMetricsResult result) {
+        if (result == null) {
+            return "null";
+        }
+        return String.format("{TP=%.0f, FP=%.0f, FN=%.0f, F1=%.4f}", result.getTP(), result.getFP(), result.getFN(), result.getF1());
+    }
+
+
+    private String abbreviate(String text) {
+        int maxLength = properties.getMaxLength();
+        if (text == null || text.length() <= maxLength) {
+            return text;
+        }
+        return text.substring(0, maxLength) + "...(共" + text.length() + "字符)";
+    }
+
+
+    /**
+     * 因队列已满而丢弃的日志数
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+
+    @PreDestroy
+    public void shutdown() {
+        logExecutor.shutdown();
+    }
+}
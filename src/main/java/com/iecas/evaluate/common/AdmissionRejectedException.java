@@ -0,0 +1,27 @@
+package com.iecas.evaluate.common;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 23:50
+ * @Description: 评估请求未获准入，由全局异常处理转换为429并带上 Retry-After
+ */
+public class AdmissionRejectedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 建议的重试间隔（秒）
+     */
+    private final int retryAfterSeconds;
+
+
+    public AdmissionRejectedException(String message, int retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
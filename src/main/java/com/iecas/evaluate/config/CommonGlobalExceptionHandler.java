@@ -8,7 +8,9 @@
 package com.iecas.evaluate.config;
 
 
+import com.iecas.evaluate.common.AdmissionRejectedException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -17,11 +19,19 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @Slf4j
 @RestControllerAdvice
 public class CommonGlobalExceptionHandler {
 
+    private final EvaluateAdmissionProperties admissionProperties;
+
+
+    public CommonGlobalExceptionHandler(EvaluateAdmissionProperties admissionProperties) {
+        this.admissionProperties = admissionProperties;
+    }
+
 
     /**
      * 全局异常处理
@@ -38,4 +48,44 @@ public class CommonGlobalExceptionHandler {
         response.put("message", e.toString());
         return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
     }
+
+
+    /**
+     * 评估任务队列已满
+     * @param e
+     * @return
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Object> handleRejectedException(RejectedExecutionException e){
+        log.warn(e.toString());
+        Map<String, Object> response = new HashMap<>();
+        response.put("timestamp", new Date());
+        response.put("status", 429);
+        response.put("error", "Too Many Requests");
+        response.put("message", "评估任务过多，请稍后重试");
+        return tooManyRequests(response, admissionProperties.getRetryAfterSeconds());
+    }
+
+
+    /**
+     * 评估请求未获准入
+     * @param e
+     * @return
+     */
+    @ExceptionHandler(AdmissionRejectedException.class)
+    public ResponseEntity<Object> handleAdmissionException(AdmissionRejectedException e){
+        Map<String, Object> response = new HashMap<>();
+        response.put("timestamp", new Date());
+        response.put("status", 429);
+        response.put("error", "Too Many Requests");
+        response.put("message", e.getMessage());
+        return tooManyRequests(response, e.getRetryAfterSeconds());
+    }
+
+
+    private ResponseEntity<Object> tooManyRequests(Map<String, Object> response, int retryAfterSeconds) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(response);
+    }
 }
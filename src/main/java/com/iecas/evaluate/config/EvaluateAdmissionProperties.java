@@ -0,0 +1,68 @@
+package com.iecas.evaluate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 23:50
+ * @Description: 评估请求准入控制配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "evaluate.admission")
+public class EvaluateAdmissionProperties {
+
+    /**
+     * 是否启用准入控制
+     */
+    private boolean enabled = true;
+
+    /**
+     * 评估请求可占用的堆内存预算（字节），为0时取最大堆内存乘以 heapBudgetRatio
+     */
+    private long heapBudgetBytes = 0;
+
+    private double heapBudgetRatio = 0.5;
+
+    /**
+     * 每个请求的基础内存估算（字节），与输入大小无关的部分
+     */
+    private long baseRequestBytes = 8L << 20;
+
+    /**
+     * 压缩文件按压缩后大小乘以该倍数估算
+     */
+    private double compressedRatio = 5.0;
+
+    /**
+     * 长度未知（分块传输）的上传请求按该输入大小估算（字节），不小于预算时这类请求只能单独执行
+     */
+    private long unknownContentLength = 256L << 20;
+
+    /**
+     * 每个客户端同时执行的请求数上限
+     */
+    private int maxConcurrentPerClient = 2;
+
+    /**
+     * 标识客户端的请求头，请求中没有该请求头时按来源IP区分
+     */
+    private String clientHeader = "X-Client-Id";
+
+    /**
+     * 等待准入的请求数上限，超出时直接拒绝
+     */
+    private int maxWaiting = 32;
+
+    /**
+     * 单个请求等待准入的最长时间（毫秒），超时后拒绝
+     */
+    private long maxWaitMillis = 10000;
+
+    /**
+     * 拒绝时建议客户端重试的间隔（秒），即响应头 Retry-After
+     */
+    private int retryAfterSeconds = 5;
+}
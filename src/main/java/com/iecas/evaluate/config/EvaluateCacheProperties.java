@@ -0,0 +1,31 @@
+package com.iecas.evaluate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 22:34
+ * @Description: 评估结果缓存配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "evaluate.cache")
+public class EvaluateCacheProperties {
+
+    /**
+     * 是否启用结果缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 最多缓存的结果数
+     */
+    private int maxEntries = 256;
+
+    /**
+     * 缓存结果的估算总大小上限（字节）
+     */
+    private long maxBytes = 64L << 20;
+}
@@ -0,0 +1,31 @@
+package com.iecas.evaluate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 22:57
+ * @Description: 增量评估配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "evaluate.incremental")
+public class EvaluateIncrementalProperties {
+
+    /**
+     * 是否允许增量评估
+     */
+    private boolean enabled = true;
+
+    /**
+     * 最多保留的文件对数，超出时淘汰最久未使用的
+     */
+    private int maxEntries = 8;
+
+    /**
+     * 所有文件对的增量评估状态估算占用的内存上限（字节），超出时淘汰最久未使用的
+     */
+    private long maxBytes = 256L << 20;
+}
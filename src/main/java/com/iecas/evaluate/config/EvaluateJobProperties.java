@@ -0,0 +1,36 @@
+package com.iecas.evaluate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 22:32
+ * @Description: 异步评估任务配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "evaluate.job")
+public class EvaluateJobProperties {
+
+    /**
+     * 同时执行的评估任务数
+     */
+    private int poolSize = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+    /**
+     * 等待队列长度，队列已满时拒绝新任务
+     */
+    private int queueCapacity = 16;
+
+    /**
+     * 已结束任务的保留时间（分钟），超时后结果被清除
+     */
+    private long retentionMinutes = 60;
+
+    /**
+     * 流式评估推送进度的间隔（毫秒），与评估线程的处理速度无关
+     */
+    private long streamIntervalMillis = 500;
+}
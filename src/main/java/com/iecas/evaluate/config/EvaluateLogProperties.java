@@ -0,0 +1,48 @@
+package com.iecas.evaluate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 22:53
+ * @Description: 接口日志配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "evaluate.log")
+public class EvaluateLogProperties {
+
+    /**
+     * 只输出摘要：评估结果只记录类别数与F1等关键指标
+     */
+    public static final String MODE_SUMMARY = "summary";
+
+    /**
+     * 输出完整的JSON，超过长度上限时截断
+     */
+    public static final String MODE_FULL = "full";
+
+    /**
+     * 不输出参数与返回值
+     */
+    public static final String MODE_NONE = "none";
+
+    private String mode = MODE_SUMMARY;
+
+    /**
+     * 单条参数或返回值日志的最大字符数
+     */
+    private int maxLength = 2048;
+
+    /**
+     * 是否在后台线程中生成日志内容
+     */
+    private boolean async = true;
+
+    /**
+     * 后台日志队列长度，队列已满时丢弃
+     */
+    private int queueCapacity = 256;
+}
@@ -0,0 +1,26 @@
+package com.iecas.evaluate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 23:46
+ * @Description: 在线评估配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "evaluate.online")
+public class EvaluateOnlineProperties {
+
+    /**
+     * 类别数上限，每个时间桶按该值预留类别槽位
+     */
+    private int maxClasses = 256;
+
+    /**
+     * 单次上报的最大句子数
+     */
+    private int maxBatchSentences = 10000;
+}
@@ -0,0 +1,26 @@
+package com.iecas.evaluate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 23:29
+ * @Description: 自助法统计配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "evaluate.statistics")
+public class EvaluateStatisticsProperties {
+
+    /**
+     * 请求未指定时的重采样次数
+     */
+    private int defaultResamples = 1000;
+
+    /**
+     * 单次请求允许的最大重采样次数
+     */
+    private int maxResamples = 100000;
+}
@@ -0,0 +1,26 @@
+package com.iecas.evaluate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 22:38
+ * @Description: 真实文件解析结果缓存配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "evaluate.truth-cache")
+public class EvaluateTruthCacheProperties {
+
+    /**
+     * 是否启用真实文件解析缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 缓存解析结果的估算总大小上限（字节）
+     */
+    private long maxBytes = 512L << 20;
+}
@@ -0,0 +1,31 @@
+package com.iecas.evaluate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 23:00
+ * @Description: 真实文件二进制索引配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "evaluate.truth-index")
+public class EvaluateTruthIndexProperties {
+
+    /**
+     * 是否使用二进制索引
+     */
+    private boolean enabled = true;
+
+    /**
+     * 解析真实文件后是否自动写出索引
+     */
+    private boolean autoBuild = true;
+
+    /**
+     * 索引目录，为空时索引与源文件放在同一目录
+     */
+    private String directory = "";
+}
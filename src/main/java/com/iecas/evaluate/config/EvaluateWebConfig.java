@@ -0,0 +1,41 @@
+package com.iecas.evaluate.config;
+
+import com.iecas.evaluate.utils.StageMetrics;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 22:51
+ * @Description: Web配置，评估接口执行期间将接口名称作为阶段指标的标签
+ */
+@Configuration
+public class EvaluateWebConfig implements WebMvcConfigurer {
+
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptorAdapter() {
+
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                if (handler instanceof HandlerMethod) {
+                    StageMetrics.setEndpoint(((HandlerMethod) handler).getMethod().getName());
+                }
+                return true;
+            }
+
+
+            @Override
+            public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+                StageMetrics.clearEndpoint();
+            }
+        }).addPathPatterns("/metrics/**");
+    }
+}
@@ -1,22 +1,84 @@
 package com.iecas.evaluate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iecas.evaluate.aop.annotation.Admission;
 import com.iecas.evaluate.aop.annotation.Logger;
 import com.iecas.evaluate.common.CommonResult;
+import com.iecas.evaluate.pojo.dto.BatchParamsDTO;
+import com.iecas.evaluate.pojo.dto.OnlineBatchDTO;
 import com.iecas.evaluate.pojo.dto.ParamsDTO;
+import com.iecas.evaluate.pojo.dto.StatisticsParamsDTO;
+import com.iecas.evaluate.pojo.entity.EvaluationJob;
+import com.iecas.evaluate.pojo.entity.JobProgress;
 import com.iecas.evaluate.pojo.entity.MetricsResult;
+import com.iecas.evaluate.pojo.entity.OnlineMetricsResult;
+import com.iecas.evaluate.pojo.entity.StatisticsResult;
 import com.iecas.evaluate.pojo.entity.SubMetricsResult;
-import com.iecas.evaluate.utils.EntityMetricsUtils;
+import com.iecas.evaluate.pojo.entity.TruthIndexInfo;
+import com.iecas.evaluate.service.AdmissionService;
+import com.iecas.evaluate.service.EvaluationJobService;
+import com.iecas.evaluate.service.MetricsResultCache;
+import com.iecas.evaluate.service.MetricsService;
+import com.iecas.evaluate.service.OnlineEvaluationService;
+import com.iecas.evaluate.service.StatisticsService;
+import com.iecas.evaluate.service.TruthCache;
+import com.iecas.evaluate.service.TruthIndexService;
+import com.iecas.evaluate.service.UploadEvaluationService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.util.List;
 
 /**
  * @Author: guo_x
  * @Date: 2025/5/29 15:46
  * @Description:
  */
+@Slf4j
 @RestController
 @RequestMapping("/metrics")
 public class MetricsController {
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson;charset=UTF-8");
+
+    @Autowired
+    private EvaluationJobService evaluationJobService;
+
+    @Autowired
+    private MetricsService metricsService;
+
+    @Autowired
+    private MetricsResultCache metricsResultCache;
+
+    @Autowired
+    private TruthCache truthCache;
+
+    @Autowired
+    private TruthIndexService truthIndexService;
+
+    @Autowired
+    private UploadEvaluationService uploadEvaluationService;
+
+    @Autowired
+    private StatisticsService statisticsService;
+
+    @Autowired
+    private OnlineEvaluationService onlineEvaluationService;
+
+    @Autowired
+    private AdmissionService admissionService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
 
     /**
      *  @author: getao
@@ -24,10 +86,82 @@ public class MetricsController {
      *  @Description: 获取文本评估多个维度评估结果
      */
     @PostMapping("/calculateTextMetrics")
+    @Admission
     @Logger("获取文本实体的评估指标")
     public CommonResult calculateTextMetrics(@RequestBody ParamsDTO dto){
-        MetricsResult result = EntityMetricsUtils.calculateMetrics(dto.getTrueFilePath(), dto.getPredFilePath());
-        return new CommonResult().data(result).success();
+        try {
+            MetricsResult result = metricsService.calculateMetrics(dto, null);
+            return new CommonResult().data(result).success();
+        } catch (IllegalArgumentException e) {
+            return new CommonResult().status(400).message(e.getMessage());
+        }
+    }
+
+
+    /**
+     *  @author: getao
+     *  @Date: 2026/10/17 23:42
+     *  @Description: 流式评估，评估期间按固定间隔推送进度（已读字节数、已处理句子数、当前微平均P/R/F1），
+     *  状态码202，data同 getJobProgress；最后推送一次完整评估结果。请求头 Accept 包含 text/event-stream 时
+     *  以SSE格式返回，进度事件名为 progress、结果事件名为 result，否则逐行返回（NDJSON）
+     */
+    @PostMapping("/calculateTextMetricsStream")
+    @Admission
+    @Logger("流式获取文本实体的评估指标")
+    public ResponseEntity<ResponseBodyEmitter> calculateTextMetricsStream(@RequestBody ParamsDTO dto,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) throws IOException {
+        boolean sse = accept != null && accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE);
+        ResponseBodyEmitter emitter = sse ? new SseEmitter(0L) : new ResponseBodyEmitter(0L);
+        MediaType contentType = sse ? MediaType.TEXT_EVENT_STREAM : NDJSON;
+        if (dto.getTrueFilePath() == null || dto.getPredFilePath() == null) {
+            sendEvent(emitter, "result", new CommonResult().status(400).message("真实文件路径与预测文件路径不能为空"));
+            emitter.complete();
+            return ResponseEntity.badRequest().contentType(contentType).body(emitter);
+        }
+        evaluationJobService.submitStream(dto,
+                progress -> sendEvent(emitter, "progress", new CommonResult().data(progress).status(202).message("评估进行中")),
+                job -> {
+                    sendEvent(emitter, "result", EvaluationJob.SUCCESS.equals(job.getStatus())
+                            ? new CommonResult().data(job.getResult()).success()
+                            : new CommonResult().fail().message(job.getMessage()));
+                    emitter.complete();
+                });
+        return ResponseEntity.ok().contentType(contentType).body(emitter);
+    }
+
+
+    /**
+     * 发送一条流式评估事件，SSE格式时带事件名，否则为一行JSON
+     */
+    private void sendEvent(ResponseBodyEmitter emitter, String name, CommonResult item) {
+        try {
+            String json = objectMapper.writeValueAsString(item);
+            if (emitter instanceof SseEmitter) {
+                ((SseEmitter) emitter).send(SseEmitter.event().name(name).data(json));
+            } else {
+                emitter.send(json + "\n");
+            }
+        } catch (IOException | IllegalStateException e) {
+            log.warn("流式评估事件发送失败: {}", e.toString());
+        }
+    }
+
+
+    /**
+     *  @author: getao
+     *  @Date: 2026/10/17 23:29
+     *  @Description: 按句自助法重采样计算微平均、宏平均P/R/F1的置信区间，指定对比预测文件时做配对检验
+     */
+    @PostMapping("/calculateTextStatistics")
+    @Admission
+    @Logger("获取文本实体评估指标的置信区间")
+    public CommonResult calculateTextStatistics(@RequestBody StatisticsParamsDTO dto){
+        try {
+            StatisticsResult result = statisticsService.calculateStatistics(dto);
+            return new CommonResult().data(result).success();
+        } catch (IllegalArgumentException e) {
+            return new CommonResult().status(400).message(e.getMessage());
+        }
     }
 
 
@@ -37,9 +171,10 @@ public class MetricsController {
      *  @Description: 获取文本单一维度评估结果
      */
     @PostMapping("/calculateTextLightMetrics")
+    @Admission
     @Logger("获取文本实体的评估指标, 轻量版仅将数据存入data中")
     public CommonResult calculateTextLightMetrics(@RequestBody ParamsDTO dto){
-        SubMetricsResult result = EntityMetricsUtils.calculateLightMetrics(dto.getTrueFilePath(), dto.getPredFilePath());
+        SubMetricsResult result = metricsService.calculateLightMetrics(dto);
         return new CommonResult().data(result).success();
     }
 
@@ -50,9 +185,241 @@ public class MetricsController {
      *  @Description: 获取空天模型文本单一维度评估结果
      */
     @GetMapping("/calculateIecasTextMetrics")
+    @Admission(memoryFactor = 4)
     @Logger("获取空天模型文本单一维度评估结果")
     public CommonResult calculateIecasTextMetrics(String predPath, String gtPath){
-        SubMetricsResult result = EntityMetricsUtils.calculateIecasTextMetrics(predPath, gtPath);
+        SubMetricsResult result = metricsService.calculateIecasTextMetrics(predPath, gtPath);
         return new CommonResult().data(result).success();
     }
+
+
+    /**
+     *  @author: getao
+     *  @Date: 2026/10/17 23:03
+     *  @Description: 评估上传的BIO内容，multipart请求依次包含 trueFile（或 trueFilePath）与 predFile，
+     *  请求体边接收边评估，不写临时文件
+     */
+    @PostMapping("/uploadTextMetrics")
+    @Admission
+    @Logger("上传文本实体内容并获取评估指标")
+    public CommonResult uploadTextMetrics(HttpServletRequest request) throws IOException {
+        try {
+            MetricsResult result = uploadEvaluationService.calculateMetrics(request);
+            return new CommonResult().data(result).success();
+        } catch (IllegalArgumentException e) {
+            return new CommonResult().status(400).message(e.getMessage());
+        }
+    }
+
+
+    /**
+     *  @author: getao
+     *  @Date: 2026/10/17 23:03
+     *  @Description: 评估上传的空天模型实体内容，请求格式同 uploadTextMetrics
+     */
+    @PostMapping("/uploadIecasTextMetrics")
+    @Admission(memoryFactor = 4)
+    @Logger("上传空天模型实体内容并获取评估结果")
+    public CommonResult uploadIecasTextMetrics(HttpServletRequest request) throws IOException {
+        try {
+            SubMetricsResult result = uploadEvaluationService.calculateIecasTextMetrics(request);
+            return new CommonResult().data(result).success();
+        } catch (IllegalArgumentException e) {
+            return new CommonResult().status(400).message(e.getMessage());
+        }
+    }
+
+
+    /**
+     *  @author: getao
+     *  @Date: 2026/10/17 22:42
+     *  @Description: 批量评估，一个真实文件对应多个预测文件，真实文件只解析一次。
+     *  按完成顺序逐行返回每个预测文件的结果（NDJSON），data中的index为其在请求列表中的下标
+     */
+    @PostMapping("/calculateBatchTextMetrics")
+    @Admission
+    @Logger("批量获取文本实体的评估指标")
+    public ResponseEntity<ResponseBodyEmitter> calculateBatchTextMetrics(@RequestBody BatchParamsDTO dto) throws IOException {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(0L);
+        if (dto.getTrueFilePath() == null || dto.getPredFilePaths() == null || dto.getPredFilePaths().isEmpty()) {
+            emitter.send(objectMapper.writeValueAsString(new CommonResult().status(400).message("真实文件路径与预测文件路径列表不能为空")) + "\n");
+            emitter.complete();
+            return ResponseEntity.badRequest().contentType(NDJSON).body(emitter);
+        }
+        evaluationJobService.submitBatch(dto, item -> {
+            try {
+                emitter.send(objectMapper.writeValueAsString(item) + "\n");
+            } catch (IOException | IllegalStateException e) {
+                log.warn("批量评估结果发送失败: {}", e.toString());
+            }
+        }, emitter::complete);
+        return ResponseEntity.ok().contentType(NDJSON).body(emitter);
+    }
+
+
+    /**
+     *  @author: getao
+     *  @Date: 2026/10/17 23:46
+     *  @Description: 上报线上模型的一批(真实, 预测)句子对，计入在线评估的各时间窗口
+     */
+    @PostMapping("/ingestOnlineSentences")
+    public CommonResult ingestOnlineSentences(@RequestBody OnlineBatchDTO dto){
+        try {
+            int count = onlineEvaluationService.ingest(dto);
+            return new CommonResult().data("sentences", count).success();
+        } catch (IllegalArgumentException e) {
+            return new CommonResult().status(400).message(e.getMessage());
+        }
+    }
+
+
+    /**
+     *  @author: getao
+     *  @Date: 2026/10/17 23:46
+     *  @Description: 获取在线评估最近5分钟、1小时、24小时窗口内的微平均、宏平均与每个类别的结果，window指定单个窗口
+     */
+    @GetMapping("/getOnlineMetrics")
+    public CommonResult getOnlineMetrics(String window){
+        try {
+            List<OnlineMetricsResult> results = onlineEvaluationService.getMetrics(window);
+            return new CommonResult().data(results).success();
+        } catch (IllegalArgumentException e) {
+            return new CommonResult().status(400).message(e.getMessage());
+        }
+    }
+
+
+    /**
+     *  @author: getao
+     *  @Date: 2026/10/17 23:00
+     *  @Description: 为BIO格式真实文件生成二进制索引，之后使用该真实文件的评估直接映射索引，无需解析文本
+     */
+    @PostMapping("/buildTruthIndex")
+    @Admission
+    @Logger("生成真实文件索引")
+    public CommonResult buildTruthIndex(@RequestBody ParamsDTO dto) throws IOException {
+        if (dto.getTrueFilePath() == null) {
+            return new CommonResult().status(400).message("真实文件路径不能为空");
+        }
+        TruthIndexInfo info = truthIndexService.build(dto.getTrueFilePath());
+        return new CommonResult().data(info).success();
+    }
+
+
+    /**
+     *  @author: getao
+     *  @Date: 2026/10/17 22:32
+     *  @Description: 提交异步评估任务，返回任务id，队列已满时拒绝
+     */
+    @PostMapping("/submitTextMetricsJob")
+    @Admission
+    @Logger("提交文本实体异步评估任务")
+    public CommonResult submitTextMetricsJob(@RequestBody ParamsDTO dto){
+        try {
+            EvaluationJob job = evaluationJobService.submit(dto);
+            return new CommonResult().data("jobId", job.getJobId()).success();
+        } catch (IllegalArgumentException e) {
+            return new CommonResult().status(400).message(e.getMessage());
+        }
+    }
+
+
+    /**
+     *  @author: getao
+     *  @Date: 2026/10/17 22:32
+     *  @Description: 获取异步评估任务状态
+     */
+    @GetMapping("/getJobStatus")
+    public CommonResult getJobStatus(String jobId){
+        EvaluationJob job = evaluationJobService.getJob(jobId);
+        if (job == null) {
+            return new CommonResult().status(404).message("任务不存在或已过期");
+        }
+        return new CommonResult().data(job).success();
+    }
+
+
+    /**
+     *  @author: getao
+     *  @Date: 2026/10/17 22:32
+     *  @Description: 获取异步评估任务进度
+     */
+    @GetMapping("/getJobProgress")
+    public CommonResult getJobProgress(String jobId){
+        EvaluationJob job = evaluationJobService.getJob(jobId);
+        if (job == null) {
+            return new CommonResult().status(404).message("任务不存在或已过期");
+        }
+        return new CommonResult().data(JobProgress.of(job)).success();
+    }
+
+
+    /**
+     *  @author: getao
+     *  @Date: 2026/10/17 22:32
+     *  @Description: 获取异步评估任务结果
+     */
+    @GetMapping("/getJobResult")
+    @Logger("获取文本实体异步评估任务结果")
+    public CommonResult getJobResult(String jobId){
+        EvaluationJob job = evaluationJobService.getJob(jobId);
+        if (job == null) {
+            return new CommonResult().status(404).message("任务不存在或已过期");
+        }
+        if (EvaluationJob.FAILED.equals(job.getStatus())) {
+            return new CommonResult().fail().message(job.getMessage());
+        }
+        if (!job.isFinished()) {
+            return new CommonResult().data(JobProgress.of(job)).status(202).message("任务尚未完成");
+        }
+        return new CommonResult().data(job.getResult()).success();
+    }
+
+
+    /**
+     *  @author: getao
+     *  @Date: 2026/10/17 22:34
+     *  @Description: 获取评估结果缓存的命中统计
+     */
+    @GetMapping("/getCacheStats")
+    public CommonResult getCacheStats(){
+        return new CommonResult().data(metricsResultCache.stats()).success();
+    }
+
+
+    /**
+     *  @author: getao
+     *  @Date: 2026/10/17 22:38
+     *  @Description: 获取真实文件解析缓存的命中统计
+     */
+    @GetMapping("/getTruthCacheStats")
+    public CommonResult getTruthCacheStats(){
+        return new CommonResult().data(truthCache.stats()).success();
+    }
+
+
+    /**
+     *  @author: getao
+     *  @Date: 2026/10/17 23:50
+     *  @Description: 获取评估请求准入控制的内存占用、执行与等待中的请求数
+     */
+    @GetMapping("/getAdmissionStats")
+    public CommonResult getAdmissionStats(){
+        return new CommonResult().data(admissionService.stats()).success();
+    }
+
+
+    /**
+     *  @author: getao
+     *  @Date: 2026/10/17 22:34
+     *  @Description: 清空评估结果缓存以及真实文件解析缓存
+     */
+    @PostMapping("/clearCache")
+    @Logger("清空评估结果缓存")
+    public CommonResult clearCache(){
+        metricsResultCache.clear();
+        truthCache.clear();
+        metricsService.clearIncremental();
+        return new CommonResult().success();
+    }
 }
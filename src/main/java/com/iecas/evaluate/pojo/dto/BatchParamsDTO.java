@@ -0,0 +1,39 @@
+package com.iecas.evaluate.pojo.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 22:42
+ * @Description: 批量评估参数，一个真实文件对应多个预测文件
+ */
+@Data
+public class BatchParamsDTO {
+
+    /**
+     * 真实文件路径
+     */
+    private String trueFilePath;
+
+    /**
+     * 预测文件路径列表
+     */
+    private List<String> predFilePaths;
+
+    /**
+     * 需要一同输出的其他匹配方式，可选 strict/exact/partial/type
+     */
+    private List<String> matchModes;
+
+    /**
+     * 是否输出类别混淆矩阵
+     */
+    private boolean confusion;
+
+    /**
+     * 混淆矩阵每个单元格输出的错误样例数，0到5，大于0时同时输出混淆矩阵
+     */
+    private int errorSamples;
+}
@@ -0,0 +1,19 @@
+package com.iecas.evaluate.pojo.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 23:46
+ * @Description: 在线评估的一批句子
+ */
+@Data
+public class OnlineBatchDTO {
+
+    /**
+     * 句子列表
+     */
+    private List<OnlineSentenceDTO> sentences;
+}
@@ -0,0 +1,24 @@
+package com.iecas.evaluate.pojo.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 23:46
+ * @Description: 在线评估的一个句子，两侧标签按token一一对应
+ */
+@Data
+public class OnlineSentenceDTO {
+
+    /**
+     * 真实BIO标签
+     */
+    private List<String> trueTags;
+
+    /**
+     * 预测BIO标签
+     */
+    private List<String> predTags;
+}
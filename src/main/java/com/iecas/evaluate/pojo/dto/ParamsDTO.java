@@ -2,6 +2,8 @@ package com.iecas.evaluate.pojo.dto;
 
 import lombok.Data;
 
+import java.util.List;
+
 /**
  * @Author: guo_x
  * @Date: 2025/5/29 15:49
@@ -19,4 +21,29 @@ public class ParamsDTO {
      * 预测文件路径
      */
     private String predFilePath;
+
+    /**
+     * 是否按句分片并行计算
+     */
+    private boolean parallel;
+
+    /**
+     * 是否增量评估，只重新计算与上一次相比发生变化的句子
+     */
+    private boolean incremental;
+
+    /**
+     * 需要一同输出的其他匹配方式，可选 strict/exact/partial/type
+     */
+    private List<String> matchModes;
+
+    /**
+     * 是否输出类别混淆矩阵
+     */
+    private boolean confusion;
+
+    /**
+     * 混淆矩阵每个单元格输出的错误样例数，0到5，大于0时同时输出混淆矩阵
+     */
+    private int errorSamples;
 }
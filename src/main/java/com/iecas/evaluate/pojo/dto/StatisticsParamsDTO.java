@@ -0,0 +1,42 @@
+package com.iecas.evaluate.pojo.dto;
+
+import lombok.Data;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 23:29
+ * @Description: 自助法统计参数
+ */
+@Data
+public class StatisticsParamsDTO {
+
+    /**
+     * 真实文件路径
+     */
+    private String trueFilePath;
+
+    /**
+     * 预测文件路径
+     */
+    private String predFilePath;
+
+    /**
+     * 对比的预测文件路径，与预测文件使用同一真实文件做配对检验，可为空
+     */
+    private String comparePredFilePath;
+
+    /**
+     * 重采样次数，为空时使用配置的默认值
+     */
+    private Integer resamples;
+
+    /**
+     * 置信水平
+     */
+    private double confidence = 0.95;
+
+    /**
+     * 随机种子
+     */
+    private long seed = 42;
+}
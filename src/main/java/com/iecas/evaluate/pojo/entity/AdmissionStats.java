@@ -0,0 +1,49 @@
+package com.iecas.evaluate.pojo.entity;
+
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 23:50
+ * @Description: 准入控制统计
+ */
+@Data
+public class AdmissionStats {
+
+    /**
+     * 堆内存预算（字节）
+     */
+    private long budgetBytes;
+
+    /**
+     * 已准入请求的估算内存之和（字节）
+     */
+    private long usedBytes;
+
+    /**
+     * 正在执行的请求数
+     */
+    private int active;
+
+    /**
+     * 正在等待准入的请求数
+     */
+    private int waiting;
+
+    /**
+     * 累计准入的请求数
+     */
+    private long admitted;
+
+    /**
+     * 累计拒绝的请求数
+     */
+    private long rejected;
+
+    /**
+     * 每个客户端正在执行的请求数
+     */
+    private Map<String, Integer> clients;
+}
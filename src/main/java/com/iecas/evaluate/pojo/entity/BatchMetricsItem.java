@@ -0,0 +1,28 @@
+package com.iecas.evaluate.pojo.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 22:42
+ * @Description: 批量评估中单个预测文件的评估结果
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchMetricsItem {
+
+    /**
+     * 预测文件在请求列表中的下标
+     */
+    private int index;
+
+    private String predFilePath;
+
+    /**
+     * 评估结果，评估失败时为null
+     */
+    private MetricsResult result;
+}
@@ -0,0 +1,41 @@
+package com.iecas.evaluate.pojo.entity;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 23:29
+ * @Description: 一项指标的自助法置信区间
+ */
+@Data
+public class BootstrapInterval {
+
+    /**
+     * 原始数据上的指标值
+     */
+    private double estimate;
+
+    /**
+     * 置信区间下界
+     */
+    private double lower;
+
+    /**
+     * 置信区间上界
+     */
+    private double upper;
+
+    /**
+     * 重采样结果的标准差
+     */
+    private double stdError;
+
+    /**
+     * 双侧p值，只在两个预测文件的差值中给出
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty("pValue")
+    private Double pvalue;
+}
@@ -0,0 +1,37 @@
+package com.iecas.evaluate.pojo.entity;
+
+import lombok.Data;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 22:34
+ * @Description: 缓存统计信息
+ */
+@Data
+public class CacheStats {
+
+    /**
+     * 命中次数
+     */
+    private long hits;
+
+    /**
+     * 未命中次数
+     */
+    private long misses;
+
+    /**
+     * 淘汰次数
+     */
+    private long evictions;
+
+    /**
+     * 当前缓存条目数
+     */
+    private int entries;
+
+    /**
+     * 当前缓存的估算大小（字节）
+     */
+    private long bytes;
+}
@@ -0,0 +1,34 @@
+package com.iecas.evaluate.pojo.entity;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 23:37
+ * @Description: 类别混淆矩阵，行为真实类别、列为预测类别，只统计边界完全一致的实体对。
+ * 最后一行、一列为"O"，表示同一边界上没有另一侧的实体
+ */
+@Data
+public class ConfusionResult {
+
+    /**
+     * 行列对应的类别，最后一项为"O"
+     */
+    private List<String> labels;
+
+    private long[][] matrix;
+
+    /**
+     * 边界一致、类别不同的实体对总数
+     */
+    private long typeMismatches;
+
+    /**
+     * 边界一致、类别不同的错误样例，每个单元格若干个，按单元格排列
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<ConfusionSample> samples;
+}
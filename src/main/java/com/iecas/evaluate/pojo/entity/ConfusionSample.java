@@ -0,0 +1,43 @@
+package com.iecas.evaluate.pojo.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Comparator;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 23:37
+ * @Description: 一个边界一致、类别不同的错误样例
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ConfusionSample {
+
+    /**
+     * 按在文件中的位置排序
+     */
+    public static final Comparator<ConfusionSample> POSITION =
+            Comparator.comparingLong(ConfusionSample::getSentence).thenComparingInt(ConfusionSample::getStart);
+
+    private String trueClass;
+
+    private String predClass;
+
+    /**
+     * 句子序号，从0开始
+     */
+    private long sentence;
+
+    /**
+     * 实体起始token位置
+     */
+    private int start;
+
+    /**
+     * 实体结束token位置（含）
+     */
+    private int end;
+}
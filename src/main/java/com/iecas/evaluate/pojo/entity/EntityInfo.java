@@ -33,4 +33,9 @@ public class EntityInfo {
      * 文本内容对应的结束位置索引
      */
     private long end;
+
+    /**
+     * 文本内容所在句子的索引
+     */
+    private long sentence;
 }
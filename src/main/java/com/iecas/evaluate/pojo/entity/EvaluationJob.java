@@ -0,0 +1,66 @@
+package com.iecas.evaluate.pojo.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.iecas.evaluate.utils.EvaluationProgress;
+import lombok.Data;
+
+import java.util.Date;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 22:32
+ * @Description: 异步评估任务
+ */
+@Data
+public class EvaluationJob {
+
+    public static final String QUEUED = "QUEUED";
+
+    public static final String RUNNING = "RUNNING";
+
+    public static final String SUCCESS = "SUCCESS";
+
+    public static final String FAILED = "FAILED";
+
+    /**
+     * 任务id
+     */
+    private String jobId;
+
+    /**
+     * 任务状态
+     */
+    private volatile String status = QUEUED;
+
+    /**
+     * 失败原因
+     */
+    private volatile String message;
+
+    private Date submitTime = new Date();
+
+    private volatile Date startTime;
+
+    private volatile Date finishTime;
+
+    /**
+     * 评估进度
+     */
+    @JsonIgnore
+    private EvaluationProgress progress;
+
+    /**
+     * 评估结果，任务成功后才有值
+     */
+    @JsonIgnore
+    private volatile MetricsResult result;
+
+
+    /**
+     * 任务是否已结束
+     */
+    @JsonIgnore
+    public boolean isFinished() {
+        return SUCCESS.equals(status) || FAILED.equals(status);
+    }
+}
@@ -0,0 +1,68 @@
+package com.iecas.evaluate.pojo.entity;
+
+import com.iecas.evaluate.utils.EvaluationProgress;
+import lombok.Data;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 22:32
+ * @Description: 评估任务进度
+ */
+@Data
+public class JobProgress {
+
+    /**
+     * 任务状态
+     */
+    private String status;
+
+    /**
+     * 已读取的字节数
+     */
+    private long bytesRead;
+
+    /**
+     * 需要读取的总字节数
+     */
+    private long totalBytes;
+
+    /**
+     * 已处理的句子数
+     */
+    private long sentences;
+
+    /**
+     * 完成比例
+     */
+    private double ratio;
+
+    /**
+     * 已处理部分的微平均精确率
+     */
+    private double microPrecision;
+
+    /**
+     * 已处理部分的微平均召回率
+     */
+    private double microRecall;
+
+    /**
+     * 已处理部分的微平均F1，评估结束前为近似值
+     */
+    private double microF1;
+
+
+    public static JobProgress of(EvaluationJob job) {
+        JobProgress result = new JobProgress();
+        EvaluationProgress progress = job.getProgress();
+        result.setStatus(job.getStatus());
+        result.setBytesRead(progress.getBytesRead());
+        result.setTotalBytes(progress.getTotalBytes());
+        result.setSentences(progress.getSentences());
+        result.setRatio(EvaluationJob.SUCCESS.equals(job.getStatus()) ? 1.0 : progress.getRatio());
+        result.setMicroPrecision(progress.getMicroPrecision());
+        result.setMicroRecall(progress.getMicroRecall());
+        result.setMicroF1(progress.getMicroF1());
+        return result;
+    }
+}
@@ -0,0 +1,53 @@
+package com.iecas.evaluate.pojo.entity;
+
+import lombok.Data;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 23:16
+ * @Description: 一种匹配方式下的评估结果，计数含义与 SemEval 2013 一致
+ */
+@Data
+public class MatchModeResult {
+
+    /**
+     * 正确
+     */
+    private long correct;
+
+    /**
+     * 错误，边界或类别不符合该匹配方式
+     */
+    private long incorrect;
+
+    /**
+     * 部分正确，只在partial方式下出现，按0.5计分
+     */
+    private long partial;
+
+    /**
+     * 没有任何预测实体与之重叠的真实实体
+     */
+    private long missed;
+
+    /**
+     * 没有与任何真实实体重叠的预测实体
+     */
+    private long spurious;
+
+    /**
+     * 可能的匹配数 correct + incorrect + partial + missed
+     */
+    private long possible;
+
+    /**
+     * 实际的匹配数 correct + incorrect + partial + spurious
+     */
+    private long actual;
+
+    private double precision;
+
+    private double recall;
+
+    private double f1;
+}
@@ -1,9 +1,11 @@
 package com.iecas.evaluate.pojo.entity;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * @Author: guo_x
@@ -29,4 +31,26 @@ public class MetricsResult {
      * 每一个类别的结果
      */
     private List<SubMetricsResult> preClassResult;
+
+    /**
+     * 两侧句子token数不一致时，按词文本重新对齐的token数
+     */
+    private long realignedTokens;
+
+    /**
+     * 未能配对、不计入TN的token数
+     */
+    private long unmatchedTokens;
+
+    /**
+     * 请求的其他匹配方式（strict/exact/partial/type）的结果，未请求时不输出
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Map<String, MatchModeResult> matchModes;
+
+    /**
+     * 类别混淆矩阵与错误样例，未请求时不输出
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private ConfusionResult confusion;
 }
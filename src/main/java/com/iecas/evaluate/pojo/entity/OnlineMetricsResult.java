@@ -0,0 +1,44 @@
+package com.iecas.evaluate.pojo.entity;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 23:46
+ * @Description: 在线评估某个时间窗口内的评估结果
+ */
+@Data
+public class OnlineMetricsResult {
+
+    /**
+     * 时间窗口，5m/1h/24h
+     */
+    private String window;
+
+    /**
+     * 窗口时长（毫秒），窗口由若干个时间桶组成，实际覆盖的时长不超过该值
+     */
+    private long windowMillis;
+
+    /**
+     * 窗口内的句子数
+     */
+    private long sentences;
+
+    /**
+     * 微平均结果
+     */
+    private SubMetricsResult micro;
+
+    /**
+     * 宏平均结果
+     */
+    private SubMetricsResult macro;
+
+    /**
+     * 每个类别的结果
+     */
+    private List<SubMetricsResult> preClassResult;
+}
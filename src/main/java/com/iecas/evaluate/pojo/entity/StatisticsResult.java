@@ -0,0 +1,52 @@
+package com.iecas.evaluate.pojo.entity;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 23:29
+ * @Description: 自助法统计结果，指标名称为 microPrecision/microRecall/microF1/macroPrecision/macroRecall/macroF1
+ */
+@Data
+public class StatisticsResult {
+
+    /**
+     * 重采样次数
+     */
+    private int resamples;
+
+    /**
+     * 置信水平
+     */
+    private double confidence;
+
+    /**
+     * 随机种子，相同的种子与输入得到相同的结果
+     */
+    private long seed;
+
+    /**
+     * 参与重采样的句子数
+     */
+    private int sentences;
+
+    /**
+     * 预测文件各指标的置信区间
+     */
+    private Map<String, BootstrapInterval> metrics;
+
+    /**
+     * 对比预测文件各指标的置信区间，未指定对比文件时不输出
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Map<String, BootstrapInterval> compareMetrics;
+
+    /**
+     * 配对重采样下预测文件减对比文件的差值及其显著性，未指定对比文件时不输出
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Map<String, BootstrapInterval> difference;
+}
@@ -0,0 +1,42 @@
+package com.iecas.evaluate.pojo.entity;
+
+import lombok.Data;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 23:00
+ * @Description: 真实文件索引信息
+ */
+@Data
+public class TruthIndexInfo {
+
+    /**
+     * 源文件路径
+     */
+    private String sourcePath;
+
+    /**
+     * 索引文件路径
+     */
+    private String indexPath;
+
+    /**
+     * 句子数
+     */
+    private int sentences;
+
+    /**
+     * 实体数
+     */
+    private int entities;
+
+    /**
+     * 类别数
+     */
+    private int classes;
+
+    /**
+     * 索引文件字节数
+     */
+    private long bytes;
+}
@@ -0,0 +1,287 @@
+package com.iecas.evaluate.service;
+
+import com.iecas.evaluate.common.AdmissionRejectedException;
+import com.iecas.evaluate.config.EvaluateAdmissionProperties;
+import com.iecas.evaluate.pojo.dto.BatchParamsDTO;
+import com.iecas.evaluate.pojo.dto.ParamsDTO;
+import com.iecas.evaluate.pojo.dto.StatisticsParamsDTO;
+import com.iecas.evaluate.pojo.entity.AdmissionStats;
+import com.iecas.evaluate.utils.CompressedInput;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 23:50
+ * @Description: 评估请求准入控制。每个请求按输入文件大小估算内存占用，已准入请求的估算之和不超过堆内存预算，
+ * 每个客户端同时执行的请求数不超过配额。无法立即准入的请求按到达顺序排队等待，排队已满或等待超时时拒绝。
+ * 排在前面、只因预算不足而等待的请求不会被后来的小请求越过；因自身客户端配额已满而等待的请求不阻挡其他客户端
+ */
+@Slf4j
+@Service
+public class AdmissionService {
+
+    /**
+     * 当前请求线程持有的准入，异步执行的请求由任务通过 {@link #detach()} 接管
+     */
+    private static final ThreadLocal<Permit> CURRENT = new ThreadLocal<>();
+
+    private final EvaluateAdmissionProperties properties;
+
+    private final long budget;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition changed = lock.newCondition();
+
+    /**
+     * 等待准入的请求，按到达顺序排列
+     */
+    private final List<Permit> waiting = new ArrayList<>();
+
+    private final Map<String, Integer> clientActive = new HashMap<>();
+
+    private long used;
+
+    private int active;
+
+    private long admitted;
+
+    private long rejected;
+
+
+    public AdmissionService(EvaluateAdmissionProperties properties) {
+        this.properties = properties;
+        this.budget = properties.getHeapBudgetBytes() > 0 ? properties.getHeapBudgetBytes()
+                : (long) (Runtime.getRuntime().maxMemory() * properties.getHeapBudgetRatio());
+    }
+
+
+    /**
+     * 按输入文件大小估算请求的内存占用
+     * @param args 接口参数，识别其中的评估参数、文件路径与上传请求
+     * @param memoryFactor 每字节输入估算的堆内存字节数
+     * @return 估算的字节数
+     */
+    public long estimate(Object[] args, double memoryFactor) {
+        long inputBytes = 0;
+        for (Object arg : args) {
+            if (arg instanceof ParamsDTO) {
+                ParamsDTO dto = (ParamsDTO) arg;
+                inputBytes += fileBytes(dto.getTrueFilePath()) + fileBytes(dto.getPredFilePath());
+            } else if (arg instanceof BatchParamsDTO) {
+                BatchParamsDTO dto = (BatchParamsDTO) arg;
+                inputBytes += fileBytes(dto.getTrueFilePath());
+                if (dto.getPredFilePaths() != null) {
+                    for (String predPath : dto.getPredFilePaths()) {
+                        inputBytes += fileBytes(predPath);
+                    }
+                }
+            } else if (arg instanceof StatisticsParamsDTO) {
+                StatisticsParamsDTO dto = (StatisticsParamsDTO) arg;
+                inputBytes += fileBytes(dto.getTrueFilePath()) + fileBytes(dto.getPredFilePath())
+                        + fileBytes(dto.getComparePredFilePath());
+            } else if (arg instanceof String) {
+                inputBytes += fileBytes((String) arg);
+            } else if (arg instanceof HttpServletRequest) {
+                // 分块传输的请求没有Content-Length，按配置的大小估算
+                long length = ((HttpServletRequest) arg).getContentLengthLong();
+                inputBytes += length >= 0 ? length : properties.getUnknownContentLength();
+            }
+        }
+        // 按预算计入时会被截断，这里只需避免溢出
+        long inputCost = (long) (inputBytes * memoryFactor);
+        return inputCost > Long.MAX_VALUE - properties.getBaseRequestBytes() ? Long.MAX_VALUE
+                : properties.getBaseRequestBytes() + inputCost;
+    }
+
+
+    private long fileBytes(String path) {
+        if (path == null) {
+            return 0;
+        }
+        long length = new File(path).length();
+        return CompressedInput.isCompressed(path) ? (long) (length * properties.getCompressedRatio()) : length;
+    }
+
+
+    /**
+     * 申请准入，必要时排队等待
+     * @param client 客户端标识
+     * @param cost 估算的内存字节数，超过整个预算的请求按预算计，只能单独执行
+     * @return 准入凭证，请求结束后关闭
+     * @throws AdmissionRejectedException 排队已满或等待超时
+     */
+    public Permit acquire(String client, long cost) {
+        Permit permit = new Permit(client, Math.min(cost, budget));
+        lock.lock();
+        try {
+            if (!canAdmit(permit)) {
+                if (waiting.size() >= properties.getMaxWaiting()) {
+                    throw reject(permit, "等待准入的评估请求过多，请稍后重试");
+                }
+                waiting.add(permit);
+                try {
+                    long remaining = TimeUnit.MILLISECONDS.toNanos(properties.getMaxWaitMillis());
+                    while (!canAdmit(permit)) {
+                        if (remaining <= 0) {
+                            throw reject(permit, "评估请求等待准入超时，请稍后重试");
+                        }
+                        remaining = changed.awaitNanos(remaining);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw reject(permit, "评估请求等待准入被中断");
+                } finally {
+                    waiting.remove(permit);
+                    // 队首变化后其他请求可能可以准入
+                    changed.signalAll();
+                }
+            }
+            used += permit.cost;
+            active++;
+            admitted++;
+            clientActive.merge(permit.client, 1, Integer::sum);
+            return permit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * 请求可以准入：客户端配额未满、剩余预算足够，且排在它前面的请求中没有只因预算不足而等待的
+     */
+    private boolean canAdmit(Permit permit) {
+        if (!underQuota(permit.client) || used + permit.cost > budget) {
+            return false;
+        }
+        for (Permit other : waiting) {
+            if (other == permit) {
+                return true;
+            }
+            if (underQuota(other.client)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    private boolean underQuota(String client) {
+        return clientActive.getOrDefault(client, 0) < properties.getMaxConcurrentPerClient();
+    }
+
+
+    private AdmissionRejectedException reject(Permit permit, String message) {
+        rejected++;
+        log.warn("拒绝评估请求, 客户端: {}, 估算内存: {} 字节, 已占用: {}/{} 字节, {}", permit.client, permit.cost, used, budget, message);
+        return new AdmissionRejectedException(message, properties.getRetryAfterSeconds());
+    }
+
+
+    /**
+     * 归还准入占用的预算与客户端配额
+     */
+    private void giveBack(Permit permit) {
+        lock.lock();
+        try {
+            used -= permit.cost;
+            active--;
+            clientActive.computeIfPresent(permit.client, (client, count) -> count > 1 ? count - 1 : null);
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * 将准入绑定到当前请求线程
+     */
+    public static void bind(Permit permit) {
+        CURRENT.set(permit);
+    }
+
+
+    /**
+     * 取走当前请求线程持有的准入，由调用方负责关闭，异步执行的任务借此在结束时才释放准入
+     * @return 准入凭证，当前请求没有经过准入控制时返回null
+     */
+    public static Permit detach() {
+        Permit permit = CURRENT.get();
+        CURRENT.remove();
+        return permit;
+    }
+
+
+    /**
+     * 关闭准入凭证，可为null
+     */
+    public static void release(Permit permit) {
+        if (permit != null) {
+            permit.close();
+        }
+    }
+
+
+    public AdmissionStats stats() {
+        lock.lock();
+        try {
+            AdmissionStats stats = new AdmissionStats();
+            stats.setBudgetBytes(budget);
+            stats.setUsedBytes(used);
+            stats.setActive(active);
+            stats.setWaiting(waiting.size());
+            stats.setAdmitted(admitted);
+            stats.setRejected(rejected);
+            stats.setClients(new HashMap<>(clientActive));
+            return stats;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * 准入凭证，关闭时归还占用的预算与客户端配额，重复关闭无效
+     */
+    public class Permit implements AutoCloseable {
+
+        private final String client;
+
+        private final long cost;
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+
+        private Permit(String client, long cost) {
+            this.client = client;
+            this.cost = cost;
+        }
+
+
+        public long getCost() {
+            return cost;
+        }
+
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                giveBack(this);
+            }
+        }
+    }
+}
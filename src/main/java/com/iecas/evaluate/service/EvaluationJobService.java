@@ -0,0 +1,271 @@
+package com.iecas.evaluate.service;
+
+import com.iecas.evaluate.common.CommonResult;
+import com.iecas.evaluate.config.EvaluateJobProperties;
+import com.iecas.evaluate.pojo.dto.BatchParamsDTO;
+import com.iecas.evaluate.pojo.dto.ParamsDTO;
+import com.iecas.evaluate.pojo.entity.EvaluationJob;
+import com.iecas.evaluate.pojo.entity.JobProgress;
+import com.iecas.evaluate.utils.EvaluationProgress;
+import com.iecas.evaluate.utils.StageMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 22:32
+ * @Description: 异步评估任务服务，任务在有界线程池中执行，队列已满时直接拒绝。
+ * 流式评估的进度由单独的调度线程按固定间隔推送，评估线程只按句子间隔累加进度计数。
+ * 提交时接管请求线程持有的准入，任务结束后才释放
+ */
+@Slf4j
+@Service
+public class EvaluationJobService {
+
+    /**
+     * 定时清除过期任务的间隔（秒）
+     */
+    private static final long EVICT_INTERVAL_SECONDS = 60;
+
+    private final EvaluateJobProperties properties;
+
+    private final MetricsService metricsService;
+
+    private final ThreadPoolExecutor executor;
+
+    private final ScheduledExecutorService progressScheduler;
+
+    private final ConcurrentMap<String, EvaluationJob> jobs = new ConcurrentHashMap<>();
+
+
+    public EvaluationJobService(EvaluateJobProperties properties, MetricsService metricsService) {
+        this.properties = properties;
+        this.metricsService = metricsService;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(properties.getPoolSize(), properties.getPoolSize(),
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                r -> new Thread(r, "evaluate-job-" + threadIndex.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.progressScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "evaluate-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 没有新任务提交时也按时清除过期任务
+        this.progressScheduler.scheduleWithFixedDelay(this::evictExpired, EVICT_INTERVAL_SECONDS, EVICT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+
+    /**
+     * 提交实体级评估任务
+     * @param dto 评估参数
+     * @return 任务
+     * @throws IllegalArgumentException 真实文件路径或预测文件路径为空
+     * @throws RejectedExecutionException 等待队列已满
+     */
+    public EvaluationJob submit(ParamsDTO dto) {
+        evictExpired();
+        EvaluationJob job = newJob(dto);
+
+        AdmissionService.Permit permit = AdmissionService.detach();
+
+        jobs.put(job.getJobId(), job);
+        try {
+            executor.execute(() -> {
+                try {
+                    run(job, dto, "submitTextMetricsJob");
+                } finally {
+                    AdmissionService.release(permit);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            AdmissionService.release(permit);
+            jobs.remove(job.getJobId());
+            log.warn("评估任务队列已满, 拒绝任务: {}", dto);
+            throw e;
+        }
+        return job;
+    }
+
+
+    /**
+     * 提交批量评估，与异步评估任务共用线程池，各预测文件在公共ForkJoinPool中并发评估
+     * @param dto 批量评估参数
+     * @param consumer 单个预测文件的结果回调
+     * @param onComplete 全部结束后的回调
+     * @throws RejectedExecutionException 等待队列已满
+     */
+    public void submitBatch(BatchParamsDTO dto, Consumer<CommonResult> consumer, Runnable onComplete) {
+        AdmissionService.Permit permit = AdmissionService.detach();
+        try {
+            executor.execute(() -> {
+                try {
+                    metricsService.calculateBatchMetrics(dto, ForkJoinPool.commonPool(), consumer);
+                } catch (Exception e) {
+                    log.error("批量评估执行失败", e);
+                } finally {
+                    AdmissionService.release(permit);
+                    onComplete.run();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            AdmissionService.release(permit);
+            log.warn("评估任务队列已满, 拒绝批量评估: {}", dto);
+            throw e;
+        }
+    }
+
+
+    /**
+     * 提交流式评估，与异步评估任务共用线程池，任务不登记到任务列表中。
+     * 评估期间按配置的间隔回调进度，评估结束后不再回调进度，随后回调一次结束的任务
+     * @param dto 评估参数
+     * @param onProgress 进度回调，在调度线程中执行
+     * @param onFinish 结束回调，在评估线程中执行，任务状态为成功或失败
+     * @throws IllegalArgumentException 真实文件路径或预测文件路径为空
+     * @throws RejectedExecutionException 等待队列已满
+     */
+    public void submitStream(ParamsDTO dto, Consumer<JobProgress> onProgress, Consumer<EvaluationJob> onFinish) {
+        EvaluationJob job = newJob(dto);
+        ProgressTicker ticker = new ProgressTicker(job, onProgress);
+        long interval = properties.getStreamIntervalMillis();
+        ticker.future = progressScheduler.scheduleAtFixedRate(ticker, interval, interval, TimeUnit.MILLISECONDS);
+        AdmissionService.Permit permit = AdmissionService.detach();
+        try {
+            executor.execute(() -> {
+                try {
+                    run(job, dto, "calculateTextMetricsStream");
+                } finally {
+                    AdmissionService.release(permit);
+                    ticker.stop();
+                    onFinish.accept(job);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            AdmissionService.release(permit);
+            ticker.stop();
+            log.warn("评估任务队列已满, 拒绝流式评估: {}", dto);
+            throw e;
+        }
+    }
+
+
+    private EvaluationJob newJob(ParamsDTO dto) {
+        if (dto.getTrueFilePath() == null || dto.getPredFilePath() == null) {
+            throw new IllegalArgumentException("真实文件路径与预测文件路径不能为空");
+        }
+        EvaluationJob job = new EvaluationJob();
+        job.setJobId(UUID.randomUUID().toString().replace("-", ""));
+        job.setProgress(new EvaluationProgress(new File(dto.getTrueFilePath()).length() + new File(dto.getPredFilePath()).length()));
+        return job;
+    }
+
+
+    private void run(EvaluationJob job, ParamsDTO dto, String endpoint) {
+        job.setStartTime(new Date());
+        job.setStatus(EvaluationJob.RUNNING);
+        String status = EvaluationJob.FAILED;
+        try {
+            job.setResult(StageMetrics.withEndpoint(endpoint,
+                    () -> metricsService.calculateMetrics(dto, job.getProgress())));
+            status = EvaluationJob.SUCCESS;
+        } catch (Exception e) {
+            log.error("评估任务 {} 执行失败", job.getJobId(), e);
+            job.setMessage(e.toString());
+        } finally {
+            // 先记录结束时间再更新状态，保证已结束的任务一定有结束时间
+            job.setFinishTime(new Date());
+            job.setStatus(status);
+        }
+    }
+
+
+    /**
+     * 获取任务
+     * @param jobId 任务id
+     * @return 任务，不存在或已过期时返回null
+     */
+    public EvaluationJob getJob(String jobId) {
+        EvaluationJob job = jobId == null ? null : jobs.get(jobId);
+        if (job != null && isExpired(job, expireDeadline())) {
+            jobs.remove(jobId, job);
+            return null;
+        }
+        return job;
+    }
+
+
+    /**
+     * 清除超过保留时间的已结束任务，提交任务时与定时任务中执行
+     */
+    private void evictExpired() {
+        long deadline = expireDeadline();
+        jobs.values().removeIf(job -> isExpired(job, deadline));
+    }
+
+
+    private long expireDeadline() {
+        return System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(properties.getRetentionMinutes());
+    }
+
+
+    private static boolean isExpired(EvaluationJob job, long deadline) {
+        return job.isFinished() && job.getFinishTime().getTime() < deadline;
+    }
+
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        progressScheduler.shutdownNow();
+    }
+
+
+    /**
+     * 按固定间隔回调一个流式评估的进度。回调与停止互斥，停止后不会再有进度回调，保证结果在最后一次进度之后发送
+     */
+    private static class ProgressTicker implements Runnable {
+
+        private final EvaluationJob job;
+
+        private final Consumer<JobProgress> onProgress;
+
+        private ScheduledFuture<?> future;
+
+        private boolean stopped;
+
+
+        ProgressTicker(EvaluationJob job, Consumer<JobProgress> onProgress) {
+            this.job = job;
+            this.onProgress = onProgress;
+        }
+
+
+        @Override
+        public synchronized void run() {
+            if (stopped) {
+                return;
+            }
+            try {
+                onProgress.accept(JobProgress.of(job));
+            } catch (RuntimeException e) {
+                // 周期任务抛出异常后不再执行，单次回调失败不影响后续推送
+                log.warn("流式评估进度回调失败: {}", e.toString());
+            }
+        }
+
+
+        synchronized void stop() {
+            stopped = true;
+            future.cancel(false);
+        }
+    }
+}
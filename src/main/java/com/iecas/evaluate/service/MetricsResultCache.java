@@ -0,0 +1,190 @@
+package com.iecas.evaluate.service;
+
+import com.iecas.evaluate.config.EvaluateCacheProperties;
+import com.iecas.evaluate.pojo.entity.CacheStats;
+import com.iecas.evaluate.pojo.entity.ConfusionResult;
+import com.iecas.evaluate.pojo.entity.MetricsResult;
+import com.iecas.evaluate.utils.FileFingerprint;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 22:34
+ * @Description: 评估结果缓存，以两个文件的指纹和评估方式为键，按LRU以及估算大小淘汰
+ */
+@Slf4j
+@Service
+public class MetricsResultCache {
+
+    /**
+     * 单个结果的基础估算大小
+     */
+    private static final long BASE_BYTES = 512;
+
+    /**
+     * 每个类别结果的估算大小
+     */
+    private static final long CLASS_BYTES = 256;
+
+    /**
+     * 每种匹配方式结果的估算大小
+     */
+    private static final long MODE_BYTES = 160;
+
+    /**
+     * 每个错误样例的估算大小，类别名与其他结果共用
+     */
+    private static final long SAMPLE_BYTES = 48;
+
+    private final EvaluateCacheProperties properties;
+
+    /**
+     * 按访问顺序排列的缓存
+     */
+    private final LinkedHashMap<CacheKey, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long bytes;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+
+    public MetricsResultCache(EvaluateCacheProperties properties) {
+        this.properties = properties;
+    }
+
+
+    /**
+     * 获取缓存的评估结果，不存在时计算并缓存
+     * @param mode 评估方式，不同方式的结果分别缓存
+     * @param truePath 真实文件路径
+     * @param predPath 预测文件路径
+     * @param loader 结果计算方法
+     * @return 评估结果
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String mode, String truePath, String predPath, Supplier<T> loader) {
+        if (!properties.isEnabled()) {
+            return loader.get();
+        }
+        CacheKey key;
+        try {
+            key = new CacheKey(mode, FileFingerprint.of(truePath), FileFingerprint.of(predPath));
+        } catch (IOException e) {
+            // 文件无法读取时不缓存，由计算方法自行报错
+            return loader.get();
+        }
+
+        synchronized (this) {
+            CacheEntry entry = entries.get(key);
+            if (entry != null) {
+                hits.incrementAndGet();
+                return (T) entry.getValue();
+            }
+        }
+        misses.incrementAndGet();
+        T value = loader.get();
+        if (value != null) {
+            put(key, value);
+        }
+        return value;
+    }
+
+
+    private synchronized void put(CacheKey key, Object value) {
+        long size = estimate(value);
+        if (size > properties.getMaxBytes()) {
+            return;
+        }
+        CacheEntry old = entries.put(key, new CacheEntry(value, size));
+        if (old != null) {
+            bytes -= old.getBytes();
+        }
+        bytes += size;
+
+        Iterator<CacheEntry> iterator = entries.values().iterator();
+        while ((entries.size() > properties.getMaxEntries() || bytes > properties.getMaxBytes()) && iterator.hasNext()) {
+            bytes -= iterator.next().getBytes();
+            iterator.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+
+    private static long estimate(Object value) {
+        if (!(value instanceof MetricsResult)) {
+            return BASE_BYTES;
+        }
+        MetricsResult result = (MetricsResult) value;
+        long size = BASE_BYTES;
+        if (result.getPreClassResult() != null) {
+            size += CLASS_BYTES * result.getPreClassResult().size();
+        }
+        if (result.getMatchModes() != null) {
+            size += MODE_BYTES * result.getMatchModes().size();
+        }
+        ConfusionResult confusion = result.getConfusion();
+        if (confusion != null) {
+            // 每行一个long数组，再加上标签引用
+            long[][] matrix = confusion.getMatrix();
+            int n = matrix == null ? 0 : matrix.length;
+            size += (16L + 8L * n) * n + 8L * n;
+            if (confusion.getSamples() != null) {
+                size += SAMPLE_BYTES * confusion.getSamples().size();
+            }
+        }
+        return size;
+    }
+
+
+    /**
+     * 清空缓存
+     */
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+
+    public synchronized CacheStats stats() {
+        CacheStats stats = new CacheStats();
+        stats.setHits(hits.get());
+        stats.setMisses(misses.get());
+        stats.setEvictions(evictions.get());
+        stats.setEntries(entries.size());
+        stats.setBytes(bytes);
+        return stats;
+    }
+
+
+    @Data
+    private static class CacheKey {
+
+        private final String mode;
+
+        private final FileFingerprint truth;
+
+        private final FileFingerprint pred;
+    }
+
+
+    @Data
+    private static class CacheEntry {
+
+        private final Object value;
+
+        private final long bytes;
+    }
+}
@@ -0,0 +1,320 @@
+package com.iecas.evaluate.service;
+
+import com.iecas.evaluate.common.CommonResult;
+import com.iecas.evaluate.config.EvaluateIncrementalProperties;
+import com.iecas.evaluate.pojo.dto.BatchParamsDTO;
+import com.iecas.evaluate.pojo.dto.ParamsDTO;
+import com.iecas.evaluate.pojo.entity.BatchMetricsItem;
+import com.iecas.evaluate.pojo.entity.ConfusionResult;
+import com.iecas.evaluate.pojo.entity.ConfusionSample;
+import com.iecas.evaluate.pojo.entity.MatchModeResult;
+import com.iecas.evaluate.pojo.entity.MetricsResult;
+import com.iecas.evaluate.pojo.entity.SubMetricsResult;
+import com.iecas.evaluate.utils.CompressedInput;
+import com.iecas.evaluate.utils.ConfusionLevel;
+import com.iecas.evaluate.utils.ConfusionMatrix;
+import com.iecas.evaluate.utils.EntityMetricsUtils;
+import com.iecas.evaluate.utils.EvaluationProgress;
+import com.iecas.evaluate.utils.IecasEntitySet;
+import com.iecas.evaluate.utils.IncrementalEvaluation;
+import com.iecas.evaluate.utils.MatchMode;
+import com.iecas.evaluate.utils.MetricsMode;
+import com.iecas.evaluate.utils.ParsedTruth;
+import com.iecas.evaluate.utils.StageMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 22:38
+ * @Description: 评估服务，依次使用评估结果缓存和真实文件解析缓存，两者都未命中时才完整计算
+ */
+@Slf4j
+@Service
+public class MetricsService {
+
+    /**
+     * 批量评估在后台线程中执行，指标标签使用固定的接口名称
+     */
+    private static final String BATCH_ENDPOINT = "calculateBatchTextMetrics";
+
+    private final MetricsResultCache metricsResultCache;
+
+    private final TruthCache truthCache;
+
+    private final EvaluateIncrementalProperties incrementalProperties;
+
+    /**
+     * 每个文件对上一次的增量评估结果，按访问顺序排列，超出文件对数或估算内存上限时淘汰最久未使用的
+     */
+    private final LinkedHashMap<String, IncrementalEvaluation> incrementalStates = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long incrementalBytes;
+
+
+    public MetricsService(MetricsResultCache metricsResultCache, TruthCache truthCache,
+                          EvaluateIncrementalProperties incrementalProperties) {
+        this.metricsResultCache = metricsResultCache;
+        this.truthCache = truthCache;
+        this.incrementalProperties = incrementalProperties;
+    }
+
+
+    /**
+     * 计算完整评估结果
+     * @param dto 评估参数
+     * @param progress 评估进度，可为null
+     * @return 评估结果
+     * @throws IllegalArgumentException 存在未知的匹配方式或错误样例数超出范围
+     */
+    public MetricsResult calculateMetrics(ParamsDTO dto, EvaluationProgress progress) {
+        String truePath = dto.getTrueFilePath();
+        String predPath = dto.getPredFilePath();
+        EnumSet<MatchMode> matchModes = MatchMode.parse(dto.getMatchModes());
+        checkErrorSamples(dto.getErrorSamples());
+        ConfusionLevel confusionLevel = ConfusionLevel.of(dto.isConfusion(), dto.getErrorSamples());
+        return selectOutput(metricsResultCache.get(MetricsMode.full(confusionLevel), truePath, predPath, () -> {
+            // 增量评估按字节范围定位句子，压缩文件使用完整计算
+            if (dto.isIncremental() && incrementalProperties.isEnabled()
+                    && !CompressedInput.isCompressed(truePath) && !CompressedInput.isCompressed(predPath)) {
+                return calculateIncremental(truePath, predPath, progress).toAccumulator().toMetricsResult();
+            }
+            ParsedTruth truth = truthCache.getBio(truePath);
+            if (truth == null) {
+                return EntityMetricsUtils.calculateMetrics(truePath, predPath, dto.isParallel(), progress, confusionLevel);
+            }
+            return truth.evaluate(predPath, dto.isParallel() ? ForkJoinPool.commonPool() : null, progress, confusionLevel).toMetricsResult();
+        }), matchModes, dto.isConfusion(), dto.getErrorSamples());
+    }
+
+
+    /**
+     * 计算轻量级评估结果
+     * @param dto 评估参数
+     * @return 宏平均结果
+     */
+    public SubMetricsResult calculateLightMetrics(ParamsDTO dto) {
+        String truePath = dto.getTrueFilePath();
+        String predPath = dto.getPredFilePath();
+        return metricsResultCache.get(MetricsMode.LIGHT, truePath, predPath, () -> {
+            ParsedTruth truth = truthCache.getBio(truePath);
+            if (truth == null) {
+                return EntityMetricsUtils.calculateLightMetrics(truePath, predPath);
+            }
+            return truth.evaluate(predPath, null, null, ConfusionLevel.NONE).toLightMetrics();
+        });
+    }
+
+
+    /**
+     * 计算空天模型文本评估结果
+     * @param predPath 预测文件路径
+     * @param gtPath 真实文件路径
+     * @return 评估结果，文件解析失败时返回null
+     */
+    public SubMetricsResult calculateIecasTextMetrics(String predPath, String gtPath) {
+        return metricsResultCache.get(MetricsMode.IECAS, gtPath, predPath, () -> {
+            IecasEntitySet actualSet = truthCache.getIecas(gtPath);
+            if (actualSet == null) {
+                return EntityMetricsUtils.calculateIecasTextMetrics(predPath, gtPath);
+            }
+            return EntityMetricsUtils.calculateIecasTextMetrics(predPath, actualSet);
+        });
+    }
+
+
+    /**
+     * 批量评估，真实文件只解析一次，各预测文件并发评估，每完成一个立即回调
+     * @param dto 批量评估参数
+     * @param executor 执行各预测文件评估的线程池
+     * @param consumer 结果回调，会被多个线程同时调用
+     */
+    public void calculateBatchMetrics(BatchParamsDTO dto, Executor executor, Consumer<CommonResult> consumer) {
+        String truePath = dto.getTrueFilePath();
+        EnumSet<MatchMode> matchModes;
+        ConfusionLevel confusionLevel = ConfusionLevel.of(dto.isConfusion(), dto.getErrorSamples());
+        ParsedTruth truth;
+        try {
+            matchModes = MatchMode.parse(dto.getMatchModes());
+            checkErrorSamples(dto.getErrorSamples());
+            truth = StageMetrics.withEndpoint(BATCH_ENDPOINT, () -> loadTruth(truePath));
+        } catch (RuntimeException e) {
+            consumer.accept(new CommonResult().fail().message(e.toString()));
+            return;
+        }
+
+        List<String> predPaths = dto.getPredFilePaths();
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[predPaths.size()];
+        for (int i = 0; i < futures.length; i++) {
+            int index = i;
+            String predPath = predPaths.get(i);
+            futures[i] = CompletableFuture.runAsync(() -> {
+                CommonResult item;
+                try {
+                    MetricsResult result = StageMetrics.withEndpoint(BATCH_ENDPOINT, () -> metricsResultCache.get(
+                            MetricsMode.full(confusionLevel), truePath, predPath,
+                            () -> truth.evaluate(predPath, null, null, confusionLevel).toMetricsResult()));
+                    item = new CommonResult().data(new BatchMetricsItem(index, predPath,
+                            selectOutput(result, matchModes, dto.isConfusion(), dto.getErrorSamples()))).success();
+                } catch (Exception e) {
+                    log.error("批量评估文件 {} 失败", predPath, e);
+                    item = new CommonResult().data(new BatchMetricsItem(index, predPath, null)).fail().message(e.toString());
+                }
+                consumer.accept(item);
+            }, executor);
+        }
+        CompletableFuture.allOf(futures).join();
+    }
+
+
+    /**
+     * 只保留请求的匹配方式与混淆矩阵。缓存中的结果包含全部内容且被多个请求共享，返回浅拷贝
+     * @param confusion 是否输出混淆矩阵
+     * @param errorSamples 每个单元格输出的错误样例数，大于0时同时输出混淆矩阵
+     */
+    static MetricsResult selectOutput(MetricsResult result, EnumSet<MatchMode> matchModes, boolean confusion, int errorSamples) {
+        MetricsResult selected = new MetricsResult();
+        selected.setMacro(result.getMacro());
+        selected.setMicro(result.getMicro());
+        selected.setPreClassResult(result.getPreClassResult());
+        selected.setRealignedTokens(result.getRealignedTokens());
+        selected.setUnmatchedTokens(result.getUnmatchedTokens());
+        if (!matchModes.isEmpty() && result.getMatchModes() != null) {
+            Map<String, MatchModeResult> modes = new LinkedHashMap<>();
+            for (MatchMode mode : matchModes) {
+                modes.put(mode.key(), result.getMatchModes().get(mode.key()));
+            }
+            selected.setMatchModes(modes);
+        }
+        if ((confusion || errorSamples > 0) && result.getConfusion() != null) {
+            selected.setConfusion(selectSamples(result.getConfusion(), errorSamples));
+        }
+        return selected;
+    }
+
+
+    /**
+     * 每个单元格只保留前若干个错误样例，为0时不输出样例
+     */
+    private static ConfusionResult selectSamples(ConfusionResult confusion, int errorSamples) {
+        ConfusionResult selected = new ConfusionResult();
+        selected.setLabels(confusion.getLabels());
+        selected.setMatrix(confusion.getMatrix());
+        selected.setTypeMismatches(confusion.getTypeMismatches());
+        if (errorSamples > 0) {
+            List<ConfusionSample> samples = new ArrayList<>();
+            int inCell = 0;
+            ConfusionSample previous = null;
+            // 样例按单元格连续排列
+            for (ConfusionSample sample : confusion.getSamples()) {
+                boolean sameCell = previous != null && previous.getTrueClass().equals(sample.getTrueClass())
+                        && previous.getPredClass().equals(sample.getPredClass());
+                inCell = sameCell ? inCell + 1 : 0;
+                if (inCell < errorSamples) {
+                    samples.add(sample);
+                }
+                previous = sample;
+            }
+            selected.setSamples(samples);
+        }
+        return selected;
+    }
+
+
+    /**
+     * 检查请求的错误样例数
+     * @throws IllegalArgumentException 超出范围
+     */
+    static void checkErrorSamples(int errorSamples) {
+        if (errorSamples < 0 || errorSamples > ConfusionMatrix.SAMPLES_PER_CELL) {
+            throw new IllegalArgumentException("错误样例数需在 0 到 " + ConfusionMatrix.SAMPLES_PER_CELL + " 之间");
+        }
+    }
+
+
+    /**
+     * 增量评估，使用同一文件对上一次的结果，只重新计算变化的句子
+     */
+    private IncrementalEvaluation calculateIncremental(String truePath, String predPath, EvaluationProgress progress) {
+        String key = truePath + '\n' + predPath;
+        IncrementalEvaluation previous;
+        synchronized (incrementalStates) {
+            previous = incrementalStates.get(key);
+        }
+        IncrementalEvaluation current = IncrementalEvaluation.evaluate(truePath, predPath, previous, progress);
+        putIncremental(key, current);
+        log.info("增量评估 {} / {}: 共 {} 句, 重新计算 {} 句", truePath, predPath,
+                current.getSentenceCount(), current.getChanged());
+        return current;
+    }
+
+
+    private void putIncremental(String key, IncrementalEvaluation state) {
+        long size = state.estimateBytes();
+        synchronized (incrementalStates) {
+            IncrementalEvaluation old = incrementalStates.remove(key);
+            if (old != null) {
+                incrementalBytes -= old.estimateBytes();
+            }
+            if (size > incrementalProperties.getMaxBytes()) {
+                log.info("增量评估状态约 {} 字节, 超过上限, 不保留", size);
+                return;
+            }
+            incrementalStates.put(key, state);
+            incrementalBytes += size;
+
+            Iterator<IncrementalEvaluation> iterator = incrementalStates.values().iterator();
+            while ((incrementalBytes > incrementalProperties.getMaxBytes()
+                    || incrementalStates.size() > incrementalProperties.getMaxEntries()) && iterator.hasNext()) {
+                incrementalBytes -= iterator.next().estimateBytes();
+                iterator.remove();
+            }
+        }
+    }
+
+
+    /**
+     * 清空增量评估状态
+     */
+    public void clearIncremental() {
+        synchronized (incrementalStates) {
+            incrementalStates.clear();
+            incrementalBytes = 0;
+        }
+    }
+
+
+    /**
+     * 保留的增量评估状态估算占用的内存字节数
+     */
+    public long getIncrementalBytes() {
+        synchronized (incrementalStates) {
+            return incrementalBytes;
+        }
+    }
+
+
+    /**
+     * 获取真实文件解析结果，缓存未启用时直接加载
+     */
+    private ParsedTruth loadTruth(String truePath) {
+        try {
+            return truthCache.loadBio(truePath);
+        } catch (IOException e) {
+            log.error("读取文件错误", e);
+            throw new RuntimeException(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.iecas.evaluate.service;
+
+import com.iecas.evaluate.config.EvaluateOnlineProperties;
+import com.iecas.evaluate.pojo.dto.OnlineBatchDTO;
+import com.iecas.evaluate.pojo.dto.OnlineSentenceDTO;
+import com.iecas.evaluate.pojo.entity.OnlineMetricsResult;
+import com.iecas.evaluate.utils.OnlineEvaluator;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 23:46
+ * @Description: 在线评估服务，接收线上模型的句子对并按滑动时间窗口给出评估结果，不读写任何文件
+ */
+@Service
+public class OnlineEvaluationService {
+
+    private final EvaluateOnlineProperties properties;
+
+    private final OnlineEvaluator evaluator;
+
+
+    public OnlineEvaluationService(EvaluateOnlineProperties properties) {
+        this.properties = properties;
+        this.evaluator = new OnlineEvaluator(properties.getMaxClasses());
+    }
+
+
+    /**
+     * 上报一批句子
+     * @param dto 句子批次
+     * @return 计入的句子数
+     * @throws IllegalArgumentException 批次为空、超过上限或句子不合法
+     */
+    public int ingest(OnlineBatchDTO dto) {
+        List<OnlineSentenceDTO> sentences = dto.getSentences();
+        if (sentences == null || sentences.isEmpty()) {
+            throw new IllegalArgumentException("句子列表不能为空");
+        }
+        if (sentences.size() > properties.getMaxBatchSentences()) {
+            throw new IllegalArgumentException("单次上报的句子数不能超过 " + properties.getMaxBatchSentences());
+        }
+        List<List<String>> trueTags = new ArrayList<>(sentences.size());
+        List<List<String>> predTags = new ArrayList<>(sentences.size());
+        for (OnlineSentenceDTO sentence : sentences) {
+            if (sentence == null || sentence.getTrueTags() == null || sentence.getPredTags() == null
+                    || sentence.getTrueTags().contains(null) || sentence.getPredTags().contains(null)) {
+                throw new IllegalArgumentException("句子的真实标签与预测标签不能为空");
+            }
+            trueTags.add(sentence.getTrueTags());
+            predTags.add(sentence.getPredTags());
+        }
+        evaluator.ingest(trueTags, predTags, System.currentTimeMillis());
+        return sentences.size();
+    }
+
+
+    /**
+     * 获取时间窗口内的评估结果
+     * @param window 窗口名称，为null时返回全部窗口
+     * @return 各窗口的评估结果
+     * @throws IllegalArgumentException 未知的窗口名称
+     */
+    public List<OnlineMetricsResult> getMetrics(String window) {
+        long now = System.currentTimeMillis();
+        List<OnlineMetricsResult> results = new ArrayList<>();
+        for (String name : window == null ? OnlineEvaluator.WINDOWS : Collections.singletonList(window)) {
+            results.add(evaluator.snapshot(name, now));
+        }
+        return results;
+    }
+}
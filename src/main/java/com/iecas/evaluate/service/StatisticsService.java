@@ -0,0 +1,53 @@
+package com.iecas.evaluate.service;
+
+import com.iecas.evaluate.config.EvaluateStatisticsProperties;
+import com.iecas.evaluate.pojo.dto.StatisticsParamsDTO;
+import com.iecas.evaluate.pojo.entity.StatisticsResult;
+import com.iecas.evaluate.utils.BootstrapStatistics;
+import com.iecas.evaluate.utils.LabelDictionary;
+import com.iecas.evaluate.utils.SentenceCounts;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 23:29
+ * @Description: 自助法统计服务，计算预测文件各项指标的置信区间，指定对比文件时做配对检验
+ */
+@Service
+public class StatisticsService {
+
+    private final EvaluateStatisticsProperties properties;
+
+
+    public StatisticsService(EvaluateStatisticsProperties properties) {
+        this.properties = properties;
+    }
+
+
+    /**
+     * 计算置信区间与配对检验
+     * @param dto 统计参数
+     * @return 统计结果
+     * @throws IllegalArgumentException 参数不合法
+     */
+    public StatisticsResult calculateStatistics(StatisticsParamsDTO dto) {
+        if (dto.getTrueFilePath() == null || dto.getPredFilePath() == null) {
+            throw new IllegalArgumentException("真实文件与预测文件路径不能为空");
+        }
+        int resamples = dto.getResamples() != null ? dto.getResamples() : properties.getDefaultResamples();
+        if (resamples < 1 || resamples > properties.getMaxResamples()) {
+            throw new IllegalArgumentException("重采样次数需在 1 到 " + properties.getMaxResamples() + " 之间");
+        }
+        if (dto.getConfidence() <= 0 || dto.getConfidence() >= 1) {
+            throw new IllegalArgumentException("置信水平需在 0 到 1 之间");
+        }
+        // 共用字典，使两个预测文件的类别id一致
+        LabelDictionary dictionary = new LabelDictionary();
+        SentenceCounts pred = SentenceCounts.collect(dto.getTrueFilePath(), dto.getPredFilePath(), dictionary);
+        SentenceCounts[] counts = dto.getComparePredFilePath() == null ? new SentenceCounts[]{pred}
+                : new SentenceCounts[]{pred, SentenceCounts.collect(dto.getTrueFilePath(), dto.getComparePredFilePath(), dictionary)};
+        return BootstrapStatistics.evaluate(counts, resamples, dto.getConfidence(), dto.getSeed(), ForkJoinPool.commonPool());
+    }
+}
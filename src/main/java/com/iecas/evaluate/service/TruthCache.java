@@ -0,0 +1,219 @@
+package com.iecas.evaluate.service;
+
+import com.iecas.evaluate.config.EvaluateTruthCacheProperties;
+import com.iecas.evaluate.pojo.entity.CacheStats;
+import com.iecas.evaluate.utils.FileFingerprint;
+import com.iecas.evaluate.utils.IecasEntityReader;
+import com.iecas.evaluate.utils.IecasEntitySet;
+import com.iecas.evaluate.utils.MetricsMode;
+import com.iecas.evaluate.utils.ParsedTruth;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 22:38
+ * @Description: 真实文件解析结果缓存，以文件指纹为键，按LRU以及估算内存大小淘汰。
+ * 同一真实文件同时被多个请求使用时只解析一次
+ */
+@Slf4j
+@Service
+public class TruthCache {
+
+    private final EvaluateTruthCacheProperties properties;
+
+    private final TruthIndexService truthIndexService;
+
+    /**
+     * 按访问顺序排列的缓存
+     */
+    private final LinkedHashMap<CacheKey, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * 正在解析的文件
+     */
+    private final ConcurrentMap<CacheKey, FutureTask<Object>> loading = new ConcurrentHashMap<>();
+
+    private long bytes;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+
+    public TruthCache(EvaluateTruthCacheProperties properties, TruthIndexService truthIndexService) {
+        this.properties = properties;
+        this.truthIndexService = truthIndexService;
+    }
+
+
+    /**
+     * 获取BIO格式真实文件的解析结果
+     * @param truePath 真实文件路径
+     * @return 解析结果，缓存未启用或文件无法读取时返回null
+     */
+    public ParsedTruth getBio(String truePath) {
+        return (ParsedTruth) get(MetricsMode.FULL, truePath, () -> truthIndexService.load(truePath));
+    }
+
+
+    /**
+     * 获取BIO格式真实文件的解析结果，缓存未启用或未命中时直接加载
+     * @param truePath 真实文件路径
+     * @return 解析结果
+     * @throws IOException 文件读取异常
+     */
+    public ParsedTruth loadBio(String truePath) throws IOException {
+        ParsedTruth truth = getBio(truePath);
+        return truth != null ? truth : truthIndexService.load(truePath);
+    }
+
+
+    /**
+     * 获取空天模型真实文件的实体集合
+     * @param gtPath 真实文件路径
+     * @return 只读的实体集合，缓存未启用或文件无法解析时返回null
+     */
+    public IecasEntitySet getIecas(String gtPath) {
+        return (IecasEntitySet) get(MetricsMode.IECAS, gtPath, () -> {
+            try {
+                return IecasEntityReader.readSet(gtPath);
+            } catch (IOException e) {
+                log.error("文件 {} 转换内容为Entity时出现错误...", gtPath, e);
+                return null;
+            }
+        });
+    }
+
+
+    private Object get(String format, String path, Callable<Object> loader) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        CacheKey key;
+        try {
+            key = new CacheKey(format, FileFingerprint.of(path));
+        } catch (IOException e) {
+            // 文件无法读取时不缓存，由调用方按原有方式计算并报错
+            return null;
+        }
+
+        synchronized (this) {
+            CacheEntry entry = entries.get(key);
+            if (entry != null) {
+                hits.incrementAndGet();
+                return entry.getValue();
+            }
+        }
+
+        FutureTask<Object> task = new FutureTask<>(loader);
+        FutureTask<Object> running = loading.putIfAbsent(key, task);
+        if (running == null) {
+            misses.incrementAndGet();
+            running = task;
+            try {
+                task.run();
+                Object value = task.get();
+                if (value != null) {
+                    put(key, value);
+                }
+            } catch (InterruptedException | ExecutionException e) {
+                // 由下面的get统一处理
+            } finally {
+                loading.remove(key, task);
+            }
+        } else {
+            hits.incrementAndGet();
+        }
+
+        try {
+            return running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e.getMessage());
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            log.error("读取文件错误", cause);
+            throw new RuntimeException(cause.getMessage());
+        }
+    }
+
+
+    private synchronized void put(CacheKey key, Object value) {
+        long size = estimate(value);
+        if (size > properties.getMaxBytes()) {
+            log.info("真实文件 {} 解析结果约 {} 字节, 超过缓存上限, 不缓存", key.getFingerprint().getPath(), size);
+            return;
+        }
+        CacheEntry old = entries.put(key, new CacheEntry(value, size));
+        if (old != null) {
+            bytes -= old.getBytes();
+        }
+        bytes += size;
+
+        Iterator<CacheEntry> iterator = entries.values().iterator();
+        while (bytes > properties.getMaxBytes() && iterator.hasNext()) {
+            bytes -= iterator.next().getBytes();
+            iterator.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+
+    private static long estimate(Object value) {
+        if (value instanceof ParsedTruth) {
+            return ((ParsedTruth) value).estimateBytes();
+        }
+        return ((IecasEntitySet) value).estimateBytes();
+    }
+
+
+    /**
+     * 清空缓存
+     */
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+
+    public synchronized CacheStats stats() {
+        CacheStats stats = new CacheStats();
+        stats.setHits(hits.get());
+        stats.setMisses(misses.get());
+        stats.setEvictions(evictions.get());
+        stats.setEntries(entries.size());
+        stats.setBytes(bytes);
+        return stats;
+    }
+
+
+    @Data
+    private static class CacheKey {
+
+        private final String format;
+
+        private final FileFingerprint fingerprint;
+    }
+
+
+    @Data
+    private static class CacheEntry {
+
+        private final Object value;
+
+        private final long bytes;
+    }
+}
@@ -0,0 +1,86 @@
+package com.iecas.evaluate.service;
+
+import com.iecas.evaluate.config.EvaluateTruthIndexProperties;
+import com.iecas.evaluate.pojo.entity.TruthIndexInfo;
+import com.iecas.evaluate.utils.BioIndexFile;
+import com.iecas.evaluate.utils.FileFingerprint;
+import com.iecas.evaluate.utils.ParsedTruth;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 23:00
+ * @Description: 真实文件索引服务，存在有效索引时直接映射，否则解析文本并按配置写出索引。
+ * 索引中记录源文件指纹，源文件变化后旧索引自动失效
+ */
+@Slf4j
+@Service
+public class TruthIndexService {
+
+    private final EvaluateTruthIndexProperties properties;
+
+
+    public TruthIndexService(EvaluateTruthIndexProperties properties) {
+        this.properties = properties;
+    }
+
+
+    /**
+     * 加载BIO格式真实文件
+     * @param truePath 真实文件路径
+     * @return 解析结果
+     * @throws IOException 文件读取异常
+     */
+    public ParsedTruth load(String truePath) throws IOException {
+        if (!properties.isEnabled()) {
+            return ParsedTruth.parse(truePath);
+        }
+        FileFingerprint fingerprint = FileFingerprint.of(truePath);
+        String indexPath = BioIndexFile.indexPath(truePath, properties.getDirectory());
+        try {
+            ParsedTruth truth = BioIndexFile.load(indexPath, fingerprint);
+            if (truth != null) {
+                return truth;
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("索引文件 {} 读取失败, 重新解析: {}", indexPath, e.toString());
+        }
+
+        ParsedTruth truth = ParsedTruth.parse(truePath);
+        if (properties.isAutoBuild()) {
+            try {
+                BioIndexFile.write(truth, fingerprint, indexPath);
+            } catch (IOException e) {
+                // 索引只用于加速，写出失败不影响评估
+                log.warn("索引文件 {} 写出失败: {}", indexPath, e.toString());
+            }
+        }
+        return truth;
+    }
+
+
+    /**
+     * 解析真实文件并写出索引
+     * @param truePath 真实文件路径
+     * @return 索引信息
+     * @throws IOException 文件读写异常
+     */
+    public TruthIndexInfo build(String truePath) throws IOException {
+        FileFingerprint fingerprint = FileFingerprint.of(truePath);
+        String indexPath = BioIndexFile.indexPath(truePath, properties.getDirectory());
+        ParsedTruth truth = ParsedTruth.parse(truePath);
+        long bytes = BioIndexFile.write(truth, fingerprint, indexPath);
+
+        TruthIndexInfo info = new TruthIndexInfo();
+        info.setSourcePath(fingerprint.getPath());
+        info.setIndexPath(indexPath);
+        info.setSentences(truth.getSentenceCount());
+        info.setEntities(truth.getEntityCount());
+        info.setClasses(truth.getClassCount());
+        info.setBytes(bytes);
+        return info;
+    }
+}
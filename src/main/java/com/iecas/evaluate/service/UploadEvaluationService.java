@@ -0,0 +1,137 @@
+package com.iecas.evaluate.service;
+
+import com.iecas.evaluate.pojo.entity.MetricsResult;
+import com.iecas.evaluate.pojo.entity.SubMetricsResult;
+import com.iecas.evaluate.utils.ConfusionLevel;
+import com.iecas.evaluate.utils.EntityMetricsUtils;
+import com.iecas.evaluate.utils.IecasEntityReader;
+import com.iecas.evaluate.utils.IecasEntitySet;
+import com.iecas.evaluate.utils.MatchMode;
+import com.iecas.evaluate.utils.ParsedTruth;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.tomcat.util.http.fileupload.FileItemIterator;
+import org.apache.tomcat.util.http.fileupload.FileItemStream;
+import org.apache.tomcat.util.http.fileupload.FileUploadException;
+import org.apache.tomcat.util.http.fileupload.servlet.ServletFileUpload;
+import org.apache.tomcat.util.http.fileupload.servlet.ServletRequestContext;
+import org.apache.tomcat.util.http.fileupload.util.Streams;
+import org.springframework.stereotype.Service;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 23:03
+ * @Description: 上传内容评估。按顺序流式读取multipart请求体中的各部分，不落盘也不整体缓存：
+ * 先读取真实内容（trueFile，或服务器上的真实文件路径 trueFilePath），再边接收边评估预测内容（predFile），
+ * 评估与上传同时进行，内存占用只与真实实体数以及固定大小的读取缓冲区有关
+ */
+@Slf4j
+@Service
+public class UploadEvaluationService {
+
+    public static final String TRUE_FILE = "trueFile";
+
+    public static final String TRUE_FILE_PATH = "trueFilePath";
+
+    public static final String PRED_FILE = "predFile";
+
+    private final TruthCache truthCache;
+
+
+    public UploadEvaluationService(TruthCache truthCache) {
+        this.truthCache = truthCache;
+    }
+
+
+    /**
+     * 评估上传的BIO格式内容
+     * @param request multipart请求
+     * @return 评估结果
+     * @throws IOException 读取异常
+     * @throws IllegalArgumentException 请求格式不正确
+     */
+    public MetricsResult calculateMetrics(HttpServletRequest request) throws IOException {
+        return evaluate(request, truthCache::loadBio, ParsedTruth::parse,
+                (input, truth) -> MetricsService.selectOutput(truth.evaluate(input, ConfusionLevel.NONE).toMetricsResult(),
+                        EnumSet.noneOf(MatchMode.class), false, 0));
+    }
+
+
+    /**
+     * 评估上传的空天模型实体内容
+     * @param request multipart请求
+     * @return 评估结果
+     * @throws IOException 读取异常
+     * @throws IllegalArgumentException 请求格式不正确
+     */
+    public SubMetricsResult calculateIecasTextMetrics(HttpServletRequest request) throws IOException {
+        return evaluate(request, path -> {
+            IecasEntitySet set = truthCache.getIecas(path);
+            return set != null ? set : IecasEntityReader.readSet(path);
+        }, IecasEntityReader::readSet, (input, set) -> EntityMetricsUtils.calculateIecasTextMetrics(input, set));
+    }
+
+
+    /**
+     * 依次读取请求中的各部分，真实内容需在预测内容之前
+     */
+    private <T, R> R evaluate(HttpServletRequest request, PathLoader<T> pathLoader, StreamLoader<T> streamLoader,
+                              Evaluator<T, R> evaluator) throws IOException {
+        if (!ServletFileUpload.isMultipartContent(request)) {
+            throw new IllegalArgumentException("请求需为multipart/form-data格式");
+        }
+        try {
+            FileItemIterator iterator = new ServletFileUpload().getItemIterator(new ServletRequestContext(request));
+            T truth = null;
+            while (iterator.hasNext()) {
+                FileItemStream item = iterator.next();
+                try (InputStream input = item.openStream()) {
+                    switch (item.getFieldName()) {
+                        case TRUE_FILE:
+                            truth = streamLoader.load(input);
+                            break;
+                        case TRUE_FILE_PATH:
+                            truth = pathLoader.load(Streams.asString(input, StandardCharsets.UTF_8.name()).trim());
+                            break;
+                        case PRED_FILE:
+                            if (truth == null) {
+                                throw new IllegalArgumentException("请求中 " + TRUE_FILE + " 或 " + TRUE_FILE_PATH + " 需位于 " + PRED_FILE + " 之前");
+                            }
+                            return evaluator.evaluate(input, truth);
+                        default:
+                            log.debug("忽略未知的请求部分 {}", item.getFieldName());
+                    }
+                }
+            }
+        } catch (FileUploadException e) {
+            throw new IllegalArgumentException("multipart请求解析失败: " + e.getMessage());
+        }
+        throw new IllegalArgumentException("请求中缺少 " + PRED_FILE);
+    }
+
+
+    @FunctionalInterface
+    private interface PathLoader<T> {
+
+        T load(String path) throws IOException;
+    }
+
+
+    @FunctionalInterface
+    private interface StreamLoader<T> {
+
+        T load(InputStream input) throws IOException;
+    }
+
+
+    @FunctionalInterface
+    private interface Evaluator<T, R> {
+
+        R evaluate(InputStream input, T truth) throws IOException;
+    }
+}
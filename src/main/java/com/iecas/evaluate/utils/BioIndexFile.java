@@ -0,0 +1,213 @@
+package com.iecas.evaluate.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 23:00
+ * @Description: BIO真实文件的二进制索引。文件结构（小端）：
+ * 头部为魔数、版本、源文件指纹（大小、修改时间、抽样哈希）、句子数、实体数、源文件字节数以及类别字典和每类实体数，
+ * 之后按8字节对齐依次存放每句token偏移、O标签位图、每句实体偏移、实体起始、结束、类别三列以及每个token的词哈希。
+ * 加载时整体映射到内存，各列直接作为 {@link ParsedTruth} 的存储，无需解析文本。
+ * 源文件指纹不一致时视为过期
+ */
+@Slf4j
+public class BioIndexFile {
+
+    /**
+     * 索引文件默认扩展名
+     */
+    public static final String SUFFIX = ".bidx";
+
+    private static final int MAGIC = 0x58444942; // "BIDX"
+
+    private static final int VERSION = 2;
+
+
+    /**
+     * 默认的索引文件路径
+     * @param sourcePath BIO文件路径
+     * @param directory 索引目录，为空时与源文件放在一起
+     */
+    public static String indexPath(String sourcePath, String directory) throws IOException {
+        File source = new File(sourcePath).getCanonicalFile();
+        if (directory == null || directory.isEmpty()) {
+            return source.getPath() + SUFFIX;
+        }
+        // 以规范路径的哈希区分不同目录下的同名文件
+        String name = source.getName() + "." + Integer.toHexString(source.getPath().hashCode()) + SUFFIX;
+        return new File(directory, name).getPath();
+    }
+
+
+    /**
+     * 写出索引文件，先写入临时文件再原子替换，正在使用旧索引的评估不受影响
+     * @param truth 已解析的真实文件
+     * @param fingerprint 源文件指纹，需在解析前计算，避免解析期间文件被修改
+     * @param indexPath 索引文件路径
+     * @return 索引文件字节数
+     */
+    public static long write(ParsedTruth truth, FileFingerprint fingerprint, String indexPath) throws IOException {
+        byte[][] names = new byte[truth.classNames.length][];
+        int namesBytes = 0;
+        for (int c = 0; c < names.length; c++) {
+            names[c] = truth.classNames[c].getBytes(StandardCharsets.UTF_8);
+            namesBytes += 4 + names[c].length;
+        }
+        int spanCount = truth.spanStart.limit();
+        long header = align(4 + 4 + 8 + 8 + 8 + 4 + 4 + 8 + 4 + namesBytes + 4L * names.length);
+        long size = header + 8L * truth.tokenOffsets.limit() + 8L * truth.outsideMask.limit()
+                + align(4L * truth.spanOffsets.limit()) + align(4L * spanCount) * 3 + align(4L * truth.tokenHash.limit());
+
+        Path target = Paths.get(indexPath);
+        if (target.getParent() != null) {
+            Files.createDirectories(target.getParent());
+        }
+        Path temp = Files.createTempFile(target.toAbsolutePath().getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, checkSize(size));
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                buffer.putInt(MAGIC).putInt(VERSION);
+                buffer.putLong(fingerprint.getSize()).putLong(fingerprint.getLastModified()).putLong(fingerprint.getContentHash());
+                buffer.putInt(truth.sentenceCount).putInt(spanCount).putLong(truth.fileBytes);
+                buffer.putInt(names.length);
+                for (byte[] name : names) {
+                    buffer.putInt(name.length).put(name);
+                }
+                for (int total : truth.classTotals) {
+                    buffer.putInt(total);
+                }
+                buffer.position((int) header);
+                putLongs(buffer, truth.tokenOffsets);
+                putLongs(buffer, truth.outsideMask);
+                putInts(buffer, truth.spanOffsets);
+                putInts(buffer, truth.spanStart);
+                putInts(buffer, truth.spanEnd);
+                putInts(buffer, truth.spanClass);
+                putInts(buffer, truth.tokenHash);
+                buffer.force();
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return size;
+    }
+
+
+    /**
+     * 映射索引文件
+     * @param indexPath 索引文件路径
+     * @param fingerprint 当前源文件指纹
+     * @return 真实文件解析结果，索引不存在、已过期或格式不符时返回null
+     */
+    public static ParsedTruth load(String indexPath, FileFingerprint fingerprint) throws IOException {
+        Path path = Paths.get(indexPath);
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // 映射在通道关闭后仍然有效
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, checkSize(channel.size()));
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < 16 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            log.warn("索引文件 {} 格式不符, 忽略", indexPath);
+            return null;
+        }
+        if (buffer.getLong() != fingerprint.getSize() || buffer.getLong() != fingerprint.getLastModified()
+                || buffer.getLong() != fingerprint.getContentHash()) {
+            log.info("索引文件 {} 对应的源文件已变化, 忽略", indexPath);
+            return null;
+        }
+        int sentenceCount = buffer.getInt();
+        int spanCount = buffer.getInt();
+        long fileBytes = buffer.getLong();
+        String[] classNames = new String[buffer.getInt()];
+        for (int c = 0; c < classNames.length; c++) {
+            byte[] name = new byte[buffer.getInt()];
+            buffer.get(name);
+            classNames[c] = new String(name, StandardCharsets.UTF_8);
+        }
+        int[] classTotals = new int[classNames.length];
+        for (int c = 0; c < classTotals.length; c++) {
+            classTotals[c] = buffer.getInt();
+        }
+        buffer.position((int) align(buffer.position()));
+
+        LongBuffer tokenOffsets = longs(buffer, sentenceCount + 1);
+        long tokens = tokenOffsets.get(sentenceCount);
+        LongBuffer outsideMask = longs(buffer, (int) ((tokens + 63) >>> 6));
+        IntBuffer spanOffsets = ints(buffer, sentenceCount + 1);
+        IntBuffer spanStart = ints(buffer, spanCount);
+        IntBuffer spanEnd = ints(buffer, spanCount);
+        IntBuffer spanClass = ints(buffer, spanCount);
+        IntBuffer tokenHash = ints(buffer, (int) tokens);
+        return new ParsedTruth(classNames, classTotals, sentenceCount, spanOffsets, spanStart, spanEnd, spanClass,
+                tokenOffsets, outsideMask, tokenHash, fileBytes);
+    }
+
+
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+
+    /**
+     * 单个映射区域不能超过2GB
+     */
+    private static long checkSize(long size) throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("索引文件超过2GB, 不支持: " + size);
+        }
+        return size;
+    }
+
+
+    private static void putLongs(ByteBuffer buffer, LongBuffer values) {
+        for (int i = 0; i < values.limit(); i++) {
+            buffer.putLong(values.get(i));
+        }
+    }
+
+
+    private static void putInts(ByteBuffer buffer, IntBuffer values) {
+        for (int i = 0; i < values.limit(); i++) {
+            buffer.putInt(values.get(i));
+        }
+        buffer.position((int) align(buffer.position()));
+    }
+
+
+    private static LongBuffer longs(ByteBuffer buffer, int count) {
+        ByteBuffer slice = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        slice.limit(count * 8);
+        buffer.position(buffer.position() + count * 8);
+        return slice.asLongBuffer();
+    }
+
+
+    private static IntBuffer ints(ByteBuffer buffer, int count) {
+        ByteBuffer slice = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        slice.limit(count * 4);
+        buffer.position((int) align(buffer.position() + count * 4L));
+        return slice.asIntBuffer();
+    }
+}
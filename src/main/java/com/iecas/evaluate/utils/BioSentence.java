@@ -0,0 +1,183 @@
+package com.iecas.evaluate.utils;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 22:19
+ * @Description: 单个BIO句子的解码结果，可复用的缓冲区，避免逐句创建对象
+ */
+public class BioSentence {
+
+    /**
+     * 句子中的token数量
+     */
+    int tokenCount;
+
+    /**
+     * 每个token的标签id
+     */
+    int[] tags = new int[64];
+
+    /**
+     * 每个token的词哈希，用于两侧token数不一致时按词文本对齐
+     */
+    int[] wordHash = new int[64];
+
+    /**
+     * 实体数量
+     */
+    int spanCount;
+
+    /**
+     * 实体起始位置
+     */
+    int[] spanStart = new int[8];
+
+    /**
+     * 实体结束位置
+     */
+    int[] spanEnd = new int[8];
+
+    /**
+     * 实体类别id
+     */
+    int[] spanClass = new int[8];
+
+    /**
+     * 实体文本的UTF-8字节，仅在需要实体文本时填充
+     */
+    byte[] text = new byte[256];
+
+    int textLength;
+
+    /**
+     * 实体文本在text中的起止位置
+     */
+    int[] spanTextStart = new int[8];
+
+    int[] spanTextEnd = new int[8];
+
+
+    /**
+     * 清空句子内容，保留已分配的缓冲区
+     */
+    void clear() {
+        tokenCount = 0;
+        spanCount = 0;
+        textLength = 0;
+    }
+
+
+    /**
+     * 追加一个token
+     * @param tagId 标签id
+     * @param hash 词哈希
+     */
+    void addToken(int tagId, int hash) {
+        if (tokenCount == tags.length) {
+            tags = Arrays.copyOf(tags, tokenCount * 2);
+            wordHash = Arrays.copyOf(wordHash, tokenCount * 2);
+        }
+        wordHash[tokenCount] = hash;
+        tags[tokenCount++] = tagId;
+    }
+
+
+    /**
+     * 追加一个实体
+     * @param start 起始位置
+     * @param end 结束位置
+     * @param classId 实体类别id
+     * @param textStart 实体文本在text中的起始位置
+     */
+    void addSpan(int start, int end, int classId, int textStart) {
+        if (spanCount == spanStart.length) {
+            int capacity = spanCount * 2;
+            spanStart = Arrays.copyOf(spanStart, capacity);
+            spanEnd = Arrays.copyOf(spanEnd, capacity);
+            spanClass = Arrays.copyOf(spanClass, capacity);
+            spanTextStart = Arrays.copyOf(spanTextStart, capacity);
+            spanTextEnd = Arrays.copyOf(spanTextEnd, capacity);
+        }
+        spanStart[spanCount] = start;
+        spanEnd[spanCount] = end;
+        spanClass[spanCount] = classId;
+        spanTextStart[spanCount] = textStart;
+        spanTextEnd[spanCount] = textLength;
+        spanCount++;
+    }
+
+
+    /**
+     * 由标签序列解码句子，实体的切分规则与 {@link BioSentenceReader#next} 一致，不记录词哈希与实体文本
+     * @param labels 每个token的标签
+     * @param dictionary 标签字典
+     */
+    void decode(List<String> labels, LabelDictionary dictionary) {
+        clear();
+        int currentClass = -1;
+        int startIdx = 0;
+        for (String label : labels) {
+            int currentIdx = tokenCount;
+            int tag = dictionary.tagId(label);
+            int kind = dictionary.tagKind(tag);
+            if (kind == LabelDictionary.KIND_BEGIN) {
+                if (currentClass >= 0) {
+                    addSpan(startIdx, currentIdx - 1, currentClass, 0);
+                }
+                currentClass = dictionary.tagClass(tag);
+                startIdx = currentIdx;
+            } else if (currentClass >= 0 && (kind != LabelDictionary.KIND_INSIDE || dictionary.tagClass(tag) != currentClass)) {
+                addSpan(startIdx, currentIdx - 1, currentClass, 0);
+                currentClass = -1;
+            }
+            addToken(tag, 0);
+        }
+        if (currentClass >= 0) {
+            addSpan(startIdx, tokenCount - 1, currentClass, 0);
+        }
+    }
+
+
+    /**
+     * 为追加实体文本预留空间
+     * @param length 需要追加的字节数
+     */
+    void ensureText(int length) {
+        if (textLength + length > text.length) {
+            text = Arrays.copyOf(text, Math.max(text.length * 2, textLength + length));
+        }
+    }
+
+
+    public int spanStart(int index) {
+        return spanStart[index];
+    }
+
+
+    public int spanEnd(int index) {
+        return spanEnd[index];
+    }
+
+
+    public int spanClass(int index) {
+        return spanClass[index];
+    }
+
+
+    public int tag(int index) {
+        return tags[index];
+    }
+
+
+    public int getTokenCount() {
+        return tokenCount;
+    }
+
+
+    public int getSpanCount() {
+        return spanCount;
+    }
+}
@@ -0,0 +1,120 @@
+package com.iecas.evaluate.utils;
+
+import java.io.*;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 22:19
+ * @Description: BIO文件逐句读取器，按空行切分句子并在读取过程中完成实体解码
+ */
+public class BioSentenceReader implements Closeable {
+
+    private final BioTokenizer tokenizer;
+
+    private final LabelDictionary dictionary;
+
+    /**
+     * 是否需要保留实体文本
+     */
+    private final boolean withText;
+
+
+    public BioSentenceReader(String filePath, LabelDictionary dictionary) throws IOException {
+        this(filePath, dictionary, false);
+    }
+
+
+    /**
+     * @param filePath 文件路径
+     * @param dictionary 标签字典
+     * @param withText 是否需要实体文本，不需要时不会复制任何词的内容
+     */
+    public BioSentenceReader(String filePath, LabelDictionary dictionary, boolean withText) throws IOException {
+        this(BioTokenizer.open(filePath), dictionary, withText);
+    }
+
+
+    public BioSentenceReader(BioTokenizer tokenizer, LabelDictionary dictionary, boolean withText) {
+        this.tokenizer = tokenizer;
+        this.dictionary = dictionary;
+        this.withText = withText;
+    }
+
+
+    /**
+     * 读取下一个句子：B-开始新实体，同类别的I-延续实体，其余情况结束实体
+     * @param sentence 用于存放结果的句子缓冲区
+     * @return 是否读到了句子，文件结束时返回false
+     * @throws IOException 文件读取异常
+     */
+    public boolean next(BioSentence sentence) throws IOException {
+        sentence.clear();
+        boolean opened = false;
+        int currentClass = -1;
+        int startIdx = 0;
+        int textStart = 0;
+
+        int type;
+        while ((type = tokenizer.next()) != BioTokenizer.EOF) {
+            if (type == BioTokenizer.BLANK) {
+                if (opened) {
+                    break; // 句子结束
+                }
+                continue; // 连续空行
+            }
+            opened = true;
+            if (type == BioTokenizer.MALFORMED) continue;
+
+            int currentIdx = sentence.tokenCount;
+            int tag = tokenizer.tagId(dictionary);
+            int kind = dictionary.tagKind(tag);
+            if (kind == LabelDictionary.KIND_BEGIN) {
+                // 如果正在处理实体，则先关闭前一个
+                if (currentClass >= 0) {
+                    sentence.addSpan(startIdx, currentIdx - 1, currentClass, textStart);
+                }
+                currentClass = dictionary.tagClass(tag);
+                startIdx = currentIdx;
+                textStart = sentence.textLength;
+                appendWord(sentence);
+            } else if (kind == LabelDictionary.KIND_INSIDE && currentClass >= 0
+                    && dictionary.tagClass(tag) == currentClass) {
+                // 实体延续
+                appendWord(sentence);
+            } else if (currentClass >= 0) {
+                // 当前是O，或者实体断了
+                sentence.addSpan(startIdx, currentIdx - 1, currentClass, textStart);
+                currentClass = -1;
+            }
+            sentence.addToken(tag, tokenizer.wordHash());
+        }
+
+        // 句子结尾处理遗留实体
+        if (currentClass >= 0) {
+            sentence.addSpan(startIdx, sentence.tokenCount - 1, currentClass, textStart);
+        }
+        return opened;
+    }
+
+
+    /**
+     * 已读取的字节数
+     */
+    public long consumed() {
+        return tokenizer.consumed();
+    }
+
+
+    private void appendWord(BioSentence sentence) {
+        if (withText) {
+            sentence.ensureText(tokenizer.wordLength());
+            sentence.textLength += tokenizer.copyWord(sentence.text, sentence.textLength);
+        }
+    }
+
+
+    @Override
+    public void close() throws IOException {
+        tokenizer.close();
+    }
+}
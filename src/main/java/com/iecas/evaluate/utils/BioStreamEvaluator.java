@@ -0,0 +1,107 @@
+package com.iecas.evaluate.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 22:19
+ * @Description: BIO文件流式评估引擎，真实文件与预测文件按句同步读取，一次遍历完成实体解码、TN与各项计数
+ */
+@Slf4j
+public class BioStreamEvaluator {
+
+
+    /**
+     * 同步遍历真实文件与预测文件，逐句累积评估计数
+     * @param truePath 真实实体文件路径
+     * @param predPath 预测实体文件路径
+     * @return 评估计数
+     */
+    public static MetricsAccumulator evaluate(String truePath, String predPath) {
+        return evaluate(truePath, predPath, null);
+    }
+
+
+    /**
+     * 同步遍历真实文件与预测文件，逐句累积评估计数
+     * @param truePath 真实实体文件路径
+     * @param predPath 预测实体文件路径
+     * @param progress 评估进度，可为null
+     * @return 评估计数
+     */
+    public static MetricsAccumulator evaluate(String truePath, String predPath, EvaluationProgress progress) {
+        return evaluate(truePath, predPath, progress, ConfusionLevel.SAMPLES);
+    }
+
+
+    /**
+     * 同步遍历真实文件与预测文件，逐句累积评估计数
+     * @param truePath 真实实体文件路径
+     * @param predPath 预测实体文件路径
+     * @param progress 评估进度，可为null
+     * @param confusionLevel 记录混淆矩阵的程度
+     * @return 评估计数
+     */
+    public static MetricsAccumulator evaluate(String truePath, String predPath, EvaluationProgress progress,
+                                              ConfusionLevel confusionLevel) {
+        StageMetrics.Sample sample = StageMetrics.start();
+        LabelDictionary dictionary = new LabelDictionary();
+        MetricsAccumulator accumulator = new MetricsAccumulator(dictionary, confusionLevel);
+        try (BioSentenceReader trueReader = new BioSentenceReader(truePath, dictionary);
+             BioSentenceReader predReader = new BioSentenceReader(predPath, dictionary)) {
+            evaluate(trueReader, predReader, accumulator, progress);
+            accumulator.countBytes(trueReader.consumed(), predReader.consumed());
+        } catch (IOException e) {
+            log.error("读取文件错误", e);
+            throw new RuntimeException(e.getMessage());
+        }
+        StageMetrics.stop(sample, StageMetrics.STAGE_EVALUATE, accumulator.bytesRead());
+        accumulator.publishCounts();
+        return accumulator;
+    }
+
+
+    /**
+     * 同步遍历两个句子读取器，逐句累积评估计数
+     * @param trueReader 真实句子读取器
+     * @param predReader 预测句子读取器
+     * @param accumulator 评估计数
+     * @param progress 评估进度，可为null
+     * @throws IOException 文件读取异常
+     */
+    public static void evaluate(BioSentenceReader trueReader, BioSentenceReader predReader,
+                                MetricsAccumulator accumulator, EvaluationProgress progress) throws IOException {
+        BioSentence truth = new BioSentence();
+        BioSentence pred = new BioSentence();
+        long reportedBytes = 0;
+        int pending = 0;
+
+        boolean hasTruth = trueReader.next(truth);
+        boolean hasPred = predReader.next(pred);
+        while (hasTruth && hasPred) {
+            accumulator.accept(truth, pred);
+            hasTruth = trueReader.next(truth);
+            hasPred = predReader.next(pred);
+            if (progress != null && ++pending == EvaluationProgress.REPORT_INTERVAL) {
+                long consumed = trueReader.consumed() + predReader.consumed();
+                accumulator.reportProgress(progress, consumed - reportedBytes, pending);
+                reportedBytes = consumed;
+                pending = 0;
+            }
+        }
+        // 句子数量不一致时，剩余句子只计入FN或FP
+        while (hasTruth) {
+            accumulator.acceptUnpaired(truth, null);
+            hasTruth = trueReader.next(truth);
+        }
+        while (hasPred) {
+            accumulator.acceptUnpaired(null, pred);
+            hasPred = predReader.next(pred);
+        }
+        if (progress != null) {
+            accumulator.reportProgress(progress, trueReader.consumed() + predReader.consumed() - reportedBytes, pending);
+        }
+    }
+}
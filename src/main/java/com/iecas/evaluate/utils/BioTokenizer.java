@@ -0,0 +1,341 @@
+package com.iecas.evaluate.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 22:23
+ * @Description: 基于内存映射的BIO文件分词器，直接扫描UTF-8字节定位词与标签，逐行读取时不创建任何对象。
+ * 也可以从输入流读取，此时使用有界的堆内缓冲区，边接收边解析。gzip/zstd压缩文件自动按输入流方式解压读取
+ */
+public class BioTokenizer implements Closeable {
+
+    /**
+     * 文件结束
+     */
+    public static final int EOF = -1;
+
+    /**
+     * 空行，即句子分隔
+     */
+    public static final int BLANK = 0;
+
+    /**
+     * "词 标签" 格式的token行
+     */
+    public static final int TOKEN = 1;
+
+    /**
+     * 非空但不是两列的行
+     */
+    public static final int MALFORMED = 2;
+
+    /**
+     * 默认映射窗口大小
+     */
+    private static final int DEFAULT_WINDOW = 1 << 28;
+
+    /**
+     * 输入流模式的初始缓冲区大小
+     */
+    private static final int STREAM_BUFFER = 64 * 1024;
+
+    /**
+     * 输入流模式下单行的最大长度
+     */
+    private static final int MAX_STREAM_LINE = 1 << 20;
+
+    private final FileChannel channel;
+
+    /**
+     * 输入流，为null时为文件映射模式
+     */
+    private final InputStream input;
+
+    /**
+     * 输入流是否由分词器打开，关闭分词器时一并关闭
+     */
+    private final boolean ownsInput;
+
+    private byte[] streamBuffer;
+
+    private boolean streamEnded;
+
+    /**
+     * 读取范围的结束偏移（不含）
+     */
+    private final long end;
+
+    /**
+     * 读取范围的起始偏移
+     */
+    private final long start;
+
+    private final int windowSize;
+
+    private ByteBuffer buffer;
+
+    /**
+     * 当前窗口在文件中的起始偏移
+     */
+    private long base;
+
+    /**
+     * 当前窗口内的读取位置
+     */
+    private int pos;
+
+    private int limit;
+
+    private int wordStart, wordEnd, labelStart, labelEnd;
+
+
+    private BioTokenizer(FileChannel channel, long from, long to, int windowSize) throws IOException {
+        this.channel = channel;
+        this.input = null;
+        this.ownsInput = false;
+        this.end = Math.min(to, channel.size());
+        this.start = Math.min(from, end);
+        this.windowSize = windowSize;
+        map(start);
+    }
+
+
+    private BioTokenizer(InputStream input, boolean ownsInput) {
+        this.channel = null;
+        this.input = input;
+        this.ownsInput = ownsInput;
+        this.end = Long.MAX_VALUE;
+        this.start = 0;
+        this.windowSize = MAX_STREAM_LINE;
+        this.streamBuffer = new byte[STREAM_BUFFER];
+        this.buffer = ByteBuffer.wrap(streamBuffer);
+    }
+
+
+    public static BioTokenizer open(String filePath) throws IOException {
+        return open(filePath, DEFAULT_WINDOW);
+    }
+
+
+    /**
+     * @param filePath 文件路径
+     * @param windowSize 单次映射的最大字节数，需大于最长的一行
+     */
+    public static BioTokenizer open(String filePath, int windowSize) throws IOException {
+        if (CompressedInput.isCompressed(filePath)) {
+            return new BioTokenizer(CompressedInput.open(filePath), true);
+        }
+        return new BioTokenizer(FileChannel.open(Paths.get(filePath), StandardOpenOption.READ), 0, Long.MAX_VALUE, windowSize);
+    }
+
+
+    /**
+     * 只读取文件的一段，from需位于行首。不支持压缩文件
+     * @param filePath 文件路径
+     * @param from 起始偏移
+     * @param to 结束偏移（不含）
+     */
+    public static BioTokenizer open(String filePath, long from, long to) throws IOException {
+        return new BioTokenizer(FileChannel.open(Paths.get(filePath), StandardOpenOption.READ), from, to, DEFAULT_WINDOW);
+    }
+
+
+    /**
+     * 从输入流读取，流由调用方关闭
+     * @param input 输入流
+     */
+    public static BioTokenizer open(InputStream input) {
+        return new BioTokenizer(input, false);
+    }
+
+
+    private void map(long position) throws IOException {
+        base = position;
+        limit = (int) Math.min(windowSize, end - position);
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, limit);
+        pos = 0;
+    }
+
+
+    /**
+     * 读取下一行
+     * @return 行类型 {@link #EOF} {@link #BLANK} {@link #TOKEN} {@link #MALFORMED}
+     * @throws IOException 文件读取异常
+     */
+    public int next() throws IOException {
+        if (pos >= limit) {
+            if (!hasMore()) {
+                return EOF;
+            }
+            shift();
+            if (pos >= limit) {
+                return EOF;
+            }
+        }
+        int lineEnd = findLineEnd();
+        int lineStart = pos;
+        pos = lineEnd < limit ? lineEnd + 1 : lineEnd;
+
+        int i = skipSpace(lineStart, lineEnd);
+        if (i == lineEnd) {
+            return BLANK;
+        }
+        wordStart = i;
+        wordEnd = skipWord(i, lineEnd);
+        labelStart = skipSpace(wordEnd, lineEnd);
+        if (labelStart == lineEnd) {
+            return MALFORMED;
+        }
+        labelEnd = skipWord(labelStart, lineEnd);
+        if (skipSpace(labelEnd, lineEnd) != lineEnd) {
+            return MALFORMED;
+        }
+        return TOKEN;
+    }
+
+
+    /**
+     * 查找当前行的结尾，行跨越窗口边界时从行首重新映射
+     */
+    private int findLineEnd() throws IOException {
+        int i = pos;
+        while (true) {
+            while (i < limit) {
+                if (buffer.get(i) == '\n') {
+                    return i;
+                }
+                i++;
+            }
+            if (!hasMore()) {
+                return limit;
+            }
+            if (pos == 0 && (input == null || limit == streamBuffer.length)) {
+                if (input == null || streamBuffer.length >= windowSize) {
+                    throw new IOException("单行长度超过窗口大小: " + windowSize);
+                }
+                // 输入流模式下缓冲区不足一行时扩容
+                streamBuffer = Arrays.copyOf(streamBuffer, Math.min(streamBuffer.length * 2, windowSize));
+                buffer = ByteBuffer.wrap(streamBuffer);
+            }
+            i -= pos;
+            shift();
+        }
+    }
+
+
+    /**
+     * 当前窗口之后是否还有数据
+     */
+    private boolean hasMore() {
+        return input == null ? base + limit < end : !streamEnded;
+    }
+
+
+    /**
+     * 将窗口移动到当前读取位置：文件模式重新映射，输入流模式保留未读完的部分并继续读取
+     */
+    private void shift() throws IOException {
+        if (input == null) {
+            map(base + pos);
+            return;
+        }
+        int remaining = limit - pos;
+        System.arraycopy(streamBuffer, pos, streamBuffer, 0, remaining);
+        base += pos;
+        pos = 0;
+        limit = remaining;
+        int n = input.read(streamBuffer, limit, streamBuffer.length - limit);
+        if (n < 0) {
+            streamEnded = true;
+        } else {
+            limit += n;
+        }
+    }
+
+
+    private int skipSpace(int i, int end) {
+        while (i < end && isSpace(buffer.get(i))) {
+            i++;
+        }
+        return i;
+    }
+
+
+    private int skipWord(int i, int end) {
+        while (i < end && !isSpace(buffer.get(i))) {
+            i++;
+        }
+        return i;
+    }
+
+
+    private static boolean isSpace(byte b) {
+        return b >= 0 && b <= ' ';
+    }
+
+
+    /**
+     * 获取当前行标签在字典中的id
+     * @param dictionary 标签字典
+     * @return 标签id
+     */
+    public int tagId(LabelDictionary dictionary) {
+        return dictionary.tagId(buffer, labelStart, labelEnd);
+    }
+
+
+    /**
+     * 已读取的字节数
+     */
+    public long consumed() {
+        return base + pos - start;
+    }
+
+
+    public int wordLength() {
+        return wordEnd - wordStart;
+    }
+
+
+    /**
+     * 词的UTF-8字节的哈希
+     */
+    public int wordHash() {
+        int hash = 0;
+        for (int i = wordStart; i < wordEnd; i++) {
+            hash = 31 * hash + buffer.get(i);
+        }
+        return hash;
+    }
+
+
+    /**
+     * 将词的UTF-8字节复制到目标数组
+     * @return 复制的字节数
+     */
+    public int copyWord(byte[] dest, int offset) {
+        for (int i = wordStart; i < wordEnd; i++) {
+            dest[offset++] = buffer.get(i);
+        }
+        return wordEnd - wordStart;
+    }
+
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+        if (ownsInput) {
+            input.close();
+        }
+    }
+}
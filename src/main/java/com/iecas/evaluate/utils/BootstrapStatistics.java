@@ -0,0 +1,504 @@
+package com.iecas.evaluate.utils;
+
+import com.iecas.evaluate.pojo.entity.BootstrapInterval;
+import com.iecas.evaluate.pojo.entity.StatisticsResult;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 23:29
+ * @Description: 按句自助法重采样，得到微平均、宏平均P/R/F1的置信区间，以及同一真实文件下两个预测文件的配对检验。
+ * 重采样只使用每句的TP/FP/FN贡献，不重新匹配实体：贡献完全相同的句子合并为一种模式并记录出现次数，
+ * 采用泊松自助法，每句的权重服从均值为1的泊松分布，一种模式的总权重即服从均值为出现次数的泊松分布，
+ * 每次重采样只需对各模式抽样一次，代价与模式数而非句子数成正比。
+ * 重采样分成固定大小的任务并行执行，每个任务使用由同一种子依次拆分出的独立随机流，结果与线程数及调度无关
+ */
+@Slf4j
+public class BootstrapStatistics {
+
+    public static final String[] METRICS = {"microPrecision", "microRecall", "microF1", "macroPrecision", "macroRecall", "macroF1"};
+
+    private static final int STATS = METRICS.length;
+
+    /**
+     * 每个任务执行的重采样次数，任务划分与线程数无关，保证不同机器上结果一致
+     */
+    private static final int RESAMPLES_PER_TASK = 64;
+
+    /**
+     * 较小k的ln(k!)
+     */
+    private static final double[] LOG_FACTORIALS = new double[256];
+
+    static {
+        for (int k = 1; k < LOG_FACTORIALS.length; k++) {
+            LOG_FACTORIALS[k] = LOG_FACTORIALS[k - 1] + Math.log(k);
+        }
+    }
+
+    private final int systems;
+
+    private final int classCount;
+
+    private final int sentences;
+
+    private int patternCount;
+
+    /**
+     * 每种模式出现的句子数
+     */
+    private int[] multiplicity = new int[256];
+
+    /**
+     * 模式的贡献位于 [patternOffsets[i], patternOffsets[i+1])，每项为 (系统 * 类别数 + 类别id, TP, FP, FN)
+     */
+    private int[] patternOffsets = new int[257];
+
+    private int[] entries = new int[1024];
+
+    private int entrySize;
+
+    /**
+     * 每种模式的权重抽样器，出现次数相同的模式共用
+     */
+    private PoissonSampler[] samplers;
+
+
+    private BootstrapStatistics(SentenceCounts[] counts) {
+        this.systems = counts.length;
+        this.classCount = counts[0].getDictionary().classCount();
+        int sentenceCount = 0;
+        for (SentenceCounts c : counts) {
+            sentenceCount = Math.max(sentenceCount, c.getSentenceCount());
+        }
+        this.sentences = sentenceCount;
+        groupPatterns(counts);
+        Map<Integer, PoissonSampler> byMean = new HashMap<>();
+        samplers = new PoissonSampler[patternCount];
+        for (int p = 0; p < patternCount; p++) {
+            samplers[p] = byMean.computeIfAbsent(multiplicity[p], PoissonSampler::new);
+        }
+    }
+
+
+    /**
+     * 计算置信区间，给出两个预测文件时同时做配对检验
+     * @param counts 每个预测文件的每句计数贡献，使用同一个字典，第二个为对比文件，可只有一个
+     * @param resamples 重采样次数
+     * @param confidence 置信水平，如0.95
+     * @param seed 随机种子
+     * @param pool 执行重采样的线程池
+     * @return 统计结果
+     */
+    public static StatisticsResult evaluate(SentenceCounts[] counts, int resamples, double confidence, long seed, ForkJoinPool pool) {
+        long begin = System.nanoTime();
+        BootstrapStatistics statistics = new BootstrapStatistics(counts);
+        double[] estimates = statistics.estimate();
+        double[][] samples = statistics.resample(resamples, seed, pool);
+
+        StatisticsResult result = new StatisticsResult();
+        result.setResamples(resamples);
+        result.setConfidence(confidence);
+        result.setSeed(seed);
+        result.setSentences(statistics.sentences);
+        result.setMetrics(intervals(estimates, samples, 0, confidence));
+        if (counts.length > 1) {
+            result.setCompareMetrics(intervals(estimates, samples, STATS, confidence));
+            double[] differenceEstimates = new double[STATS];
+            double[][] differenceSamples = new double[STATS][];
+            for (int i = 0; i < STATS; i++) {
+                differenceEstimates[i] = estimates[i] - estimates[STATS + i];
+                differenceSamples[i] = new double[resamples];
+                for (int b = 0; b < resamples; b++) {
+                    differenceSamples[i][b] = samples[i][b] - samples[STATS + i][b];
+                }
+            }
+            Map<String, BootstrapInterval> difference = intervals(differenceEstimates, differenceSamples, 0, confidence);
+            for (int i = 0; i < STATS; i++) {
+                difference.get(METRICS[i]).setPvalue(pValue(differenceSamples[i]));
+            }
+            result.setDifference(difference);
+        }
+        log.info("自助法重采样 {} 次: {} 句, {} 种句子模式, 耗时 {} ms", resamples, statistics.sentences,
+                statistics.patternCount, (System.nanoTime() - begin) / 1_000_000);
+        return result;
+    }
+
+
+    /**
+     * 合并贡献完全相同的句子，没有任何实体的句子不影响指标，直接跳过
+     */
+    private void groupPatterns(SentenceCounts[] counts) {
+        Map<PatternKey, Integer> index = new HashMap<>();
+        int[] scratch = new int[64];
+        for (int sentence = 0; sentence < sentences; sentence++) {
+            int length = 0;
+            for (int s = 0; s < systems; s++) {
+                SentenceCounts c = counts[s];
+                for (int k = c.start(sentence); k < c.end(sentence); k++) {
+                    if (length + 4 > scratch.length) {
+                        scratch = Arrays.copyOf(scratch, scratch.length * 2);
+                    }
+                    scratch[length++] = s * classCount + c.classId(k);
+                    scratch[length++] = c.tp(k);
+                    scratch[length++] = c.fp(k);
+                    scratch[length++] = c.fn(k);
+                }
+            }
+            if (length == 0) {
+                continue;
+            }
+            Integer pattern = index.get(new PatternKey(scratch, length));
+            if (pattern != null) {
+                multiplicity[pattern]++;
+                continue;
+            }
+            index.put(new PatternKey(Arrays.copyOf(scratch, length), length), patternCount);
+            addPattern(scratch, length);
+        }
+    }
+
+
+    private void addPattern(int[] pattern, int length) {
+        if (patternCount + 2 > patternOffsets.length) {
+            patternOffsets = Arrays.copyOf(patternOffsets, patternOffsets.length * 2);
+            multiplicity = Arrays.copyOf(multiplicity, patternOffsets.length);
+        }
+        if (entrySize + length > entries.length) {
+            entries = Arrays.copyOf(entries, Math.max(entries.length * 2, entrySize + length));
+        }
+        System.arraycopy(pattern, 0, entries, entrySize, length);
+        entrySize += length;
+        multiplicity[patternCount] = 1;
+        patternOffsets[++patternCount] = entrySize;
+    }
+
+
+    /**
+     * 原始数据上的各项指标，即每种模式按出现次数计权
+     */
+    private double[] estimate() {
+        long[] sums = new long[systems * classCount * 3];
+        for (int p = 0; p < patternCount; p++) {
+            accumulate(sums, p, multiplicity[p]);
+        }
+        double[] estimates = new double[systems * STATS];
+        for (int s = 0; s < systems; s++) {
+            computeStats(sums, s, estimates, s * STATS);
+        }
+        return estimates;
+    }
+
+
+    /**
+     * 并行重采样
+     * @return 每项指标每次重采样的值，第一维为 系统 * 指标数 + 指标
+     */
+    private double[][] resample(int resamples, long seed, ForkJoinPool pool) {
+        double[][] samples = new double[systems * STATS][resamples];
+        int tasks = (resamples + RESAMPLES_PER_TASK - 1) / RESAMPLES_PER_TASK;
+        // 在提交前依次拆分，每个任务的随机流只由种子和任务序号决定
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] randoms = new SplittableRandom[tasks];
+        for (int t = 0; t < tasks; t++) {
+            randoms[t] = root.split();
+        }
+        pool.submit(() -> IntStream.range(0, tasks).parallel().forEach(t -> {
+            SplittableRandom random = randoms[t];
+            long[] sums = new long[systems * classCount * 3];
+            double[] stats = new double[systems * STATS];
+            for (int b = t * RESAMPLES_PER_TASK; b < Math.min(resamples, (t + 1) * RESAMPLES_PER_TASK); b++) {
+                Arrays.fill(sums, 0);
+                for (int p = 0; p < patternCount; p++) {
+                    // 权重为0时累加结果不变，不做分支判断
+                    accumulate(sums, p, samplers[p].sample(random));
+                }
+                for (int s = 0; s < systems; s++) {
+                    computeStats(sums, s, stats, s * STATS);
+                }
+                for (int i = 0; i < stats.length; i++) {
+                    samples[i][b] = stats[i];
+                }
+            }
+        })).join();
+        return samples;
+    }
+
+
+    private void accumulate(long[] sums, int pattern, long weight) {
+        int[] entries = this.entries;
+        int end = patternOffsets[pattern + 1];
+        for (int e = patternOffsets[pattern]; e < end; e += 4) {
+            int base = entries[e] * 3;
+            sums[base] += weight * entries[e + 1];
+            sums[base + 1] += weight * entries[e + 2];
+            sums[base + 2] += weight * entries[e + 3];
+        }
+    }
+
+
+    /**
+     * 由各类别的计数得到一个系统的微平均与宏平均指标，宏平均与 {@link MetricsAccumulator#toMacroMetrics} 一致，
+     * 只统计真实实体中出现过的类别
+     */
+    private void computeStats(long[] sums, int system, double[] out, int offset) {
+        long sumTP = 0, sumFP = 0, sumFN = 0;
+        double sumPrecision = 0, sumRecall = 0, sumF1 = 0;
+        int classes = 0;
+        for (int c = 0; c < classCount; c++) {
+            int base = (system * classCount + c) * 3;
+            long tp = sums[base], fp = sums[base + 1], fn = sums[base + 2];
+            sumTP += tp;
+            sumFP += fp;
+            sumFN += fn;
+            if (tp + fn == 0) {
+                continue;
+            }
+            double precision = precision(tp, fp);
+            double recall = recall(tp, fn);
+            sumPrecision += precision;
+            sumRecall += recall;
+            sumF1 += f1(precision, recall);
+            classes++;
+        }
+        double precision = precision(sumTP, sumFP);
+        double recall = recall(sumTP, sumFN);
+        out[offset] = precision;
+        out[offset + 1] = recall;
+        out[offset + 2] = f1(precision, recall);
+        out[offset + 3] = classes == 0 ? 0.0 : sumPrecision / classes;
+        out[offset + 4] = classes == 0 ? 0.0 : sumRecall / classes;
+        out[offset + 5] = classes == 0 ? 0.0 : sumF1 / classes;
+    }
+
+
+    private static double precision(long tp, long fp) {
+        return tp + fp == 0 ? 0.0 : (double) tp / (tp + fp);
+    }
+
+
+    private static double recall(long tp, long fn) {
+        return tp + fn == 0 ? 0.0 : (double) tp / (tp + fn);
+    }
+
+
+    private static double f1(double precision, double recall) {
+        return precision + recall == 0 ? 0.0 : 2 * precision * recall / (precision + recall);
+    }
+
+
+    /**
+     * 百分位置信区间
+     * @param offset 该系统在指标数组中的起始位置
+     */
+    private static Map<String, BootstrapInterval> intervals(double[] estimates, double[][] samples, int offset, double confidence) {
+        Map<String, BootstrapInterval> intervals = new LinkedHashMap<>();
+        double alpha = (1 - confidence) / 2;
+        for (int i = 0; i < STATS; i++) {
+            double[] values = samples[offset + i].clone();
+            Arrays.sort(values);
+            double mean = 0;
+            for (double v : values) {
+                mean += v;
+            }
+            mean /= values.length;
+            double variance = 0;
+            for (double v : values) {
+                variance += (v - mean) * (v - mean);
+            }
+            BootstrapInterval interval = new BootstrapInterval();
+            interval.setEstimate(estimates[offset + i]);
+            interval.setLower(quantile(values, alpha));
+            interval.setUpper(quantile(values, 1 - alpha));
+            interval.setStdError(values.length > 1 ? Math.sqrt(variance / (values.length - 1)) : 0.0);
+            intervals.put(METRICS[i], interval);
+        }
+        return intervals;
+    }
+
+
+    /**
+     * 已排序数组的分位数，相邻值之间线性插值
+     */
+    private static double quantile(double[] sorted, double q) {
+        double position = q * (sorted.length - 1);
+        int low = (int) Math.floor(position);
+        int high = Math.min(low + 1, sorted.length - 1);
+        return sorted[low] + (sorted[high] - sorted[low]) * (position - low);
+    }
+
+
+    /**
+     * 差值的双侧p值：重采样中差值不大于0与不小于0的比例取较小者的两倍
+     */
+    private static double pValue(double[] differences) {
+        int notAbove = 0, notBelow = 0;
+        for (double d : differences) {
+            if (d <= 0) {
+                notAbove++;
+            }
+            if (d >= 0) {
+                notBelow++;
+            }
+        }
+        return Math.min(1.0, 2.0 * Math.min(notAbove, notBelow) / differences.length);
+    }
+
+
+    /**
+     * ln(k!)，较大的k使用 Stirling 级数
+     */
+    private static double logFactorial(long k) {
+        if (k < LOG_FACTORIALS.length) {
+            return LOG_FACTORIALS[(int) k];
+        }
+        double n = k;
+        return n * Math.log(n) - n + 0.5 * Math.log(2 * Math.PI * n) + 1 / (12 * n) - 1 / (360 * n * n * n);
+    }
+
+
+    /**
+     * 固定均值的泊松分布抽样器。均值不太大时按预先计算的累积分布逆变换，借助索引表一般一两次比较即可定位；
+     * 均值较大时使用 Hörmann 的 PTRS 变换拒绝法，各项常数预先计算
+     */
+    private static final class PoissonSampler {
+
+        /**
+         * 使用累积分布表的最大均值，更大的均值下 exp(-mean) 接近下溢
+         */
+        private static final int TABLE_MAX_MEAN = 512;
+
+        private final double mean;
+
+        /**
+         * 累积分布，最后一项为1
+         */
+        private final double[] cdf;
+
+        /**
+         * 索引表，guide[i] 为累积概率不小于 i / guide.length 的最小取值
+         */
+        private final int[] guide;
+
+        private final double logMean, a, b, logInvAlpha, vr;
+
+
+        PoissonSampler(int mean) {
+            this.mean = mean;
+            this.logMean = Math.log(mean);
+            this.b = 0.931 + 2.53 * Math.sqrt(mean);
+            this.a = -0.059 + 0.02483 * b;
+            this.logInvAlpha = Math.log(1.1239 + 1.1328 / (b - 3.4));
+            this.vr = 0.9277 - 3.6224 / (b - 2);
+            if (mean > TABLE_MAX_MEAN) {
+                this.cdf = null;
+                this.guide = null;
+                return;
+            }
+            // 取到均值之后足够多个标准差，尾部概率可以忽略
+            int length = mean + 16 + (int) (12 * Math.sqrt(mean));
+            double[] table = new double[length];
+            double p = Math.exp(-mean);
+            double cumulative = p;
+            table[0] = cumulative;
+            for (int k = 1; k < length; k++) {
+                p *= (double) mean / k;
+                cumulative += p;
+                table[k] = cumulative;
+            }
+            table[length - 1] = 1.0;
+            this.cdf = table;
+            this.guide = new int[length];
+            int k = 0;
+            for (int i = 0; i < length; i++) {
+                while (cdf[k] < (double) i / length) {
+                    k++;
+                }
+                guide[i] = k;
+            }
+        }
+
+
+        int sample(SplittableRandom random) {
+            if (cdf != null) {
+                double u = random.nextDouble();
+                int k = guide[(int) (u * guide.length)];
+                while (u > cdf[k]) {
+                    k++;
+                }
+                return k;
+            }
+            while (true) {
+                double u = random.nextDouble() - 0.5;
+                double v = random.nextDouble();
+                double us = 0.5 - Math.abs(u);
+                long k = (long) Math.floor((2 * a / us + b) * u + mean + 0.43);
+                if (us >= 0.07 && v <= vr) {
+                    return (int) k;
+                }
+                if (k < 0 || (us < 0.013 && v > us)) {
+                    continue;
+                }
+                if (Math.log(v) + logInvAlpha - Math.log(a / (us * us) + b) <= -mean + k * logMean - logFactorial(k)) {
+                    return (int) k;
+                }
+            }
+        }
+    }
+
+
+    /**
+     * 模式的键，查找时包装临时数组，插入时使用拷贝
+     */
+    private static final class PatternKey {
+
+        private final int[] data;
+
+        private final int length;
+
+        private final int hash;
+
+
+        PatternKey(int[] data, int length) {
+            this.data = data;
+            this.length = length;
+            int h = 1;
+            for (int i = 0; i < length; i++) {
+                h = 31 * h + data[i];
+            }
+            this.hash = h;
+        }
+
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof PatternKey)) {
+                return false;
+            }
+            PatternKey other = (PatternKey) o;
+            if (other.length != length || other.hash != hash) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (data[i] != other.data[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.iecas.evaluate.utils;
+
+import com.github.luben.zstd.ZstdInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 23:07
+ * @Description: 压缩输入文件读取，按文件头魔数识别gzip与zstd，对调用方透明。
+ * 较大的压缩文件在独立线程中解压，通过有界的缓冲块队列交给解析线程，解压与解析同时进行
+ */
+public class CompressedInput {
+
+    /**
+     * 压缩格式
+     */
+    public enum Compression {
+        NONE, GZIP, ZSTD
+    }
+
+    /**
+     * 压缩文件达到该大小时在独立线程中解压
+     */
+    private static final long PIPELINE_MIN_BYTES = 1L << 20;
+
+    /**
+     * 每个缓冲块的大小
+     */
+    private static final int CHUNK_BYTES = 1 << 20;
+
+    /**
+     * 缓冲块数量，解压线程最多领先解析线程这么多块
+     */
+    private static final int CHUNKS = 4;
+
+    private static final int FILE_BUFFER = 64 * 1024;
+
+    private static final AtomicInteger THREAD_ID = new AtomicInteger();
+
+    /**
+     * 解压线程池，线程为守护线程，空闲后自动回收
+     */
+    private static final ExecutorService DECOMPRESSORS = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "decompress-" + THREAD_ID.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+
+    /**
+     * 识别文件的压缩格式
+     * @param filePath 文件路径
+     * @return 压缩格式，文件不足4字节时视为未压缩
+     * @throws IOException 文件读取异常
+     */
+    public static Compression detect(String filePath) throws IOException {
+        byte[] magic = new byte[4];
+        try (RandomAccessFile file = new RandomAccessFile(filePath, "r")) {
+            if (file.read(magic) < magic.length) {
+                return Compression.NONE;
+            }
+        }
+        return detect(magic);
+    }
+
+
+    private static Compression detect(byte[] magic) {
+        if (magic[0] == (byte) 0x1F && magic[1] == (byte) 0x8B) {
+            return Compression.GZIP;
+        }
+        if (magic[0] == (byte) 0x28 && magic[1] == (byte) 0xB5 && magic[2] == (byte) 0x2F && magic[3] == (byte) 0xFD) {
+            return Compression.ZSTD;
+        }
+        return Compression.NONE;
+    }
+
+
+    /**
+     * 文件是否为压缩文件，文件无法读取时返回false，由后续读取报错
+     */
+    public static boolean isCompressed(String filePath) {
+        try {
+            return detect(filePath) != Compression.NONE;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+
+    /**
+     * 打开文件，压缩文件返回解压后的内容
+     * @param filePath 文件路径
+     * @return 输入流，由调用方关闭
+     * @throws IOException 文件读取异常
+     */
+    public static InputStream open(String filePath) throws IOException {
+        Compression compression = detect(filePath);
+        InputStream file = new BufferedInputStream(new FileInputStream(filePath), FILE_BUFFER);
+        InputStream input;
+        try {
+            switch (compression) {
+                case GZIP:
+                    input = new GZIPInputStream(file, FILE_BUFFER);
+                    break;
+                case ZSTD:
+                    input = new ZstdInputStream(file);
+                    break;
+                default:
+                    return file;
+            }
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+        if (new File(filePath).length() < PIPELINE_MIN_BYTES) {
+            return input;
+        }
+        return new PipelinedInputStream(input);
+    }
+
+
+    /**
+     * 在解压线程中读取源输入流，按块交给读取方
+     */
+    private static class PipelinedInputStream extends InputStream {
+
+        private static final Chunk END = new Chunk(0);
+
+        /**
+         * 空闲的缓冲块
+         */
+        private final BlockingQueue<Chunk> free = new ArrayBlockingQueue<>(CHUNKS);
+
+        /**
+         * 已填充待读取的缓冲块，最后一块为END
+         */
+        private final BlockingQueue<Chunk> filled = new ArrayBlockingQueue<>(CHUNKS + 1);
+
+        private volatile IOException failure;
+
+        /**
+         * 正在执行解压的线程，关闭时中断
+         */
+        private Thread worker;
+
+        private boolean closed;
+
+        private Chunk current;
+
+        private int pos;
+
+
+        PipelinedInputStream(InputStream source) {
+            for (int i = 0; i < CHUNKS; i++) {
+                free.add(new Chunk(CHUNK_BYTES));
+            }
+            DECOMPRESSORS.execute(() -> produce(source));
+        }
+
+
+        private void produce(InputStream source) {
+            try (InputStream input = source) {
+                synchronized (this) {
+                    if (closed) {
+                        return;
+                    }
+                    worker = Thread.currentThread();
+                }
+                while (true) {
+                    Chunk chunk = free.take();
+                    chunk.length = 0;
+                    int n;
+                    while (chunk.length < chunk.data.length
+                            && (n = input.read(chunk.data, chunk.length, chunk.data.length - chunk.length)) >= 0) {
+                        chunk.length += n;
+                    }
+                    if (chunk.length > 0) {
+                        filled.put(chunk);
+                    }
+                    if (chunk.length < chunk.data.length) {
+                        break;
+                    }
+                }
+            } catch (InterruptedException e) {
+                // 读取方已关闭
+                return;
+            } catch (IOException e) {
+                failure = e;
+            } catch (RuntimeException e) {
+                failure = new IOException("解压失败: " + e.getMessage(), e);
+            } finally {
+                synchronized (this) {
+                    worker = null;
+                    // 清除关闭时可能留下的中断标记，线程归还线程池后复用
+                    Thread.interrupted();
+                }
+            }
+            filled.offer(END);
+        }
+
+
+        /**
+         * 确保当前块中还有未读数据
+         * @return 是否已读到结尾
+         */
+        private boolean ended() throws IOException {
+            while (current == null || pos == current.length) {
+                if (current == END) {
+                    return true;
+                }
+                if (current != null) {
+                    free.offer(current);
+                }
+                try {
+                    current = filled.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("读取解压数据时被中断");
+                }
+                pos = 0;
+                if (current == END && failure != null) {
+                    throw failure;
+                }
+            }
+            return false;
+        }
+
+
+        @Override
+        public int read() throws IOException {
+            return ended() ? -1 : current.data[pos++] & 0xFF;
+        }
+
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (ended()) {
+                return -1;
+            }
+            int n = Math.min(len, current.length - pos);
+            System.arraycopy(current.data, pos, b, off, n);
+            pos += n;
+            return n;
+        }
+
+
+        @Override
+        public synchronized void close() {
+            closed = true;
+            if (worker != null) {
+                worker.interrupt();
+            }
+        }
+    }
+
+
+    private static class Chunk {
+
+        private final byte[] data;
+
+        private int length;
+
+
+        Chunk(int size) {
+            this.data = new byte[size];
+        }
+    }
+}
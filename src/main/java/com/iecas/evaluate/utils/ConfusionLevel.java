@@ -0,0 +1,38 @@
+package com.iecas.evaluate.utils;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/18 00:31
+ * @Description: 评估时记录混淆矩阵的程度，只记录请求需要输出的部分
+ */
+public enum ConfusionLevel {
+
+    /**
+     * 不记录混淆矩阵
+     */
+    NONE,
+
+    /**
+     * 只记录类别混淆计数
+     */
+    COUNTS,
+
+    /**
+     * 记录计数并保留错误样例
+     */
+    SAMPLES;
+
+
+    /**
+     * 由请求的输出选项得到记录程度
+     * @param confusion 是否输出混淆矩阵
+     * @param errorSamples 每个单元格输出的错误样例数
+     * @return 记录程度
+     */
+    public static ConfusionLevel of(boolean confusion, int errorSamples) {
+        if (errorSamples > 0) {
+            return SAMPLES;
+        }
+        return confusion ? COUNTS : NONE;
+    }
+}
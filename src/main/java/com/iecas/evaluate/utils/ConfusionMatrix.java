@@ -0,0 +1,311 @@
+package com.iecas.evaluate.utils;
+
+import com.iecas.evaluate.pojo.entity.ConfusionResult;
+import com.iecas.evaluate.pojo.entity.ConfusionSample;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 23:37
+ * @Description: 类别混淆矩阵。只记录边界一致而类别不同的实体对，计数按 真实类别 * 容量 + 预测类别 存放在一维int数组中；
+ * 对角线即各类别的TP，与“无实体”的行列都由TP/FP/FN推出，不在匹配时记录。
+ * 需要错误样例时，每个单元格用容量固定的蓄水池保留若干个错误样例，内存与实体数无关：样例的优先级由其位置哈希得到，
+ * 只保留优先级最小的若干个，即均匀抽样。保留结果与记录顺序及分片方式无关，串行、并行与增量评估得到相同的样例。
+ * 蓄水池只为计数非零的单元格分配，类别很多时大部分单元格为空，不占用样例空间。非线程安全
+ */
+public class ConfusionMatrix {
+
+    /**
+     * 每个单元格保留的错误样例数
+     */
+    public static final int SAMPLES_PER_CELL = 5;
+
+    /**
+     * 输出中表示“同一边界上没有实体”的标签
+     */
+    public static final String NONE = "O";
+
+    /**
+     * 首次记录时每一维的类别容量
+     */
+    private static final int INITIAL_CAPACITY = 4;
+
+    /**
+     * 是否保留错误样例
+     */
+    private final boolean samples;
+
+    /**
+     * 每一维的类别容量，首次记录前为0
+     */
+    private int capacity;
+
+    /**
+     * 边界一致、类别不同的实体对数，下标为 真实类别 * capacity + 预测类别，首次记录时分配
+     */
+    private int[] counts;
+
+    /**
+     * 每个单元格的蓄水池序号加一，0表示尚未分配，下标与counts一致
+     */
+    private int[] sampleBlock;
+
+    /**
+     * 已分配的蓄水池数
+     */
+    private int blocks;
+
+    /**
+     * 第 k 个蓄水池的样例位于 [k * SAMPLES_PER_CELL, k * SAMPLES_PER_CELL + min(counts[cell], SAMPLES_PER_CELL))
+     */
+    private long[] samplePriority;
+
+    private long[] sampleSentence;
+
+    private int[] sampleStart;
+
+    private int[] sampleEnd;
+
+
+    /**
+     * @param samples 是否保留错误样例，不保留时只记录计数
+     */
+    public ConfusionMatrix(boolean samples) {
+        this.samples = samples;
+    }
+
+
+    /**
+     * 记录一个边界一致、类别不同的实体对
+     * @param trueClass 真实类别id
+     * @param predClass 预测类别id
+     * @param sentence 句子在文件中的序号，从0开始
+     * @param start 实体起始token位置
+     * @param end 实体结束token位置（含）
+     */
+    void add(int trueClass, int predClass, long sentence, int start, int end) {
+        grow(Math.max(trueClass, predClass));
+        int cell = trueClass * capacity + predClass;
+        int held = counts[cell]++;
+        if (samples) {
+            offer(cell, held, priority(sentence, start, end), sentence, start, end);
+        }
+    }
+
+
+    /**
+     * 合并另一份混淆矩阵，两者的句子序号需是同一文件中的序号
+     * @param other 另一份混淆矩阵
+     * @param mapping other中的类别id到本矩阵类别id的映射
+     */
+    void merge(ConfusionMatrix other, int[] mapping) {
+        for (int t = 0; t < Math.min(other.capacity, mapping.length); t++) {
+            for (int p = 0; p < Math.min(other.capacity, mapping.length); p++) {
+                int otherCell = t * other.capacity + p;
+                if (other.counts[otherCell] == 0) {
+                    continue;
+                }
+                grow(Math.max(mapping[t], mapping[p]));
+                int cell = mapping[t] * capacity + mapping[p];
+                if (samples && other.samples) {
+                    int otherBase = (other.sampleBlock[otherCell] - 1) * SAMPLES_PER_CELL;
+                    for (int i = 0; i < Math.min(other.counts[otherCell], SAMPLES_PER_CELL); i++) {
+                        int k = otherBase + i;
+                        offer(cell, Math.min(counts[cell], SAMPLES_PER_CELL) + i, other.samplePriority[k],
+                                other.sampleSentence[k], other.sampleStart[k], other.sampleEnd[k]);
+                    }
+                }
+                counts[cell] += other.counts[otherCell];
+            }
+        }
+    }
+
+
+    /**
+     * 向单元格的蓄水池提交一个样例，已满时替换优先级最大的样例
+     * @param held 单元格中已提交的样例数
+     */
+    private void offer(int cell, int held, long priority, long sentence, int start, int end) {
+        if (sampleBlock[cell] == 0) {
+            sampleBlock[cell] = allocateBlock();
+        }
+        int base = (sampleBlock[cell] - 1) * SAMPLES_PER_CELL;
+        int slot;
+        if (held < SAMPLES_PER_CELL) {
+            slot = held;
+        } else {
+            slot = 0;
+            for (int i = 1; i < SAMPLES_PER_CELL; i++) {
+                if (samplePriority[base + i] > samplePriority[base + slot]) {
+                    slot = i;
+                }
+            }
+            if (priority >= samplePriority[base + slot]) {
+                return;
+            }
+        }
+        samplePriority[base + slot] = priority;
+        sampleSentence[base + slot] = sentence;
+        sampleStart[base + slot] = start;
+        sampleEnd[base + slot] = end;
+    }
+
+
+    /**
+     * 分配一个蓄水池，样例数组按倍数扩容
+     * @return 蓄水池序号加一
+     */
+    private int allocateBlock() {
+        int size = (blocks + 1) * SAMPLES_PER_CELL;
+        if (samplePriority == null || size > samplePriority.length) {
+            int length = Math.max(size, samplePriority == null ? INITIAL_CAPACITY * SAMPLES_PER_CELL : samplePriority.length * 2);
+            samplePriority = samplePriority == null ? new long[length] : Arrays.copyOf(samplePriority, length);
+            sampleSentence = sampleSentence == null ? new long[length] : Arrays.copyOf(sampleSentence, length);
+            sampleStart = sampleStart == null ? new int[length] : Arrays.copyOf(sampleStart, length);
+            sampleEnd = sampleEnd == null ? new int[length] : Arrays.copyOf(sampleEnd, length);
+        }
+        return ++blocks;
+    }
+
+
+    /**
+     * 样例的优先级，由位置经 SplitMix64 混合得到。同一文件中一个位置上只有一个预测实体
+     */
+    private static long priority(long sentence, int start, int end) {
+        long z = sentence * 0x9E3779B97F4A7C15L + ((long) start << 32 | end & 0xFFFFFFFFL);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+
+    /**
+     * 边界一致、类别不同的实体对总数
+     */
+    public long typeMismatches() {
+        if (counts == null) {
+            return 0;
+        }
+        long total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+
+    /**
+     * 生成混淆矩阵结果，类别顺序与每个类别的结果一致，最后一行、一列为 {@link #NONE}
+     * @param dictionary 标签字典
+     * @param classes 输出的类别id
+     * @param tp 各类别的TP
+     * @param fp 各类别的FP
+     * @param fn 各类别的FN
+     * @return 混淆矩阵结果
+     */
+    ConfusionResult toResult(LabelDictionary dictionary, int[] classes, int[] tp, int[] fp, int[] fn) {
+        int n = classes.length;
+        long[][] matrix = new long[n + 1][n + 1];
+        List<String> labels = new ArrayList<>(n + 1);
+        List<ConfusionSample> selected = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            int t = classes[i];
+            labels.add(dictionary.className(t));
+            // 真实实体中没有同边界预测实体的部分
+            long unmatchedTruth = tp[t] + fn[t];
+            for (int j = 0; j < n; j++) {
+                int p = classes[j];
+                long count = t == p ? tp[t] : count(t, p);
+                matrix[i][j] = count;
+                unmatchedTruth -= count;
+                matrix[n][j] += count;
+            }
+            matrix[i][n] = unmatchedTruth;
+        }
+        for (int j = 0; j < n; j++) {
+            int p = classes[j];
+            matrix[n][j] = tp[p] + fp[p] - matrix[n][j];
+        }
+        labels.add(NONE);
+        if (samples) {
+            for (int t : classes) {
+                for (int p : classes) {
+                    if (t == p || count(t, p) == 0) {
+                        continue;
+                    }
+                    // 单元格按矩阵顺序排列，单元格内按句子位置排列
+                    int cell = t * capacity + p;
+                    int first = selected.size();
+                    int base = (sampleBlock[cell] - 1) * SAMPLES_PER_CELL;
+                    for (int i = 0; i < Math.min(counts[cell], SAMPLES_PER_CELL); i++) {
+                        int k = base + i;
+                        selected.add(new ConfusionSample(dictionary.className(t), dictionary.className(p),
+                                sampleSentence[k], sampleStart[k], sampleEnd[k]));
+                    }
+                    selected.subList(first, selected.size()).sort(ConfusionSample.POSITION);
+                }
+            }
+        }
+
+        ConfusionResult result = new ConfusionResult();
+        result.setLabels(labels);
+        result.setMatrix(matrix);
+        result.setTypeMismatches(typeMismatches());
+        result.setSamples(selected);
+        return result;
+    }
+
+
+    private int count(int trueClass, int predClass) {
+        if (trueClass >= capacity || predClass >= capacity) {
+            return 0;
+        }
+        return counts[trueClass * capacity + predClass];
+    }
+
+
+    /**
+     * 估算占用的内存字节数
+     */
+    long estimateBytes() {
+        long bytes = 64;
+        if (counts != null) {
+            bytes += 4L * counts.length;
+        }
+        if (sampleBlock != null) {
+            bytes += 4L * sampleBlock.length;
+        }
+        if (samplePriority != null) {
+            // 优先级与句子序号各8字节，起止位置各4字节
+            bytes += 24L * samplePriority.length;
+        }
+        return bytes;
+    }
+
+
+    /**
+     * 确保矩阵能容纳给定的类别id，扩容时按新的行宽搬移计数与蓄水池序号，样例本身不需要搬移
+     */
+    private void grow(int classId) {
+        if (classId < capacity) {
+            return;
+        }
+        int oldCapacity = capacity;
+        int[] oldCounts = counts;
+        int[] oldBlock = sampleBlock;
+        capacity = Math.max(Math.max(capacity * 2, classId + 1), INITIAL_CAPACITY);
+        counts = new int[capacity * capacity];
+        if (samples) {
+            sampleBlock = new int[capacity * capacity];
+        }
+        for (int t = 0; t < oldCapacity; t++) {
+            System.arraycopy(oldCounts, t * oldCapacity, counts, t * capacity, oldCapacity);
+            if (samples) {
+                System.arraycopy(oldBlock, t * oldCapacity, sampleBlock, t * capacity, oldCapacity);
+            }
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package com.iecas.evaluate.utils;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.iecas.evaluate.pojo.entity.EntityInfo;
 import com.iecas.evaluate.pojo.entity.MetricsResult;
 import com.iecas.evaluate.pojo.entity.SubMetricsResult;
@@ -8,10 +11,8 @@ import com.iecas.evaluate.pojo.entity.TextIdentifyEntity;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.*;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * @Author: guo_x
@@ -21,6 +22,13 @@ import java.util.*;
 @Slf4j
 public class EntityMetricsUtils {
 
+    /**
+     * 共享的实体列表读取器，ObjectReader线程安全，与流式读取一致跳过未知字段
+     */
+    private static final ObjectReader ENTITY_LIST_READER = new ObjectMapper()
+            .readerFor(new TypeReference<List<TextIdentifyEntity>>() {})
+            .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
 
     /**
      * 计算实体级评估结果
@@ -32,36 +40,51 @@ public class EntityMetricsUtils {
      * 123456lsk
      */
     public static MetricsResult calculateMetrics(String truePath, String predPath){
-        List<EntityInfo> truth = extraEntity(truePath);
-        List<EntityInfo> pred = extraEntity(predPath);
-        MetricsResult result = new MetricsResult();
+        // 两个文件按句同步流式读取，一次遍历完成TN、微平均、宏平均以及每个类别的计数
+        return BioStreamEvaluator.evaluate(truePath, predPath).toMetricsResult();
+    }
 
-        int TN = 0;
-        try {
-            // 计算TN
-            TN = calculateTNFromFiles(predPath, truePath);
-        } catch (IOException e){
-            log.error("TN无法计算");
-        }
-        // 计算微平均指标
-        SubMetricsResult microMetrics = computeMicroEntityMetrics(truth, pred);
-        microMetrics.calculateAccuracy(TN);
-        result.setMicro(microMetrics);
 
-        // 计算宏平均指标
-        SubMetricsResult macroMetrics = computeMacroEntityMetrics(truth, pred);
-        result.setMacro(macroMetrics);
+    /**
+     * 计算实体级评估结果
+     * @param truePath 真实实体文件路径
+     * @param predPath 预测实体文件路径
+     * @param parallel 是否按句分片并行计算，结果与串行计算一致
+     * @return 评估结果
+     */
+    public static MetricsResult calculateMetrics(String truePath, String predPath, boolean parallel){
+        return calculateMetrics(truePath, predPath, parallel, null);
+    }
 
-        macroMetrics.setFP(microMetrics.getFP());
-        macroMetrics.setTP(microMetrics.getTP());
-        macroMetrics.setFN(microMetrics.getFN());
-        macroMetrics.calculateAccuracy(TN);
 
-        // 计算每个类别的指标
-        List<SubMetricsResult> preClassResult = computePerClassMetricsFast(truth, pred);
-        result.setPreClassResult(preClassResult);
+    /**
+     * 计算实体级评估结果，并在计算过程中上报进度
+     * @param truePath 真实实体文件路径
+     * @param predPath 预测实体文件路径
+     * @param parallel 是否按句分片并行计算
+     * @param progress 评估进度，可为null
+     * @return 评估结果
+     */
+    public static MetricsResult calculateMetrics(String truePath, String predPath, boolean parallel, EvaluationProgress progress){
+        return calculateMetrics(truePath, predPath, parallel, progress, ConfusionLevel.SAMPLES);
+    }
 
-        return result;
+
+    /**
+     * 计算实体级评估结果，并在计算过程中上报进度
+     * @param truePath 真实实体文件路径
+     * @param predPath 预测实体文件路径
+     * @param parallel 是否按句分片并行计算
+     * @param progress 评估进度，可为null
+     * @param confusionLevel 记录混淆矩阵的程度
+     * @return 评估结果
+     */
+    public static MetricsResult calculateMetrics(String truePath, String predPath, boolean parallel, EvaluationProgress progress,
+                                                 ConfusionLevel confusionLevel){
+        MetricsAccumulator accumulator = parallel
+                ? ParallelBioEvaluator.evaluate(truePath, predPath, ForkJoinPool.commonPool(), progress, confusionLevel)
+                : BioStreamEvaluator.evaluate(truePath, predPath, progress, confusionLevel);
+        return accumulator.toMetricsResult();
     }
 
 
@@ -72,29 +95,7 @@ public class EntityMetricsUtils {
      * @return
      */
     public static SubMetricsResult calculateLightMetrics(String truePath, String predPath){
-        List<EntityInfo> truth = extraEntity(truePath);
-        List<EntityInfo> pred = extraEntity(predPath);
-
-        int TN = 0;
-        try {
-            // 计算TN
-            TN = calculateTNFromFiles(predPath, truePath);
-        } catch (IOException e){
-            log.error("TN无法计算");
-        }
-        // 计算微平均指标
-        SubMetricsResult microMetrics = computeMicroEntityMetrics(truth, pred);
-        microMetrics.calculateAccuracy(TN);
-
-        // 计算宏平均指标
-        SubMetricsResult macroMetrics = computeMacroEntityMetrics(truth, pred);
-
-        macroMetrics.setFP(microMetrics.getFP());
-        macroMetrics.setTP(microMetrics.getTP());
-        macroMetrics.setFN(microMetrics.getFN());
-        macroMetrics.calculateAccuracy(TN);
-
-        return macroMetrics;
+        return BioStreamEvaluator.evaluate(truePath, predPath, null, ConfusionLevel.NONE).toLightMetrics();
     }
 
 
@@ -104,60 +105,32 @@ public class EntityMetricsUtils {
      * @return 实体集合
      */
     public static List<EntityInfo> extraEntity(String filePath) {
-        List<EntityInfo> result = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(filePath), StandardCharsets.UTF_8))) {
-            String line;
-            StringBuilder entityBuilder = new StringBuilder();
-            String currentLabel = null;
-            long startIdx = 0;
-            long currentIdx = 0;
-
-            while ((line = reader.readLine()) != null) {
-                line = line.trim();
-                if (line.isEmpty()) {
-                    currentIdx = 0; // 新句子开始
-                    continue;
-                }
-
-                String[] parts = line.split("\\s+");
-                if (parts.length != 2) continue;
-                String word = parts[0];
-                String label = parts[1];
-
-                if (label.startsWith("B-")) {
-                    // 如果正在处理实体，则先关闭前一个
-                    if (entityBuilder.length() > 0) {
-                        result.add(new EntityInfo(entityBuilder.toString(), currentLabel, startIdx, currentIdx - 1));
-                        entityBuilder.setLength(0);
-                    }
-                    entityBuilder.append(word);
-                    currentLabel = label.substring(2);
-                    startIdx = currentIdx;
-                } else if (label.startsWith("I-") && entityBuilder.length() > 0 && label.endsWith(currentLabel)) {
-                    entityBuilder.append(word);
-                } else {
-                    // 当前是O，或者实体断了
-                    if (entityBuilder.length() > 0) {
-                        result.add(new EntityInfo(entityBuilder.toString(), currentLabel, startIdx, currentIdx - 1));
-                        entityBuilder.setLength(0);
-                        currentLabel = null;
-                    }
-                }
-
-                currentIdx++;
-            }
+        return parseEntityTable(filePath, true).toEntityInfos();
+    }
 
-            // 文件结尾处理遗留实体
-            if (entityBuilder.length() > 0) {
-                result.add(new EntityInfo(entityBuilder.toString(), currentLabel, startIdx, currentIdx - 1));
-            }
 
+    /**
+     * 提取实体到列式实体表
+     * @param filePath 实体文件路径
+     * @param withText 是否保留实体文本
+     * @return 实体表
+     */
+    public static EntityTable parseEntityTable(String filePath, boolean withText) {
+        StageMetrics.Sample sample = StageMetrics.start();
+        LabelDictionary dictionary = new LabelDictionary();
+        EntityTable table = new EntityTable(dictionary);
+        BioSentence sentence = new BioSentence();
+        try (BioSentenceReader reader = new BioSentenceReader(filePath, dictionary, withText)) {
+            int sentenceIdx = 0;
+            while (reader.next(sentence)) {
+                table.addAll(sentenceIdx++, sentence);
+            }
+            StageMetrics.stop(sample, StageMetrics.STAGE_PARSE_TABLE, reader.consumed());
         } catch (IOException e) {
             log.error("读取文件错误", e);
             throw new RuntimeException(e.getMessage());
         }
-
-        return result;
+        return table;
     }
 
 
@@ -169,43 +142,29 @@ public class EntityMetricsUtils {
      * @throws IOException 文件读取异常
      */
     public static int calculateTNFromFiles(String predFilePath, String trueFilePath) throws IOException {
-        List<String> predLabels = Files.readAllLines(Paths.get(predFilePath));
-        List<String> trueLabels = Files.readAllLines(Paths.get(trueFilePath));
-
-        if (predLabels.size() != trueLabels.size()) {
-            // 如果长度不一致，则说明有问题，则随便返回一个值
-            log.error("文本token长度不一致，无法计算TN, TN按0计算");
-            return 0;
-        }
-
-        int tn = 0;
-        for (int i = 0; i < predLabels.size(); i++) {
-            String pred = predLabels.get(i).trim();
-            String truth = trueLabels.get(i).trim();
-
-            // 跳过空行（句子分隔）
-            if (pred.isEmpty() && truth.isEmpty()) {
-                continue;
-            }
-
-            if ("O".equals(pred) && "O".equals(truth)) {
-                tn++;
-            }
+        StageMetrics.Sample sample = StageMetrics.start();
+        try {
+            return countTN(predFilePath, trueFilePath);
+        } finally {
+            StageMetrics.stop(sample, StageMetrics.STAGE_TN, new File(predFilePath).length() + new File(trueFilePath).length());
         }
-        return tn;
     }
 
 
     /**
-     * 判断两个实体是否严格匹配
-     * @param a 实体a
-     * @param b 实体b
-     * @return 是否匹配
+     * 按句同步读取两个文件，逐个token解析标签，句内token数不一致时按词文本对齐后统计两侧均为O的token
      */
-    private static boolean isExactMatch(EntityInfo a, EntityInfo b) {
-        return a.getStart() == b.getStart()
-                && a.getEnd() == b.getEnd()
-                && a.getEntityClazz().equals(b.getEntityClazz());
+    private static int countTN(String predFilePath, String trueFilePath) throws IOException {
+        LabelDictionary dictionary = new LabelDictionary();
+        MetricsAccumulator accumulator = new MetricsAccumulator(dictionary, ConfusionLevel.NONE);
+        try (BioSentenceReader trueReader = new BioSentenceReader(trueFilePath, dictionary);
+             BioSentenceReader predReader = new BioSentenceReader(predFilePath, dictionary)) {
+            BioStreamEvaluator.evaluate(trueReader, predReader, accumulator, null);
+        }
+        if (accumulator.getUnmatchedTokens() > 0) {
+            log.warn("文本token不一致, {} 个token未能配对, 不计入TN", accumulator.getUnmatchedTokens());
+        }
+        return (int) accumulator.getTN();
     }
 
 
@@ -214,48 +173,13 @@ public class EntityMetricsUtils {
      * @param trueEntities 真实实体
      * @param predEntities 预测实体
      */
-    public static SubMetricsResult computeMicroEntityMetrics(List<EntityInfo> trueEntities, List<EntityInfo> predEntities) {
-        SubMetricsResult result = new SubMetricsResult();
-        int TP = 0;
-        int FP = 0;
-        int FN = 0;
-
-        // 用于记录哪些真实实体已经被匹配过，避免重复匹配
-        boolean[] matched = new boolean[trueEntities.size()];
-
-        // 遍历每一个预测实体，尝试匹配真实实体
-        for (EntityInfo pred : predEntities) {
-            boolean foundMatch = false;
-            for (int i = 0; i < trueEntities.size(); i++) {
-                if (!matched[i] && isExactMatch(pred, trueEntities.get(i))) {
-                    TP++;
-                    matched[i] = true;
-                    foundMatch = true;
-                    break;
-                }
-            }
-            if (!foundMatch) {
-                FP++; // 没匹配到任何真实实体
-            }
-        }
-
-        // 所有未匹配到的真实实体即为 FN
-        for (boolean m : matched) {
-            if (!m) FN++;
-        }
-
-        double precision = TP + FP == 0 ? 0.0 : (double) TP / (TP + FP);
-        double recall = TP + FN == 0 ? 0.0 : (double) TP / (TP + FN);
-        double f1 = precision + recall == 0 ? 0.0 : 2 * precision * recall / (precision + recall);
+    public static SubMetricsResult computeMicroEntityMetrics(EntityTable trueEntities, EntityTable predEntities) {
+        return MetricsAccumulator.match(trueEntities, predEntities).toMicroMetrics();
+    }
 
-        result.setFN(FN);
-        result.setTP(TP);
-        result.setFP(FP);
-        result.setPrecision(precision);
-        result.setRecall(recall);
-        result.setF1(f1);
 
-        return result;
+    public static SubMetricsResult computeMicroEntityMetrics(List<EntityInfo> trueEntities, List<EntityInfo> predEntities) {
+        return computeMicroEntityMetrics(EntityTable.of(trueEntities), EntityTable.of(predEntities));
     }
 
 
@@ -264,78 +188,13 @@ public class EntityMetricsUtils {
      * @param trueEntities 真实实体
      * @param predEntities 预测实体
      */
-    public static SubMetricsResult computeMacroEntityMetrics(List<EntityInfo> trueEntities, List<EntityInfo> predEntities) {
-
-        SubMetricsResult result = new SubMetricsResult();
-
-        Map<String, Integer> TP = new HashMap<>();
-        Map<String, Integer> FP = new HashMap<>();
-        Map<String, Integer> FN = new HashMap<>();
-
-        // 标记哪些真实实体已匹配，按类别分组
-        Map<String, List<Boolean>> matched = new HashMap<>();
-        Map<String, List<EntityInfo>> trueByClass = new HashMap<>();
-        for (EntityInfo ent : trueEntities) {
-            trueByClass.computeIfAbsent(ent.getEntityClazz(), k -> new ArrayList<>()).add(ent);
-        }
-        for (Map.Entry<String, List<EntityInfo>> entry : trueByClass.entrySet()) {
-            List<Boolean> flags = new ArrayList<>(Collections.nCopies(entry.getValue().size(), false));
-            matched.put(entry.getKey(), flags);
-        }
-
-        // 处理预测实体
-        for (EntityInfo pred : predEntities) {
-            String clazz = pred.getEntityClazz();
-            boolean found = false;
-            if (trueByClass.containsKey(clazz)) {
-                List<EntityInfo> goldList = trueByClass.get(clazz);
-                List<Boolean> flagList = matched.get(clazz);
-                for (int i = 0; i < goldList.size(); i++) {
-                    if (!flagList.get(i) && isExactMatch(pred, goldList.get(i))) {
-                        TP.put(clazz, TP.getOrDefault(clazz, 0) + 1);
-                        flagList.set(i, true);
-                        found = true;
-                        break;
-                    }
-                }
-            }
-            if (!found) {
-                FP.put(clazz, FP.getOrDefault(clazz, 0) + 1);
-            }
-        }
-
-        // 统计 FN（漏检）
-        for (String clazz : trueByClass.keySet()) {
-            List<Boolean> flags = matched.get(clazz);
-            int fnCount = 0;
-            for (boolean m : flags) {
-                if (!m) fnCount++;
-            }
-            FN.put(clazz, fnCount);
-        }
-
-        // 计算每类 Precision, Recall, F1
-        double sumPrecision = 0, sumRecall = 0, sumF1 = 0;
-        int classCount = 0;
-
-        for (String clazz : trueByClass.keySet()) {
-            int tp = TP.getOrDefault(clazz, 0);
-            int fp = FP.getOrDefault(clazz, 0);
-            int fn = FN.getOrDefault(clazz, 0);
+    public static SubMetricsResult computeMacroEntityMetrics(EntityTable trueEntities, EntityTable predEntities) {
+        return MetricsAccumulator.match(trueEntities, predEntities).toMacroMetrics();
+    }
 
-            double precision = tp + fp == 0 ? 0.0 : (double) tp / (tp + fp);
-            double recall = tp + fn == 0 ? 0.0 : (double) tp / (tp + fn);
-            double f1 = precision + recall == 0 ? 0.0 : 2 * precision * recall / (precision + recall);
 
-            sumPrecision += precision;
-            sumRecall += recall;
-            sumF1 += f1;
-            classCount++;
-        }
-        result.setPrecision(sumPrecision / classCount);
-        result.setRecall(sumRecall / classCount);
-        result.setF1(sumF1 / classCount);
-        return result;
+    public static SubMetricsResult computeMacroEntityMetrics(List<EntityInfo> trueEntities, List<EntityInfo> predEntities) {
+        return computeMacroEntityMetrics(EntityTable.of(trueEntities), EntityTable.of(predEntities));
     }
 
 
@@ -345,77 +204,13 @@ public class EntityMetricsUtils {
      * @param trueEntities 真实实体
      * @param predEntities 预测实体
      */
-    public static List<SubMetricsResult> computePerClassMetrics(List<EntityInfo> trueEntities, List<EntityInfo> predEntities) {
-        List<SubMetricsResult> resultList = new ArrayList<>();
-
-        Set<String> allClasses = new HashSet<>();
-
-        for (EntityInfo e : trueEntities) allClasses.add(e.getEntityClazz());
-        for (EntityInfo e : predEntities) allClasses.add(e.getEntityClazz());
-
-        Map<String, Integer> TP = new HashMap<>();
-        Map<String, Integer> FP = new HashMap<>();
-        Map<String, Integer> FN = new HashMap<>();
-
-        // 初始化计数
-        for (String clazz : allClasses) {
-            TP.put(clazz, 0);
-            FP.put(clazz, 0);
-            FN.put(clazz, 0);
-        }
-
-        boolean[] matched = new boolean[trueEntities.size()];
-
-        // 判断预测中哪些匹配了真实值
-        for (EntityInfo pred : predEntities) {
-            boolean found = false;
-            for (int i = 0; i < trueEntities.size(); i++) {
-                EntityInfo truth = trueEntities.get(i);
-                if (!matched[i] && isExactMatch(pred, truth)) {
-                    if (pred.getEntityClazz().equals(truth.getEntityClazz())) {
-                        TP.put(pred.getEntityClazz(), TP.get(pred.getEntityClazz()) + 1);
-                        matched[i] = true;
-                        found = true;
-                        break;
-                    }
-                }
-            }
-            if (!found) {
-                // 预测错了或预测了根本不存在的实体
-                FP.put(pred.getEntityClazz(), FP.get(pred.getEntityClazz()) + 1);
-            }
-        }
+    public static List<SubMetricsResult> computePerClassMetrics(EntityTable trueEntities, EntityTable predEntities) {
+        return MetricsAccumulator.match(trueEntities, predEntities).toPerClassMetrics();
+    }
 
-        // 统计 FN
-        for (int i = 0; i < trueEntities.size(); i++) {
-            if (!matched[i]) {
-                String clazz = trueEntities.get(i).getEntityClazz();
-                FN.put(clazz, FN.get(clazz) + 1);
-            }
-        }
 
-        // 输出各类别指标
-        for (String clazz : allClasses) {
-            SubMetricsResult subResult = new SubMetricsResult();
-            int tp = TP.get(clazz);
-            int fp = FP.get(clazz);
-            int fn = FN.get(clazz);
-
-            double precision = tp + fp == 0 ? 0.0 : tp * 1.0 / (tp + fp);
-            double recall = tp + fn == 0 ? 0.0 : tp * 1.0 / (tp + fn);
-            double f1 = precision + recall == 0 ? 0.0 : 2 * precision * recall / (precision + recall);
-
-            subResult.setTP(tp);
-            subResult.setFP(fp);
-            subResult.setFN(fn);
-            subResult.setClazz(clazz);
-            subResult.setPrecision(precision);
-            subResult.setRecall(recall);
-            subResult.setF1(f1);
-
-            resultList.add(subResult);
-        }
-        return resultList;
+    public static List<SubMetricsResult> computePerClassMetrics(List<EntityInfo> trueEntities, List<EntityInfo> predEntities) {
+        return computePerClassMetrics(EntityTable.of(trueEntities), EntityTable.of(predEntities));
     }
 
 
@@ -424,75 +219,13 @@ public class EntityMetricsUtils {
      * @param trueEntities 真实实体
      * @param predEntities 预测实体
      */
-    public static List<SubMetricsResult> computePerClassMetricsFast(List<EntityInfo> trueEntities, List<EntityInfo> predEntities) {
-        List<SubMetricsResult> resultList = new ArrayList<>();
-
-        Set<String> allClasses = new HashSet<>();
-        for (EntityInfo e : trueEntities) allClasses.add(e.getEntityClazz());
-        for (EntityInfo e : predEntities) allClasses.add(e.getEntityClazz());
-
-        Map<String, Integer> TP = new HashMap<>();
-        Map<String, Integer> FP = new HashMap<>();
-        Map<String, Integer> FN = new HashMap<>();
-
-        for (String clazz : allClasses) {
-            TP.put(clazz, 0);
-            FP.put(clazz, 0);
-            FN.put(clazz, 0);
-        }
-
-        // 用于快速查找真实实体是否存在
-        Map<String, EntityInfo> truthMap = new HashMap<>();
-        Set<String> matchedKeys = new HashSet<>();
-
-        for (EntityInfo truth : trueEntities) {
-            String key = truth.getStart() + "-" + truth.getEnd() + "-" + truth.getEntityClazz();
-            truthMap.put(key, truth);
-        }
-
-        for (EntityInfo pred : predEntities) {
-            String key = pred.getStart() + "-" + pred.getEnd() + "-" + pred.getEntityClazz();
-            if (truthMap.containsKey(key) && !matchedKeys.contains(key)) {
-                // 真值中存在此实体，且尚未匹配
-                TP.put(pred.getEntityClazz(), TP.get(pred.getEntityClazz()) + 1);
-                matchedKeys.add(key);
-            } else {
-                // 错误预测
-                FP.put(pred.getEntityClazz(), FP.get(pred.getEntityClazz()) + 1);
-            }
-        }
-
-        // 统计 FN
-        for (String key : truthMap.keySet()) {
-            if (!matchedKeys.contains(key)) {
-                String clazz = truthMap.get(key).getEntityClazz();
-                FN.put(clazz, FN.get(clazz) + 1);
-            }
-        }
-
-        // 输出各类别指标
-        for (String clazz : allClasses) {
-            SubMetricsResult subResult = new SubMetricsResult();
-            int tp = TP.get(clazz);
-            int fp = FP.get(clazz);
-            int fn = FN.get(clazz);
-
-            double precision = tp + fp == 0 ? 0.0 : tp * 1.0 / (tp + fp);
-            double recall = tp + fn == 0 ? 0.0 : tp * 1.0 / (tp + fn);
-            double f1 = precision + recall == 0 ? 0.0 : 2 * precision * recall / (precision + recall);
-
-            subResult.setTP(tp);
-            subResult.setFN(fn);
-            subResult.setFP(fp);
+    public static List<SubMetricsResult> computePerClassMetricsFast(EntityTable trueEntities, EntityTable predEntities) {
+        return computePerClassMetrics(trueEntities, predEntities);
+    }
 
-            subResult.setClazz(clazz);
-            subResult.setPrecision(precision);
-            subResult.setRecall(recall);
-            subResult.setF1(f1);
 
-            resultList.add(subResult);
-        }
-        return resultList;
+    public static List<SubMetricsResult> computePerClassMetricsFast(List<EntityInfo> trueEntities, List<EntityInfo> predEntities) {
+        return computePerClassMetrics(trueEntities, predEntities);
     }
 
 
@@ -502,38 +235,61 @@ public class EntityMetricsUtils {
      *  @Description: 获取空天模型文本单一维度评估结果
      */
     public static SubMetricsResult calculateIecasTextMetrics(String prePath, String gtPath) {
-        List<TextIdentifyEntity> predictedEntities = fileToEntity(prePath);
-        List<TextIdentifyEntity> actualEntities = fileToEntity(gtPath);
+        IecasEntitySet actualSet;
+        try {
+            actualSet = IecasEntityReader.readSet(gtPath);
+        } catch (IOException e) {
+            log.error("文件 {} 转换内容为Entity时出现错误...", gtPath, e);
+            return null;
+        }
+        return calculateIecasTextMetrics(prePath, actualSet);
+    }
+
 
-        if (predictedEntities == null || actualEntities == null) {
+    /**
+     * 使用已解析的真实实体集合计算空天模型文本评估结果，预测文件流式读取并去重
+     * @param prePath 预测文件路径
+     * @param actualSet 真实实体集合，只读
+     * @return 评估结果，预测文件解析失败时返回null
+     */
+    public static SubMetricsResult calculateIecasTextMetrics(String prePath, IecasEntitySet actualSet) {
+        try (InputStream input = CompressedInput.open(prePath)) {
+            return calculateIecasTextMetrics(input, actualSet);
+        } catch (IOException e) {
+            log.error("文件 {} 转换内容为Entity时出现错误...", prePath, e);
             return null;
         }
+    }
 
-        // 使用 Set 来存储实际和预测的实体，方便进行去重和对比
-        Set<TextIdentifyEntity> predictedSet = new HashSet<>(predictedEntities);
-        Set<TextIdentifyEntity> actualSet = new HashSet<>(actualEntities);
 
+    /**
+     * 使用已解析的真实实体集合计算空天模型文本评估结果，预测内容从输入流边读取边匹配
+     * @param input 预测内容输入流，由调用方关闭
+     * @param actualSet 真实实体集合，只读
+     * @return 评估结果
+     * @throws IOException 读取或格式错误
+     */
+    public static SubMetricsResult calculateIecasTextMetrics(InputStream input, IecasEntitySet actualSet) throws IOException {
+        StageMetrics.Sample sample = StageMetrics.start();
+        IecasEntitySet predictedSet = new IecasEntitySet();
         // 计算 TP, FP, FN
-        int TP = 0; // 真正例
-        int FP = 0; // 假正例
-        int FN = 0; // 假负例
-        int TN = 0; // 真负例
-
-        // 计算 TP 和 FP
-        for (TextIdentifyEntity predicted : predictedSet) {
-            if (actualSet.contains(predicted)) {
-                TP++; // 如果预测和实际都包含这个实体，是 TP
-            } else {
-                FP++; // 如果预测有该实体，但实际没有，是 FP
+        int[] counts = new int[2]; // 真正例, 假正例
+        long preBytes = IecasEntityReader.read(input, (start, end, type, word) -> {
+            if (!predictedSet.add(start, end, type, word)) {
+                return;
             }
-        }
-
-        // 计算 FN
-        for (TextIdentifyEntity actual : actualSet) {
-            if (!predictedSet.contains(actual)) {
-                FN++; // 如果实际有该实体，但预测没有，是 FN
+            if (actualSet.contains(start, end, type, word)) {
+                counts[0]++; // 如果预测和实际都包含这个实体，是 TP
+            } else {
+                counts[1]++; // 如果预测有该实体，但实际没有，是 FP
             }
-        }
+        });
+        StageMetrics.stop(sample, StageMetrics.STAGE_EVALUATE, preBytes);
+        StageMetrics.count(StageMetrics.SIDE_PRED, 0, predictedSet.size(), preBytes);
+        int TP = counts[0];
+        int FP = counts[1];
+        int FN = actualSet.size() - TP; // 实际有该实体，但预测没有
+        int TN;
 
         // 计算 TN (总的实体数量减去 TP, FP, FN)
         // 假设 TN 可以通过排除 TP, FP, FN 来推算
@@ -560,10 +316,8 @@ public class EntityMetricsUtils {
 
     public static List<TextIdentifyEntity> fileToEntity(String filePath) {
         List<TextIdentifyEntity> entities = null;
-        ObjectMapper objectMapper = new ObjectMapper();
-        try {
-            entities = objectMapper.readValue(new File(filePath), objectMapper.getTypeFactory()
-                    .constructCollectionType(List.class, TextIdentifyEntity.class));
+        try (InputStream input = CompressedInput.open(filePath)) {
+            entities = ENTITY_LIST_READER.readValue(input);
         } catch (IOException e) {
             e.printStackTrace();
             log.error("文件 {} 转换内容为Entity时出现错误...", filePath);
@@ -0,0 +1,237 @@
+package com.iecas.evaluate.utils;
+
+import com.iecas.evaluate.pojo.entity.EntityInfo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 22:26
+ * @Description: 列式实体表，以基本类型数组按列存放解码后的实体，实体文本统一存放在共享字符缓冲区中，
+ * 内部计算全部基于该表，仅在接口输出时才生成 {@link EntityInfo}
+ */
+public class EntityTable {
+
+    /**
+     * 实体类别名称所在的字典
+     */
+    private final LabelDictionary dictionary;
+
+    private int size;
+
+    private int[] sentence;
+
+    private int[] start;
+
+    private int[] end;
+
+    private int[] classId;
+
+    /**
+     * 实体文本在text中的偏移，没有文本时为-1
+     */
+    private int[] textOffset;
+
+    private int[] textLength;
+
+    private char[] text;
+
+    private int textSize;
+
+
+    public EntityTable(LabelDictionary dictionary) {
+        this(dictionary, 16);
+    }
+
+
+    public EntityTable(LabelDictionary dictionary, int capacity) {
+        this.dictionary = dictionary;
+        capacity = Math.max(capacity, 1);
+        sentence = new int[capacity];
+        start = new int[capacity];
+        end = new int[capacity];
+        classId = new int[capacity];
+        textOffset = new int[capacity];
+        textLength = new int[capacity];
+        text = new char[0];
+    }
+
+
+    /**
+     * 由实体集合构建实体表
+     * @param entities 实体集合
+     * @return 实体表
+     */
+    public static EntityTable of(List<EntityInfo> entities) {
+        LabelDictionary dictionary = new LabelDictionary();
+        EntityTable table = new EntityTable(dictionary, entities.size());
+        for (EntityInfo entity : entities) {
+            int row = table.add((int) entity.getSentence(), (int) entity.getStart(), (int) entity.getEnd(),
+                    dictionary.classId(entity.getEntityClazz()));
+            if (entity.getEntity() != null) {
+                table.setText(row, entity.getEntity());
+            }
+        }
+        return table;
+    }
+
+
+    /**
+     * 追加一个实体
+     * @return 行号
+     */
+    public int add(int sentenceId, int startIdx, int endIdx, int clazz) {
+        if (size == sentence.length) {
+            int capacity = size * 2;
+            sentence = Arrays.copyOf(sentence, capacity);
+            start = Arrays.copyOf(start, capacity);
+            end = Arrays.copyOf(end, capacity);
+            classId = Arrays.copyOf(classId, capacity);
+            textOffset = Arrays.copyOf(textOffset, capacity);
+            textLength = Arrays.copyOf(textLength, capacity);
+        }
+        sentence[size] = sentenceId;
+        start[size] = startIdx;
+        end[size] = endIdx;
+        classId[size] = clazz;
+        textOffset[size] = -1;
+        return size++;
+    }
+
+
+    /**
+     * 追加句子中的全部实体，实体文本存在时一并解码到共享缓冲区
+     * @param sentenceId 句子id
+     * @param bio 已解码的句子
+     */
+    void addAll(int sentenceId, BioSentence bio) {
+        for (int i = 0; i < bio.spanCount; i++) {
+            int row = add(sentenceId, bio.spanStart[i], bio.spanEnd[i], bio.spanClass[i]);
+            int byteLength = bio.spanTextEnd[i] - bio.spanTextStart[i];
+            if (byteLength > 0) {
+                ensureText(byteLength);
+                textOffset[row] = textSize;
+                textSize = decodeUtf8(bio.text, bio.spanTextStart[i], bio.spanTextEnd[i], text, textSize);
+                textLength[row] = textSize - textOffset[row];
+            }
+        }
+    }
+
+
+    private void setText(int row, String value) {
+        ensureText(value.length());
+        value.getChars(0, value.length(), text, textSize);
+        textOffset[row] = textSize;
+        textLength[row] = value.length();
+        textSize += value.length();
+    }
+
+
+    private void ensureText(int length) {
+        if (textSize + length > text.length) {
+            text = Arrays.copyOf(text, Math.max(text.length * 2, textSize + length));
+        }
+    }
+
+
+    /**
+     * 将UTF-8字节直接解码到字符数组，非法字节按替换字符处理
+     * @return 写入后的字符位置
+     */
+    private static int decodeUtf8(byte[] src, int from, int to, char[] dest, int pos) {
+        int i = from;
+        while (i < to) {
+            int b = src[i] & 0xFF;
+            int cp;
+            int n;
+            if (b < 0x80) {
+                cp = b;
+                n = 0;
+            } else if (b >= 0xC0 && b < 0xE0) {
+                cp = b & 0x1F;
+                n = 1;
+            } else if (b >= 0xE0 && b < 0xF0) {
+                cp = b & 0x0F;
+                n = 2;
+            } else if (b >= 0xF0 && b < 0xF8) {
+                cp = b & 0x07;
+                n = 3;
+            } else {
+                dest[pos++] = '\uFFFD';
+                i++;
+                continue;
+            }
+            i++;
+            int k = 0;
+            for (; k < n && i < to && (src[i] & 0xC0) == 0x80; k++) {
+                cp = (cp << 6) | (src[i++] & 0x3F);
+            }
+            if (k < n) {
+                dest[pos++] = '\uFFFD';
+            } else if (cp >= 0x10000) {
+                dest[pos++] = Character.highSurrogate(cp);
+                dest[pos++] = Character.lowSurrogate(cp);
+            } else {
+                dest[pos++] = (char) cp;
+            }
+        }
+        return pos;
+    }
+
+
+    public int size() {
+        return size;
+    }
+
+
+    public LabelDictionary getDictionary() {
+        return dictionary;
+    }
+
+
+    public int sentence(int row) {
+        return sentence[row];
+    }
+
+
+    public int start(int row) {
+        return start[row];
+    }
+
+
+    public int end(int row) {
+        return end[row];
+    }
+
+
+    public int classId(int row) {
+        return classId[row];
+    }
+
+
+    /**
+     * 实体文本，没有文本时返回null
+     */
+    public String text(int row) {
+        return textOffset[row] < 0 ? null : new String(text, textOffset[row], textLength[row]);
+    }
+
+
+    /**
+     * 生成接口输出使用的实体对象
+     */
+    public EntityInfo toEntityInfo(int row) {
+        return new EntityInfo(text(row), dictionary.className(classId[row]), start[row], end[row], sentence[row]);
+    }
+
+
+    public List<EntityInfo> toEntityInfos() {
+        List<EntityInfo> result = new ArrayList<>(size);
+        for (int row = 0; row < size; row++) {
+            result.add(toEntityInfo(row));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,114 @@
+package com.iecas.evaluate.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 22:32
+ * @Description: 评估进度，由评估线程定期累加，其他线程可随时读取。并行评估时多个分片共用同一个进度。
+ * 同时累加微平均所需的TP、预测实体数与真实实体数，用于给出评估过程中的近似微平均指标
+ */
+public class EvaluationProgress {
+
+    /**
+     * 评估引擎每处理多少个句子上报一次进度
+     */
+    public static final int REPORT_INTERVAL = 1024;
+
+    /**
+     * 需要读取的总字节数
+     */
+    private final long totalBytes;
+
+    private final AtomicLong bytesRead = new AtomicLong();
+
+    private final AtomicLong sentences = new AtomicLong();
+
+    private final AtomicLong truePositives = new AtomicLong();
+
+    private final AtomicLong predictedEntities = new AtomicLong();
+
+    private final AtomicLong trueEntities = new AtomicLong();
+
+
+    public EvaluationProgress(long totalBytes) {
+        this.totalBytes = totalBytes;
+    }
+
+
+    /**
+     * 累加进度
+     * @param bytes 新读取的字节数
+     * @param sentenceCount 新处理的句子数
+     */
+    public void add(long bytes, long sentenceCount) {
+        bytesRead.addAndGet(bytes);
+        sentences.addAndGet(sentenceCount);
+    }
+
+
+    /**
+     * 累加进度以及微平均计数
+     * @param bytes 新读取的字节数
+     * @param sentenceCount 新处理的句子数
+     * @param tp 新增的TP
+     * @param predicted 新增的预测实体数
+     * @param truth 新增的真实实体数
+     */
+    public void add(long bytes, long sentenceCount, long tp, long predicted, long truth) {
+        truePositives.addAndGet(tp);
+        predictedEntities.addAndGet(predicted);
+        trueEntities.addAndGet(truth);
+        add(bytes, sentenceCount);
+    }
+
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+
+    public long getBytesRead() {
+        return bytesRead.get();
+    }
+
+
+    public long getSentences() {
+        return sentences.get();
+    }
+
+
+    /**
+     * 完成比例，范围 [0, 1]
+     */
+    public double getRatio() {
+        return totalBytes <= 0 ? 0.0 : Math.min(1.0, (double) bytesRead.get() / totalBytes);
+    }
+
+
+    /**
+     * 已处理部分的微平均精确率，各计数分别读取，评估进行中只是近似值
+     */
+    public double getMicroPrecision() {
+        long predicted = predictedEntities.get();
+        return predicted == 0 ? 0.0 : (double) truePositives.get() / predicted;
+    }
+
+
+    /**
+     * 已处理部分的微平均召回率
+     */
+    public double getMicroRecall() {
+        long truth = trueEntities.get();
+        return truth == 0 ? 0.0 : (double) truePositives.get() / truth;
+    }
+
+
+    /**
+     * 已处理部分的微平均F1
+     */
+    public double getMicroF1() {
+        long total = predictedEntities.get() + trueEntities.get();
+        return total == 0 ? 0.0 : 2.0 * truePositives.get() / total;
+    }
+}
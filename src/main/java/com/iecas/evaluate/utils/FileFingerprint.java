@@ -0,0 +1,97 @@
+package com.iecas.evaluate.utils;
+
+import lombok.Data;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 22:34
+ * @Description: 文件指纹，由文件大小、修改时间以及抽样内容哈希组成，用于判断文件内容是否变化
+ */
+@Data
+public class FileFingerprint {
+
+    /**
+     * 文件首尾各读取的字节数
+     */
+    private static final int EDGE_BYTES = 64 * 1024;
+
+    /**
+     * 文件中间抽样的块数
+     */
+    private static final int SAMPLE_BLOCKS = 16;
+
+    private static final int SAMPLE_BYTES = 4 * 1024;
+
+    /**
+     * 规范化后的绝对路径
+     */
+    private final String path;
+
+    private final long size;
+
+    private final long lastModified;
+
+    /**
+     * 抽样内容哈希
+     */
+    private final long contentHash;
+
+
+    /**
+     * 计算文件指纹
+     * @param filePath 文件路径
+     * @return 文件指纹
+     * @throws IOException 文件不存在或读取失败
+     */
+    public static FileFingerprint of(String filePath) throws IOException {
+        File file = new File(filePath).getCanonicalFile();
+        if (!file.isFile()) {
+            throw new IOException("文件不存在: " + filePath);
+        }
+        long size = file.length();
+        long lastModified = file.lastModified();
+        long hash = 0xCBF29CE484222325L ^ size;
+        try (FileChannel channel = FileChannel.open(Paths.get(file.getPath()), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(EDGE_BYTES);
+            hash = hashRange(channel, buffer, 0, EDGE_BYTES, hash);
+            if (size > 2L * EDGE_BYTES) {
+                long step = (size - 2L * EDGE_BYTES) / (SAMPLE_BLOCKS + 1);
+                for (int i = 1; i <= SAMPLE_BLOCKS && step > SAMPLE_BYTES; i++) {
+                    hash = hashRange(channel, buffer, EDGE_BYTES + step * i, SAMPLE_BYTES, hash);
+                }
+            }
+            if (size > EDGE_BYTES) {
+                hash = hashRange(channel, buffer, Math.max(EDGE_BYTES, size - EDGE_BYTES), EDGE_BYTES, hash);
+            }
+        }
+        return new FileFingerprint(file.getPath(), size, lastModified, hash);
+    }
+
+
+    private static long hashRange(FileChannel channel, ByteBuffer buffer, long position, int length, long hash) throws IOException {
+        buffer.clear();
+        buffer.limit(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        // 按8字节分组的FNV-1a变体
+        while (buffer.remaining() >= 8) {
+            hash = (hash ^ buffer.getLong()) * 0x100000001B3L;
+            hash ^= hash >>> 29;
+        }
+        while (buffer.hasRemaining()) {
+            hash = (hash ^ buffer.get()) * 0x100000001B3L;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,130 @@
+package com.iecas.evaluate.utils;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 22:44
+ * @Description: 空天模型实体文件的流式读取器，使用共享的JsonFactory逐个读取数组中的实体，
+ * 不生成中间对象，内存占用与文件大小无关
+ */
+public class IecasEntityReader {
+
+    /**
+     * JsonFactory线程安全，全局共享
+     */
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+
+    /**
+     * 实体回调
+     */
+    @FunctionalInterface
+    public interface EntityConsumer {
+
+        void accept(int start, int end, String type, String word);
+    }
+
+
+    /**
+     * 逐个读取实体，未知字段直接跳过
+     * @param filePath 文件路径，内容为实体数组，可以是gzip/zstd压缩文件
+     * @param consumer 实体回调
+     * @return 读取的字节数，压缩文件为解压后的字节数
+     * @throws IOException 文件读取或格式错误
+     */
+    public static long read(String filePath, EntityConsumer consumer) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(CompressedInput.open(filePath))) {
+            return read(parser, consumer);
+        }
+    }
+
+
+    /**
+     * 从输入流逐个读取实体，流由调用方关闭
+     * @param input 输入流，内容为实体数组
+     * @param consumer 实体回调
+     * @return 读取的字节数
+     * @throws IOException 读取或格式错误
+     */
+    public static long read(InputStream input, EntityConsumer consumer) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(input)) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            return read(parser, consumer);
+        }
+    }
+
+
+    private static long read(JsonParser parser, EntityConsumer consumer) throws IOException {
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new JsonParseException(parser, "实体文件内容应为数组");
+        }
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            int start = 0, end = 0;
+            String type = null, word = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "start":
+                        start = parser.getValueAsInt();
+                        break;
+                    case "end":
+                        end = parser.getValueAsInt();
+                        break;
+                    case "type":
+                        type = value == JsonToken.VALUE_NULL ? null : parser.getValueAsString();
+                        break;
+                    case "word":
+                        word = value == JsonToken.VALUE_NULL ? null : parser.getValueAsString();
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+            consumer.accept(start, end, type, word);
+        }
+        if (parser.currentToken() != JsonToken.END_ARRAY) {
+            throw new JsonParseException(parser, "实体数组中只能包含对象");
+        }
+        return parser.getCurrentLocation().getByteOffset();
+    }
+
+
+    /**
+     * 读取为实体集合，重复实体只保留一个
+     * @param filePath 文件路径
+     * @return 实体集合
+     * @throws IOException 文件读取或格式错误
+     */
+    public static IecasEntitySet readSet(String filePath) throws IOException {
+        StageMetrics.Sample sample = StageMetrics.start();
+        IecasEntitySet set = new IecasEntitySet();
+        long bytes = read(filePath, set::add);
+        StageMetrics.stop(sample, StageMetrics.STAGE_PARSE_TRUTH, bytes);
+        StageMetrics.count(StageMetrics.SIDE_TRUTH, 0, set.size(), bytes);
+        return set;
+    }
+
+
+    /**
+     * 从输入流读取为实体集合，流由调用方关闭
+     * @param input 输入流，内容为实体数组
+     * @return 实体集合
+     * @throws IOException 读取或格式错误
+     */
+    public static IecasEntitySet readSet(InputStream input) throws IOException {
+        StageMetrics.Sample sample = StageMetrics.start();
+        IecasEntitySet set = new IecasEntitySet();
+        long bytes = read(input, set::add);
+        StageMetrics.stop(sample, StageMetrics.STAGE_PARSE_TRUTH, bytes);
+        StageMetrics.count(StageMetrics.SIDE_TRUTH, 0, set.size(), bytes);
+        return set;
+    }
+}
@@ -0,0 +1,133 @@
+package com.iecas.evaluate.utils;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 22:44
+ * @Description: 空天模型实体集合，以 (起始位置, 结束位置) 以及类别与实体文本的64位哈希作为键，
+ * 全部使用基本类型数组存储，不保存实体对象。不同实体的键相同的概率约为 n^2/2^64，可忽略
+ */
+public class IecasEntitySet {
+
+    /**
+     * 键的高位部分: 起始位置 << 32 | 结束位置
+     */
+    private long[] startEnd;
+
+    /**
+     * 键的低位部分: 类别与实体文本的哈希
+     */
+    private long[] typeWord;
+
+    private boolean[] used;
+
+    private int size;
+
+    private int mask;
+
+
+    public IecasEntitySet() {
+        allocate(64);
+    }
+
+
+    private void allocate(int capacity) {
+        startEnd = new long[capacity];
+        typeWord = new long[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+        size = 0;
+    }
+
+
+    /**
+     * 添加一个实体
+     * @return 集合中原本不存在该实体时返回true
+     */
+    public boolean add(int start, int end, String type, String word) {
+        if (size * 2 >= used.length) {
+            rehash();
+        }
+        long hi = ((long) start << 32) | (end & 0xFFFFFFFFL);
+        long lo = hash(type, word);
+        int slot = find(hi, lo);
+        if (used[slot]) {
+            return false;
+        }
+        used[slot] = true;
+        startEnd[slot] = hi;
+        typeWord[slot] = lo;
+        size++;
+        return true;
+    }
+
+
+    public boolean contains(int start, int end, String type, String word) {
+        long hi = ((long) start << 32) | (end & 0xFFFFFFFFL);
+        return used[find(hi, hash(type, word))];
+    }
+
+
+    public int size() {
+        return size;
+    }
+
+
+    /**
+     * 估算占用的内存字节数
+     */
+    public long estimateBytes() {
+        return (long) used.length * (8 + 8 + 1) + 64;
+    }
+
+
+    private int find(long hi, long lo) {
+        long h = hi * 0x9E3779B97F4A7C15L + lo;
+        h ^= h >>> 32;
+        int slot = (int) h & mask;
+        while (used[slot] && (startEnd[slot] != hi || typeWord[slot] != lo)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+
+    private void rehash() {
+        long[] oldHi = startEnd;
+        long[] oldLo = typeWord;
+        boolean[] oldUsed = used;
+        allocate(used.length * 2);
+        for (int i = 0; i < oldUsed.length; i++) {
+            if (oldUsed[i]) {
+                int slot = find(oldHi[i], oldLo[i]);
+                used[slot] = true;
+                startEnd[slot] = oldHi[i];
+                typeWord[slot] = oldLo[i];
+                size++;
+            }
+        }
+    }
+
+
+    /**
+     * 类别与实体文本的64位哈希，null与空字符串区分
+     */
+    private static long hash(String type, String word) {
+        long h = mix(0x84222325CBF29CE4L, type);
+        return mix(h * 0xC2B2AE3D27D4EB4FL, word);
+    }
+
+
+    private static long mix(long h, String value) {
+        if (value == null) {
+            return h ^ 0x27D4EB2F165667C5L;
+        }
+        h ^= value.length();
+        for (int i = 0; i < value.length(); i++) {
+            h = (h ^ value.charAt(i)) * 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return h;
+    }
+}
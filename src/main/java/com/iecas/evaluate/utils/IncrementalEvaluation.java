@@ -0,0 +1,604 @@
+package com.iecas.evaluate.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 22:57
+ * @Description: 增量评估。保存上一次评估中每个句子对的计数贡献以及内容哈希，再次评估时只扫描字节计算句子哈希，
+ * 仅重新解析哈希发生变化的句子，并在总计数上减去旧贡献、加上新贡献。
+ * 句子按序号配对，插入或删除句子会使其后所有句子都视为变化。实例构建完成后只读，每次评估生成新的实例
+ */
+@Slf4j
+public class IncrementalEvaluation {
+
+    /**
+     * 相邻变化句子之间的间隔小于该值时合并为一段读取，减少文件映射次数
+     */
+    private static final int MERGE_GAP = 64;
+
+    /**
+     * 只有一侧存在的句子在配对哈希中使用的占位值
+     */
+    private static final long MISSING = 0x9E3779B97F4A7C15L;
+
+    /**
+     * 每个边界一致、类别不同的实体对占用的int数
+     */
+    private static final int CONFUSION_FIELDS = 4;
+
+    /**
+     * 类别名称，下标即类别id
+     */
+    private final String[] classNames;
+
+    private final int sentenceCount;
+
+    /**
+     * 每个句子对的配对哈希
+     */
+    private final long[] pairHash;
+
+    /**
+     * 按句压缩存储的计数贡献，句子i的贡献位于 [offsets[i], offsets[i+1])
+     */
+    private final int[] offsets;
+
+    private final int[] contribClass;
+
+    private final int[] contribTp;
+
+    private final int[] contribFp;
+
+    private final int[] contribFn;
+
+    /**
+     * 每个句子的TN
+     */
+    private final int[] sentenceTN;
+
+    /**
+     * 每个句子按词文本重新对齐的token对数，以及未能配对的token数
+     */
+    private final int[] sentenceRealigned;
+
+    private final int[] sentenceUnmatched;
+
+    /**
+     * 每个句子边界重叠匹配中各情形的计数，句子i位于 [i * CASES, (i + 1) * CASES)
+     */
+    private final int[] sentenceOverlap;
+
+    /**
+     * 每个句子边界一致、类别不同的实体对，句子i位于 [confusionOffsets[i], confusionOffsets[i+1])，
+     * 每项依次为真实类别、预测类别、起始位置、结束位置
+     */
+    private final int[] confusionOffsets;
+
+    private final int[] confusions;
+
+    /**
+     * 按句子顺序记录全部实体对得到的混淆矩阵
+     */
+    private final ConfusionMatrix confusion;
+
+    private final int[] tp;
+
+    private final int[] fp;
+
+    private final int[] fn;
+
+    private final long tn;
+
+    private final long realignedTokens;
+
+    private final long unmatchedTokens;
+
+    private final long[] overlapCases;
+
+    /**
+     * 本次重新计算的句子数
+     */
+    private final int changed;
+
+
+    private IncrementalEvaluation(Builder builder) {
+        this.classNames = builder.classNames();
+        this.sentenceCount = builder.sentenceCount;
+        this.pairHash = builder.pairHash;
+        this.offsets = builder.offsets;
+        this.contribClass = Arrays.copyOf(builder.contribClass, builder.contribSize);
+        this.contribTp = Arrays.copyOf(builder.contribTp, builder.contribSize);
+        this.contribFp = Arrays.copyOf(builder.contribFp, builder.contribSize);
+        this.contribFn = Arrays.copyOf(builder.contribFn, builder.contribSize);
+        this.sentenceTN = builder.sentenceTN;
+        this.sentenceRealigned = builder.sentenceRealigned;
+        this.sentenceUnmatched = builder.sentenceUnmatched;
+        this.sentenceOverlap = builder.sentenceOverlap;
+        this.confusionOffsets = builder.confusionOffsets;
+        this.confusions = Arrays.copyOf(builder.confusions, builder.confusionSize * CONFUSION_FIELDS);
+        this.confusion = builder.confusion;
+        this.tp = Arrays.copyOf(builder.tp, classNames.length);
+        this.fp = Arrays.copyOf(builder.fp, classNames.length);
+        this.fn = Arrays.copyOf(builder.fn, classNames.length);
+        this.tn = builder.tn;
+        this.realignedTokens = builder.realignedTokens;
+        this.unmatchedTokens = builder.unmatchedTokens;
+        this.overlapCases = builder.overlapCases;
+        this.changed = builder.changed;
+    }
+
+
+    /**
+     * 评估两个文件，存在上一次的结果时只重新计算变化的句子
+     * @param truePath 真实实体文件路径
+     * @param predPath 预测实体文件路径
+     * @param previous 上一次的评估结果，可为null
+     * @return 本次评估结果
+     */
+    public static IncrementalEvaluation evaluate(String truePath, String predPath, IncrementalEvaluation previous) {
+        return evaluate(truePath, predPath, previous, null);
+    }
+
+
+    /**
+     * 评估两个文件，存在上一次的结果时只重新计算变化的句子
+     * @param truePath 真实实体文件路径
+     * @param predPath 预测实体文件路径
+     * @param previous 上一次的评估结果，可为null
+     * @param progress 评估进度，可为null，沿用与重新计算的句子都按句子间隔上报
+     * @return 本次评估结果
+     */
+    public static IncrementalEvaluation evaluate(String truePath, String predPath, IncrementalEvaluation previous,
+                                                 EvaluationProgress progress) {
+        try {
+            SentenceScanner.SentenceHashes trueHashes;
+            SentenceScanner.SentenceHashes predHashes;
+            long totalBytes;
+            try (SentenceScanner trueScanner = new SentenceScanner(truePath);
+                 SentenceScanner predScanner = new SentenceScanner(predPath)) {
+                trueHashes = trueScanner.hashSentences();
+                predHashes = predScanner.hashSentences();
+                totalBytes = trueScanner.size() + predScanner.size();
+            }
+
+            int n = Math.max(trueHashes.count(), predHashes.count());
+            long[] pairHash = new long[n];
+            boolean[] dirty = new boolean[n];
+            for (int i = 0; i < n; i++) {
+                long h = i < trueHashes.count() ? trueHashes.hash(i) : MISSING;
+                h = h * 0xC2B2AE3D27D4EB4FL + (i < predHashes.count() ? predHashes.hash(i) : MISSING);
+                pairHash[i] = h ^ (h >>> 31);
+                dirty[i] = previous == null || i >= previous.sentenceCount || previous.pairHash[i] != pairHash[i];
+            }
+
+            Builder builder = new Builder(previous, n, pairHash);
+            int i = 0;
+            while (i < n) {
+                if (!dirty[i]) {
+                    builder.copy(i);
+                    i++;
+                } else {
+                    // 合并间隔较小的变化句子，整段重新计算
+                    int to = i + 1;
+                    for (int gap = 0; to < n && gap < MERGE_GAP; to++) {
+                        gap = dirty[to] ? 0 : gap + 1;
+                    }
+                    while (to > i + 1 && !dirty[to - 1]) {
+                        to--;
+                    }
+                    builder.recompute(truePath, predPath, trueHashes, predHashes, i, to);
+                    i = to;
+                }
+                if (progress != null && i - builder.reportedSentences >= EvaluationProgress.REPORT_INTERVAL) {
+                    builder.reportProgress(progress, processedBytes(trueHashes, i) + processedBytes(predHashes, i), i);
+                }
+            }
+            builder.finish();
+            if (progress != null) {
+                builder.reportProgress(progress, totalBytes, n);
+            }
+            return new IncrementalEvaluation(builder);
+        } catch (IOException e) {
+            log.error("读取文件错误", e);
+            throw new RuntimeException(e.getMessage());
+        }
+    }
+
+
+    /**
+     * 前若干个句子在文件中的结束位置
+     */
+    private static long processedBytes(SentenceScanner.SentenceHashes hashes, int sentences) {
+        int last = Math.min(sentences, hashes.count()) - 1;
+        return last < 0 ? 0 : hashes.end(last);
+    }
+
+
+    /**
+     * 转换为评估计数
+     */
+    public MetricsAccumulator toAccumulator() {
+        LabelDictionary dictionary = new LabelDictionary();
+        MetricsAccumulator accumulator = new MetricsAccumulator(dictionary);
+        for (int c = 0; c < classNames.length; c++) {
+            accumulator.addCounts(dictionary.classId(classNames[c]), tp[c], fp[c], fn[c]);
+        }
+        accumulator.addTN(tn);
+        accumulator.addAlignment(realignedTokens, unmatchedTokens);
+        accumulator.addOverlapCases(overlapCases);
+        int[] mapping = new int[classNames.length];
+        for (int c = 0; c < classNames.length; c++) {
+            mapping[c] = dictionary.classId(classNames[c]);
+        }
+        accumulator.addConfusion(confusion, mapping);
+        return accumulator;
+    }
+
+
+    public int getSentenceCount() {
+        return sentenceCount;
+    }
+
+
+    public int getChanged() {
+        return changed;
+    }
+
+
+    /**
+     * 估算占用的内存字节数
+     */
+    public long estimateBytes() {
+        return (28L + 4L * OverlapMatcher.CASES) * sentenceCount + 16L * contribClass.length + 4L * confusions.length
+                + 12L * tp.length + confusion.estimateBytes() + 64;
+    }
+
+
+    /**
+     * 构建新的评估结果，未变化的句子沿用上一次的贡献
+     */
+    private static class Builder {
+
+        private final IncrementalEvaluation previous;
+
+        private final LabelDictionary dictionary = new LabelDictionary();
+
+        private final int sentenceCount;
+
+        private final long[] pairHash;
+
+        private final int[] offsets;
+
+        private final int[] sentenceTN;
+
+        private final int[] sentenceRealigned;
+
+        private final int[] sentenceUnmatched;
+
+        private final int[] sentenceOverlap;
+
+        private final long[] overlapCases = new long[OverlapMatcher.CASES];
+
+        private final int[] confusionOffsets;
+
+        private int[] confusions = new int[64];
+
+        private int confusionSize;
+
+        private final ConfusionMatrix confusion = new ConfusionMatrix(true);
+
+        /**
+         * 当前句子边界重叠匹配的计数
+         */
+        private final long[] cases = new long[OverlapMatcher.CASES];
+
+        private int[] contribClass, contribTp, contribFp, contribFn;
+
+        private int contribSize;
+
+        private int[] tp = new int[16], fp = new int[16], fn = new int[16];
+
+        private long tn;
+
+        private long realignedTokens;
+
+        private long unmatchedTokens;
+
+        private int changed;
+
+        /**
+         * 已上报进度的句子数、字节数与微平均计数
+         */
+        private int reportedSentences;
+
+        private long reportedBytes;
+
+        private long reportedTp, reportedPred, reportedTruth;
+
+        /**
+         * 上一次的类别id到本次类别id的映射
+         */
+        private final int[] previousClass;
+
+        private final BioSentence truth = new BioSentence();
+
+        private final BioSentence pred = new BioSentence();
+
+        private final SpanIndex index = new SpanIndex();
+
+        private final TokenAligner aligner = new TokenAligner();
+
+        private final OverlapMatcher overlapMatcher = new OverlapMatcher();
+
+
+        Builder(IncrementalEvaluation previous, int sentenceCount, long[] pairHash) {
+            this.previous = previous;
+            this.sentenceCount = sentenceCount;
+            this.pairHash = pairHash;
+            this.offsets = new int[sentenceCount + 1];
+            this.sentenceTN = new int[sentenceCount];
+            this.sentenceRealigned = new int[sentenceCount];
+            this.sentenceUnmatched = new int[sentenceCount];
+            this.sentenceOverlap = new int[sentenceCount * OverlapMatcher.CASES];
+            this.confusionOffsets = new int[sentenceCount + 1];
+            int capacity = previous == null ? 1024 : Math.max(16, previous.contribClass.length);
+            contribClass = new int[capacity];
+            contribTp = new int[capacity];
+            contribFp = new int[capacity];
+            contribFn = new int[capacity];
+            if (previous == null) {
+                previousClass = new int[0];
+            } else {
+                previousClass = new int[previous.classNames.length];
+                for (int c = 0; c < previousClass.length; c++) {
+                    previousClass[c] = dictionary.classId(previous.classNames[c]);
+                }
+            }
+        }
+
+
+        /**
+         * 沿用上一次的贡献
+         */
+        void copy(int sentence) {
+            offsets[sentence] = contribSize;
+            for (int k = previous.offsets[sentence]; k < previous.offsets[sentence + 1]; k++) {
+                add(previousClass[previous.contribClass[k]], previous.contribTp[k], previous.contribFp[k], previous.contribFn[k]);
+            }
+            record(sentence, previous.sentenceTN[sentence], previous.sentenceRealigned[sentence],
+                    previous.sentenceUnmatched[sentence]);
+            for (int i = 0; i < OverlapMatcher.CASES; i++) {
+                cases[i] = previous.sentenceOverlap[sentence * OverlapMatcher.CASES + i];
+            }
+            recordOverlap(sentence);
+            confusionOffsets[sentence] = confusionSize;
+            for (int r = previous.confusionOffsets[sentence]; r < previous.confusionOffsets[sentence + 1]; r++) {
+                int k = r * CONFUSION_FIELDS;
+                addConfusion(sentence, previousClass[previous.confusions[k]], previousClass[previous.confusions[k + 1]],
+                        previous.confusions[k + 2], previous.confusions[k + 3]);
+            }
+        }
+
+
+        /**
+         * 重新解析并计算 [from, to) 范围内的句子
+         */
+        void recompute(String truePath, String predPath, SentenceScanner.SentenceHashes trueHashes,
+                       SentenceScanner.SentenceHashes predHashes, int from, int to) throws IOException {
+            try (BioSentenceReader trueReader = open(truePath, trueHashes, from, to);
+                 BioSentenceReader predReader = open(predPath, predHashes, from, to)) {
+                for (int s = from; s < to; s++) {
+                    boolean hasTruth = trueReader != null && s < trueHashes.count() && trueReader.next(truth);
+                    boolean hasPred = predReader != null && s < predHashes.count() && predReader.next(pred);
+                    offsets[s] = contribSize;
+                    accept(s, hasTruth ? truth : null, hasPred ? pred : null);
+                    changed++;
+                }
+            }
+        }
+
+
+        private BioSentenceReader open(String path, SentenceScanner.SentenceHashes hashes, int from, int to) throws IOException {
+            if (from >= hashes.count()) {
+                return null;
+            }
+            int last = Math.min(to, hashes.count()) - 1;
+            return new BioSentenceReader(BioTokenizer.open(path, hashes.start(from), hashes.end(last)), dictionary, false);
+        }
+
+
+        /**
+         * 计算一个句子对的贡献，与 {@link MetricsAccumulator#accept} 的规则一致
+         */
+        private void accept(int sentence, BioSentence truth, BioSentence pred) {
+            int first = contribSize;
+            index.clear();
+            if (truth != null) {
+                for (int t = 0; t < truth.spanCount; t++) {
+                    index.add(0, truth.spanStart[t], truth.spanEnd[t], truth.spanClass[t]);
+                    // 先取得位置再访问数组，slot可能扩容
+                    int k = slot(first, truth.spanClass[t]);
+                    contribFn[k]++;
+                }
+            }
+            if (pred != null) {
+                for (int p = 0; p < pred.spanCount; p++) {
+                    int classId = pred.spanClass[p];
+                    int k = slot(first, classId);
+                    if (index.consume(0, pred.spanStart[p], pred.spanEnd[p], classId)) {
+                        contribTp[k]++;
+                        contribFn[k]--;
+                    } else {
+                        contribFp[k]++;
+                    }
+                }
+            }
+            for (int k = first; k < contribSize; k++) {
+                total(contribClass[k], contribTp[k], contribFp[k], contribFn[k]);
+            }
+
+            Arrays.fill(cases, 0);
+            confusionOffsets[sentence] = confusionSize;
+            if (truth != null && pred != null) {
+                overlapMatcher.match(truth.spanStart, truth.spanEnd, truth.spanClass, truth.spanCount, pred, cases);
+                for (int i = 0; i < overlapMatcher.confusedCount(); i++) {
+                    int p = overlapMatcher.confusedPred(i);
+                    addConfusion(sentence, overlapMatcher.confusedClass(i), pred.spanClass[p], pred.spanStart[p], pred.spanEnd[p]);
+                }
+            } else if (truth != null) {
+                cases[OverlapMatcher.MISSED] = truth.spanCount;
+            } else {
+                cases[OverlapMatcher.SPURIOUS] = pred.spanCount;
+            }
+            recordOverlap(sentence);
+
+            if (truth == null || pred == null) {
+                record(sentence, 0, 0, truth != null ? truth.tokenCount : pred.tokenCount);
+            } else if (truth.tokenCount != pred.tokenCount) {
+                aligner.align(truth.wordHash, truth.tags, truth.tokenCount, pred.wordHash, pred.tags, pred.tokenCount);
+                record(sentence, aligner.tn(), aligner.realigned(), aligner.unmatched());
+            } else {
+                int sentenceTn = 0;
+                for (int i = 0; i < truth.tokenCount; i++) {
+                    if (truth.tags[i] == LabelDictionary.OUTSIDE && pred.tags[i] == LabelDictionary.OUTSIDE) {
+                        sentenceTn++;
+                    }
+                }
+                record(sentence, sentenceTn, 0, 0);
+            }
+        }
+
+
+        /**
+         * 查找当前句子中某个类别的贡献位置，不存在时新建
+         */
+        private int slot(int first, int classId) {
+            for (int k = first; k < contribSize; k++) {
+                if (contribClass[k] == classId) {
+                    return k;
+                }
+            }
+            ensureContrib();
+            contribClass[contribSize] = classId;
+            contribTp[contribSize] = 0;
+            contribFp[contribSize] = 0;
+            contribFn[contribSize] = 0;
+            return contribSize++;
+        }
+
+
+        private void add(int classId, int tpCount, int fpCount, int fnCount) {
+            ensureContrib();
+            contribClass[contribSize] = classId;
+            contribTp[contribSize] = tpCount;
+            contribFp[contribSize] = fpCount;
+            contribFn[contribSize] = fnCount;
+            contribSize++;
+            total(classId, tpCount, fpCount, fnCount);
+        }
+
+
+        private void total(int classId, int tpCount, int fpCount, int fnCount) {
+            if (classId >= tp.length) {
+                int capacity = Math.max(tp.length * 2, classId + 1);
+                tp = Arrays.copyOf(tp, capacity);
+                fp = Arrays.copyOf(fp, capacity);
+                fn = Arrays.copyOf(fn, capacity);
+            }
+            tp[classId] += tpCount;
+            fp[classId] += fpCount;
+            fn[classId] += fnCount;
+        }
+
+
+        private void record(int sentence, int sentenceTn, int realigned, int unmatched) {
+            sentenceTN[sentence] = sentenceTn;
+            sentenceRealigned[sentence] = realigned;
+            sentenceUnmatched[sentence] = unmatched;
+            tn += sentenceTn;
+            realignedTokens += realigned;
+            unmatchedTokens += unmatched;
+        }
+
+
+        /**
+         * 记录当前句子边界重叠匹配的计数
+         */
+        private void recordOverlap(int sentence) {
+            for (int i = 0; i < OverlapMatcher.CASES; i++) {
+                sentenceOverlap[sentence * OverlapMatcher.CASES + i] = (int) cases[i];
+                overlapCases[i] += cases[i];
+            }
+        }
+
+
+        /**
+         * 记录当前句子一个边界一致、类别不同的实体对
+         */
+        private void addConfusion(int sentence, int trueClass, int predClass, int start, int end) {
+            if ((confusionSize + 1) * CONFUSION_FIELDS > confusions.length) {
+                confusions = Arrays.copyOf(confusions, confusions.length * 2);
+            }
+            int k = confusionSize++ * CONFUSION_FIELDS;
+            confusions[k] = trueClass;
+            confusions[k + 1] = predClass;
+            confusions[k + 2] = start;
+            confusions[k + 3] = end;
+            confusion.add(trueClass, predClass, sentence, start, end);
+        }
+
+
+        private void ensureContrib() {
+            if (contribSize == contribClass.length) {
+                int capacity = contribSize * 2;
+                contribClass = Arrays.copyOf(contribClass, capacity);
+                contribTp = Arrays.copyOf(contribTp, capacity);
+                contribFp = Arrays.copyOf(contribFp, capacity);
+                contribFn = Arrays.copyOf(contribFn, capacity);
+            }
+        }
+
+
+        /**
+         * 向评估进度上报自上次以来的增量
+         * @param bytes 已处理句子在两个文件中的结束位置之和
+         * @param sentences 已处理的句子数
+         */
+        void reportProgress(EvaluationProgress progress, long bytes, int sentences) {
+            long totalTp = 0;
+            long totalPred = 0;
+            long totalTruth = 0;
+            for (int c = 0; c < tp.length; c++) {
+                totalTp += tp[c];
+                totalPred += tp[c] + fp[c];
+                totalTruth += tp[c] + fn[c];
+            }
+            progress.add(bytes - reportedBytes, sentences - reportedSentences,
+                    totalTp - reportedTp, totalPred - reportedPred, totalTruth - reportedTruth);
+            reportedSentences = sentences;
+            reportedBytes = bytes;
+            reportedTp = totalTp;
+            reportedPred = totalPred;
+            reportedTruth = totalTruth;
+        }
+
+
+        void finish() {
+            offsets[sentenceCount] = contribSize;
+            confusionOffsets[sentenceCount] = confusionSize;
+        }
+
+
+        String[] classNames() {
+            String[] names = new String[dictionary.classCount()];
+            for (int c = 0; c < names.length; c++) {
+                names[c] = dictionary.className(c);
+            }
+            return names;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.iecas.evaluate.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 22:25
+ * @Description: 标签字典，解析时将每个BIO标签和实体类别映射为连续的整数id，
+ * 之后的匹配与计数全部基于id进行。非线程安全，同一次评估的真实文件与预测文件共用一个字典
+ */
+public class LabelDictionary {
+
+    /**
+     * 标签 "O" 固定为0号标签
+     */
+    public static final int OUTSIDE = 0;
+
+    /**
+     * 标签类型: O
+     */
+    public static final int KIND_OUTSIDE = 0;
+
+    /**
+     * 标签类型: B-xxx
+     */
+    public static final int KIND_BEGIN = 1;
+
+    /**
+     * 标签类型: I-xxx
+     */
+    public static final int KIND_INSIDE = 2;
+
+    /**
+     * 标签类型: 其余无法识别的标签，按实体中断处理
+     */
+    public static final int KIND_OTHER = 3;
+
+    private final List<String> classNames = new ArrayList<>();
+
+    private final Map<String, Integer> classIds = new HashMap<>();
+
+    private byte[][] tagBytes = new byte[16][];
+
+    private int[] tagKind = new int[16];
+
+    private int[] tagClass = new int[16];
+
+    private int[] tagHash = new int[16];
+
+    private int tagCount;
+
+    /**
+     * 标签哈希表，存放 标签id + 1，0表示空槽
+     */
+    private int[] slots = new int[64];
+
+
+    public LabelDictionary() {
+        tagId("O".getBytes(StandardCharsets.UTF_8));
+    }
+
+
+    /**
+     * 获取实体类别id，不存在时新建
+     * @param clazz 实体类别名称
+     * @return 类别id
+     */
+    public int classId(String clazz) {
+        Integer id = classIds.get(clazz);
+        if (id == null) {
+            id = classNames.size();
+            classIds.put(clazz, id);
+            classNames.add(clazz);
+        }
+        return id;
+    }
+
+
+    /**
+     * 查询实体类别id
+     * @param clazz 实体类别名称
+     * @return 类别id，不存在时返回-1
+     */
+    public int findClassId(String clazz) {
+        Integer id = classIds.get(clazz);
+        return id == null ? -1 : id;
+    }
+
+
+    public String className(int classId) {
+        return classNames.get(classId);
+    }
+
+
+    public int classCount() {
+        return classNames.size();
+    }
+
+
+    /**
+     * 按标签的UTF-8字节获取标签id，直接读取缓冲区，已存在的标签不会产生任何对象
+     * @param buffer 字节缓冲区
+     * @param start 标签起始位置
+     * @param end 标签结束位置
+     * @return 标签id
+     */
+    public int tagId(ByteBuffer buffer, int start, int end) {
+        int hash = 1;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + buffer.get(i);
+        }
+        int slot = mix(hash) & (slots.length - 1);
+        int entry;
+        while ((entry = slots[slot]) != 0) {
+            int id = entry - 1;
+            if (tagHash[id] == hash && sameBytes(tagBytes[id], buffer, start, end)) {
+                return id;
+            }
+            slot = (slot + 1) & (slots.length - 1);
+        }
+        byte[] bytes = new byte[end - start];
+        for (int i = start; i < end; i++) {
+            bytes[i - start] = buffer.get(i);
+        }
+        return register(bytes, hash);
+    }
+
+
+    /**
+     * 按标签字节获取标签id
+     */
+    public int tagId(byte[] label) {
+        return tagId(ByteBuffer.wrap(label), 0, label.length);
+    }
+
+
+    /**
+     * 按标签文本获取标签id
+     */
+    public int tagId(String label) {
+        return tagId(label.getBytes(StandardCharsets.UTF_8));
+    }
+
+
+    public int tagKind(int tagId) {
+        return tagKind[tagId];
+    }
+
+
+    /**
+     * 标签对应的实体类别id，O及无法识别的标签返回-1
+     */
+    public int tagClass(int tagId) {
+        return tagClass[tagId];
+    }
+
+
+    public String tagName(int tagId) {
+        return new String(tagBytes[tagId], StandardCharsets.UTF_8);
+    }
+
+
+    public int tagCount() {
+        return tagCount;
+    }
+
+
+    private int register(byte[] bytes, int hash) {
+        int id = tagCount++;
+        if (id == tagBytes.length) {
+            int capacity = id * 2;
+            tagBytes = Arrays.copyOf(tagBytes, capacity);
+            tagKind = Arrays.copyOf(tagKind, capacity);
+            tagClass = Arrays.copyOf(tagClass, capacity);
+            tagHash = Arrays.copyOf(tagHash, capacity);
+        }
+        tagBytes[id] = bytes;
+        tagHash[id] = hash;
+        if (bytes.length == 1 && bytes[0] == 'O') {
+            tagKind[id] = KIND_OUTSIDE;
+            tagClass[id] = -1;
+        } else if (bytes.length >= 2 && (bytes[0] == 'B' || bytes[0] == 'I') && bytes[1] == '-') {
+            tagKind[id] = bytes[0] == 'B' ? KIND_BEGIN : KIND_INSIDE;
+            tagClass[id] = classId(new String(bytes, 2, bytes.length - 2, StandardCharsets.UTF_8));
+        } else {
+            tagKind[id] = KIND_OTHER;
+            tagClass[id] = -1;
+        }
+
+        if (tagCount * 2 > slots.length) {
+            slots = new int[slots.length * 2];
+            for (int i = 0; i < tagCount; i++) {
+                insert(i);
+            }
+        } else {
+            insert(id);
+        }
+        return id;
+    }
+
+
+    private void insert(int id) {
+        int slot = mix(tagHash[id]) & (slots.length - 1);
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & (slots.length - 1);
+        }
+        slots[slot] = id + 1;
+    }
+
+
+    private static boolean sameBytes(byte[] bytes, ByteBuffer buffer, int start, int end) {
+        if (bytes.length != end - start) {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != buffer.get(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,63 @@
+package com.iecas.evaluate.utils;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 23:16
+ * @Description: SemEval 2013 风格的实体匹配方式，与默认的严格匹配结果一同输出
+ */
+public enum MatchMode {
+
+    /**
+     * 边界与类别都一致
+     */
+    STRICT,
+
+    /**
+     * 边界一致，不考虑类别
+     */
+    EXACT,
+
+    /**
+     * 边界有重叠即可，不考虑类别，边界不完全一致的计为部分正确
+     */
+    PARTIAL,
+
+    /**
+     * 边界有重叠且类别一致
+     */
+    TYPE;
+
+
+    /**
+     * 请求与结果中使用的名称
+     */
+    public String key() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+
+    /**
+     * 解析请求中的匹配方式
+     * @param names 匹配方式名称，不区分大小写，可为null
+     * @return 匹配方式集合
+     * @throws IllegalArgumentException 存在未知的匹配方式
+     */
+    public static EnumSet<MatchMode> parse(List<String> names) {
+        EnumSet<MatchMode> modes = EnumSet.noneOf(MatchMode.class);
+        if (names == null) {
+            return modes;
+        }
+        for (String name : names) {
+            try {
+                modes.add(valueOf(name.trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("未知的匹配方式: " + name + ", 可选 strict/exact/partial/type");
+            }
+        }
+        return modes;
+    }
+}
@@ -0,0 +1,632 @@
+package com.iecas.evaluate.utils;
+
+import com.iecas.evaluate.pojo.entity.ConfusionResult;
+import com.iecas.evaluate.pojo.entity.MetricsResult;
+import com.iecas.evaluate.pojo.entity.SubMetricsResult;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.IntBuffer;
+import java.util.*;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 22:19
+ * @Description: 评估计数累加器，逐句累积每个类别的TP/FP/FN以及TN，最终生成评估结果
+ */
+@Slf4j
+public class MetricsAccumulator {
+
+    /**
+     * 标签字典，计数数组按其中的类别id索引
+     */
+    private final LabelDictionary dictionary;
+
+    private int[] tp = new int[16];
+
+    private int[] fp = new int[16];
+
+    private int[] fn = new int[16];
+
+    /**
+     * 句内匹配使用的索引，逐句复用
+     */
+    private final SpanIndex sentenceIndex = new SpanIndex();
+
+    /**
+     * 真负例数量
+     */
+    private long tn;
+
+    /**
+     * 按词文本重新对齐的token对数，以及未能配对、不参与TN统计的token数
+     */
+    private long realignedTokens, unmatchedTokens;
+
+    /**
+     * 句内token数不一致时使用的对齐器，逐句复用
+     */
+    private final TokenAligner aligner = new TokenAligner();
+
+    /**
+     * 边界重叠匹配中各情形的计数，见 {@link OverlapMatcher}
+     */
+    private final long[] overlapCases = new long[OverlapMatcher.CASES];
+
+    private final OverlapMatcher overlapMatcher = new OverlapMatcher();
+
+    /**
+     * 边界一致、类别不同的实体对，按类别组合计数并按需保留样例；不记录混淆矩阵时为null
+     */
+    private final ConfusionMatrix confusion;
+
+    /**
+     * 下一个句子在文件中的序号，分片评估时由分片的第一个句子开始
+     */
+    private long sentence;
+
+    /**
+     * 读取量统计，只用于发布指标
+     */
+    private long truthTokens, predTokens, truthSpans, predSpans, truthBytes, predBytes;
+
+    /**
+     * 已上报到评估进度的TP、预测实体数与真实实体数
+     */
+    private long reportedTp, reportedPred, reportedTruth;
+
+
+    public MetricsAccumulator(LabelDictionary dictionary) {
+        this(dictionary, ConfusionLevel.SAMPLES);
+    }
+
+
+    /**
+     * @param dictionary 标签字典
+     * @param confusionLevel 记录混淆矩阵的程度
+     */
+    public MetricsAccumulator(LabelDictionary dictionary, ConfusionLevel confusionLevel) {
+        this.dictionary = dictionary;
+        this.confusion = confusionLevel == ConfusionLevel.NONE ? null : new ConfusionMatrix(confusionLevel == ConfusionLevel.SAMPLES);
+    }
+
+
+    /**
+     * 对两个实体表做一次线性严格匹配，得到每个类别的计数
+     * @param truth 真实实体表
+     * @param pred 预测实体表
+     * @return 评估计数
+     */
+    public static MetricsAccumulator match(EntityTable truth, EntityTable pred) {
+        // 两个表可能使用不同的字典，统一映射到新的字典中，不修改输入的表
+        LabelDictionary dictionary = new LabelDictionary();
+        MetricsAccumulator accumulator = new MetricsAccumulator(dictionary, ConfusionLevel.NONE);
+        int[] trueClass = remap(truth.getDictionary(), dictionary);
+        int[] predClass = remap(pred.getDictionary(), dictionary);
+        accumulator.grow(dictionary.classCount());
+
+        SpanIndex index = new SpanIndex(truth.size());
+        for (int row = 0; row < truth.size(); row++) {
+            int classId = trueClass[truth.classId(row)];
+            index.add(truth.sentence(row), truth.start(row), truth.end(row), classId);
+            accumulator.fn[classId]++;
+        }
+        for (int row = 0; row < pred.size(); row++) {
+            int classId = predClass[pred.classId(row)];
+            accumulator.count(classId, index.consume(pred.sentence(row), pred.start(row), pred.end(row), classId));
+        }
+        return accumulator;
+    }
+
+
+    private static int[] remap(LabelDictionary from, LabelDictionary to) {
+        int[] mapping = new int[from.classCount()];
+        for (int c = 0; c < mapping.length; c++) {
+            mapping[c] = to.classId(from.className(c));
+        }
+        return mapping;
+    }
+
+
+    /**
+     * 累积一对句子的评估结果
+     * @param truth 真实句子
+     * @param pred 预测句子
+     */
+    public void accept(BioSentence truth, BioSentence pred) {
+        countRead(truth, pred);
+        sentenceIndex.clear();
+        for (int t = 0; t < truth.spanCount; t++) {
+            int classId = grow(truth.spanClass[t]);
+            sentenceIndex.add(0, truth.spanStart[t], truth.spanEnd[t], classId);
+            fn[classId]++;
+        }
+        for (int p = 0; p < pred.spanCount; p++) {
+            int classId = grow(pred.spanClass[p]);
+            count(classId, sentenceIndex.consume(0, pred.spanStart[p], pred.spanEnd[p], classId));
+        }
+        overlapMatcher.match(truth.spanStart, truth.spanEnd, truth.spanClass, truth.spanCount, pred, overlapCases);
+        recordConfusion(pred);
+
+        // 计算TN，token数不一致时按词文本对齐后再计算
+        if (truth.tokenCount != pred.tokenCount) {
+            align(truth.wordHash, truth.tags, truth.tokenCount, pred);
+            return;
+        }
+        for (int i = 0; i < truth.tokenCount; i++) {
+            if (truth.tags[i] == LabelDictionary.OUTSIDE && pred.tags[i] == LabelDictionary.OUTSIDE) {
+                tn++;
+            }
+        }
+    }
+
+
+    /**
+     * 按词文本对齐一对token数不一致的句子，累加配对token的TN以及对齐统计
+     * @param trueHash 真实句子每个token的词哈希
+     * @param trueTags 真实句子每个token的标签id，只区分是否为O
+     * @param trueCount 真实句子的token数
+     * @param pred 预测句子
+     */
+    void align(int[] trueHash, int[] trueTags, int trueCount, BioSentence pred) {
+        aligner.align(trueHash, trueTags, trueCount, pred.wordHash, pred.tags, pred.tokenCount);
+        tn += aligner.tn();
+        addAlignment(aligner.realigned(), aligner.unmatched());
+    }
+
+
+    /**
+     * 按边界重叠匹配列式存储的一句真实实体
+     * @param from 该句第一个真实实体的序号
+     * @param to 该句最后一个真实实体的序号（不含）
+     * @param pred 预测句子
+     */
+    void matchOverlap(IntBuffer trueStart, IntBuffer trueEnd, IntBuffer trueClass, int from, int to, BioSentence pred) {
+        overlapMatcher.match(trueStart, trueEnd, trueClass, from, to, pred, overlapCases);
+        recordConfusion(pred);
+    }
+
+
+    /**
+     * 将最近一次边界重叠匹配中边界一致、类别不同的实体对计入混淆矩阵
+     */
+    private void recordConfusion(BioSentence pred) {
+        if (confusion == null) {
+            return;
+        }
+        for (int i = 0; i < overlapMatcher.confusedCount(); i++) {
+            int p = overlapMatcher.confusedPred(i);
+            confusion.add(overlapMatcher.confusedClass(i), pred.spanClass[p], sentence - 1, pred.spanStart[p], pred.spanEnd[p]);
+        }
+    }
+
+
+    /**
+     * 合并另一份混淆矩阵
+     * @param other 混淆矩阵
+     * @param mapping other中的类别id到本字典类别id的映射
+     */
+    void addConfusion(ConfusionMatrix other, int[] mapping) {
+        if (confusion != null) {
+            confusion.merge(other, mapping);
+        }
+    }
+
+
+    /**
+     * 设置第一个句子在文件中的序号，用于分片评估
+     */
+    void startAt(long firstSentence) {
+        sentence = firstSentence;
+    }
+
+
+    /**
+     * 累加边界重叠匹配中各情形的计数
+     */
+    void addOverlapCases(long[] cases) {
+        for (int i = 0; i < OverlapMatcher.CASES; i++) {
+            overlapCases[i] += cases[i];
+        }
+    }
+
+
+    /**
+     * 只记录边界重叠匹配中的某一情形
+     */
+    void addOverlapCase(int overlapCase, long count) {
+        overlapCases[overlapCase] += count;
+    }
+
+
+    /**
+     * 只有一侧存在的句子（另一侧文件已结束）
+     * @param truth 真实句子，可为null
+     * @param pred 预测句子，可为null
+     */
+    public void acceptUnpaired(BioSentence truth, BioSentence pred) {
+        countRead(truth, pred);
+        if (truth != null) {
+            unmatchedTokens += truth.tokenCount;
+            overlapCases[OverlapMatcher.MISSED] += truth.spanCount;
+            for (int t = 0; t < truth.spanCount; t++) {
+                fn[grow(truth.spanClass[t])]++;
+            }
+        }
+        if (pred != null) {
+            unmatchedTokens += pred.tokenCount;
+            overlapCases[OverlapMatcher.SPURIOUS] += pred.spanCount;
+            for (int p = 0; p < pred.spanCount; p++) {
+                fp[grow(pred.spanClass[p])]++;
+            }
+        }
+    }
+
+
+    /**
+     * 合并另一份计数，两者的字典可以不同，按类别名称对齐。
+     * 按数据顺序依次合并时，类别的先后顺序与串行计算一致
+     * @param other 另一份评估计数
+     */
+    public void merge(MetricsAccumulator other) {
+        int[] mapping = remap(other.dictionary, dictionary);
+        grow(dictionary.classCount());
+        for (int c = 0; c < other.classCount(); c++) {
+            int target = mapping[c];
+            tp[target] += other.tp[c];
+            fp[target] += other.fp[c];
+            fn[target] += other.fn[c];
+        }
+        tn += other.tn;
+        realignedTokens += other.realignedTokens;
+        unmatchedTokens += other.unmatchedTokens;
+        addOverlapCases(other.overlapCases);
+        if (confusion != null && other.confusion != null) {
+            confusion.merge(other.confusion, mapping);
+        }
+        sentence = Math.max(sentence, other.sentence);
+        truthTokens += other.truthTokens;
+        predTokens += other.predTokens;
+        truthSpans += other.truthSpans;
+        predSpans += other.predSpans;
+        truthBytes += other.truthBytes;
+        predBytes += other.predBytes;
+        reportedTp += other.reportedTp;
+        reportedPred += other.reportedPred;
+        reportedTruth += other.reportedTruth;
+    }
+
+
+    /**
+     * 累计读取的句子、token与实体数，每个句子序号调用一次
+     * @param truth 真实句子，可为null
+     * @param pred 预测句子，可为null
+     */
+    void countRead(BioSentence truth, BioSentence pred) {
+        sentence++;
+        if (truth != null) {
+            truthTokens += truth.tokenCount;
+            truthSpans += truth.spanCount;
+        }
+        if (pred != null) {
+            predTokens += pred.tokenCount;
+            predSpans += pred.spanCount;
+        }
+    }
+
+
+    /**
+     * 累计读取的字节数
+     */
+    void countBytes(long truthBytes, long predBytes) {
+        this.truthBytes += truthBytes;
+        this.predBytes += predBytes;
+    }
+
+
+    long bytesRead() {
+        return truthBytes + predBytes;
+    }
+
+
+    /**
+     * 向评估进度上报新读取的字节与句子，以及自上次上报以来的微平均计数增量，真实实体数取已读取的真实句子中的实体数
+     * @param progress 评估进度
+     * @param bytes 新读取的字节数
+     * @param sentences 新处理的句子数
+     */
+    void reportProgress(EvaluationProgress progress, long bytes, int sentences) {
+        reportProgress(progress, bytes, sentences, truthSpans);
+    }
+
+
+    /**
+     * 向评估进度上报进度与微平均计数增量
+     * @param trueEntities 已处理句子中的真实实体总数，只读取预测文件的评估由调用方给出
+     */
+    void reportProgress(EvaluationProgress progress, long bytes, int sentences, long trueEntities) {
+        long totalTp = 0;
+        for (int count : tp) {
+            totalTp += count;
+        }
+        progress.add(bytes, sentences, totalTp - reportedTp, predSpans - reportedPred, trueEntities - reportedTruth);
+        reportedTp = totalTp;
+        reportedPred = predSpans;
+        reportedTruth = trueEntities;
+    }
+
+
+    /**
+     * 发布读取量指标
+     */
+    void publishCounts() {
+        StageMetrics.count(StageMetrics.SIDE_TRUTH, truthTokens, truthSpans, truthBytes);
+        StageMetrics.count(StageMetrics.SIDE_PRED, predTokens, predSpans, predBytes);
+    }
+
+
+    /**
+     * 记录一个预测实体的匹配结果，不影响FN
+     */
+    void recordPrediction(int classId, boolean matched) {
+        grow(classId);
+        if (matched) {
+            tp[classId]++;
+        } else {
+            fp[classId]++;
+        }
+    }
+
+
+    /**
+     * 由真实实体总数与已匹配数量得到FN
+     * @param classId 类别id
+     * @param trueCount 该类别的真实实体总数
+     */
+    void completeFalseNegatives(int classId, int trueCount) {
+        grow(classId);
+        fn[classId] = trueCount - tp[classId];
+    }
+
+
+    /**
+     * 直接累加某个类别的计数
+     */
+    void addCounts(int classId, int tp, int fp, int fn) {
+        grow(classId);
+        this.tp[classId] += tp;
+        this.fp[classId] += fp;
+        this.fn[classId] += fn;
+    }
+
+
+    void addTN(long count) {
+        tn += count;
+    }
+
+
+    /**
+     * 累加对齐统计
+     * @param realigned 按词文本重新对齐的token对数
+     * @param unmatched 未能配对的token数
+     */
+    void addAlignment(long realigned, long unmatched) {
+        realignedTokens += realigned;
+        unmatchedTokens += unmatched;
+    }
+
+
+    /**
+     * 记录一个预测实体的匹配结果，真实实体预先计入FN，匹配成功时转为TP
+     */
+    private void count(int classId, boolean matched) {
+        if (matched) {
+            tp[classId]++;
+            fn[classId]--;
+        } else {
+            fp[classId]++;
+        }
+    }
+
+
+    /**
+     * 确保计数数组能容纳给定的类别id
+     */
+    private int grow(int classId) {
+        if (classId >= tp.length) {
+            int capacity = Math.max(tp.length * 2, classId + 1);
+            tp = Arrays.copyOf(tp, capacity);
+            fp = Arrays.copyOf(fp, capacity);
+            fn = Arrays.copyOf(fn, capacity);
+        }
+        return classId;
+    }
+
+
+    /**
+     * 获取TN，只统计两侧配对上的token
+     * @return TN数量
+     */
+    public long getTN() {
+        return tn;
+    }
+
+
+    public long getRealignedTokens() {
+        return realignedTokens;
+    }
+
+
+    public long getUnmatchedTokens() {
+        return unmatchedTokens;
+    }
+
+
+    /**
+     * 生成完整评估结果，包含微平均、宏平均以及每个类别的结果
+     * @return 评估结果
+     */
+    public MetricsResult toMetricsResult() {
+        MetricsResult result = new MetricsResult();
+        long TN = getTN();
+        if (unmatchedTokens > 0 || realignedTokens > 0) {
+            log.warn("文本token不一致, 按词文本重新对齐 {} 个token, {} 个token未能配对, 不计入TN", realignedTokens, unmatchedTokens);
+        }
+        result.setRealignedTokens(realignedTokens);
+        result.setUnmatchedTokens(unmatchedTokens);
+        result.setMatchModes(OverlapMatcher.toResults(overlapCases));
+        result.setConfusion(toConfusionResult());
+
+        StageMetrics.Sample sample = StageMetrics.start();
+        SubMetricsResult microMetrics = toMicroMetrics();
+        microMetrics.calculateAccuracy(TN);
+        result.setMicro(microMetrics);
+        StageMetrics.stop(sample, StageMetrics.STAGE_MICRO, bytesRead());
+
+        sample = StageMetrics.start();
+        SubMetricsResult macroMetrics = toMacroMetrics();
+        fillMacroCounts(macroMetrics, microMetrics, TN);
+        result.setMacro(macroMetrics);
+        StageMetrics.stop(sample, StageMetrics.STAGE_MACRO, bytesRead());
+
+        sample = StageMetrics.start();
+        result.setPreClassResult(toPerClassMetrics());
+        StageMetrics.stop(sample, StageMetrics.STAGE_PER_CLASS, bytesRead());
+        return result;
+    }
+
+
+    /**
+     * 生成轻量级评估结果，即宏平均结果
+     * @return 评估结果
+     */
+    public SubMetricsResult toLightMetrics() {
+        long TN = getTN();
+        StageMetrics.Sample sample = StageMetrics.start();
+        SubMetricsResult microMetrics = toMicroMetrics();
+        microMetrics.calculateAccuracy(TN);
+        StageMetrics.stop(sample, StageMetrics.STAGE_MICRO, bytesRead());
+
+        sample = StageMetrics.start();
+        SubMetricsResult macroMetrics = toMacroMetrics();
+        fillMacroCounts(macroMetrics, microMetrics, TN);
+        StageMetrics.stop(sample, StageMetrics.STAGE_MACRO, bytesRead());
+        return macroMetrics;
+    }
+
+
+    /**
+     * 微平均结果
+     */
+    public SubMetricsResult toMicroMetrics() {
+        int sumTP = 0, sumFP = 0, sumFN = 0;
+        for (int c = 0; c < classCount(); c++) {
+            sumTP += tp[c];
+            sumFP += fp[c];
+            sumFN += fn[c];
+        }
+        SubMetricsResult result = new SubMetricsResult();
+        fill(result, sumTP, sumFP, sumFN);
+        return result;
+    }
+
+
+    /**
+     * 宏平均结果，只统计真实实体中出现过的类别
+     */
+    public SubMetricsResult toMacroMetrics() {
+        SubMetricsResult result = new SubMetricsResult();
+        double sumPrecision = 0, sumRecall = 0, sumF1 = 0;
+        int classCount = 0;
+        for (int c = 0; c < classCount(); c++) {
+            if (tp[c] + fn[c] == 0) {
+                continue;
+            }
+            SubMetricsResult sub = new SubMetricsResult();
+            fill(sub, tp[c], fp[c], fn[c]);
+            sumPrecision += sub.getPrecision();
+            sumRecall += sub.getRecall();
+            sumF1 += sub.getF1();
+            classCount++;
+        }
+        result.setPrecision(sumPrecision / classCount);
+        result.setRecall(sumRecall / classCount);
+        result.setF1(sumF1 / classCount);
+        return result;
+    }
+
+
+    /**
+     * 每个类别的结果
+     */
+    public List<SubMetricsResult> toPerClassMetrics() {
+        List<SubMetricsResult> resultList = new ArrayList<>(classCount());
+        for (int c = 0; c < classCount(); c++) {
+            // 只在标签中出现、没有形成任何实体的类别不输出
+            if (tp[c] + fp[c] + fn[c] == 0) {
+                continue;
+            }
+            SubMetricsResult subResult = new SubMetricsResult();
+            fill(subResult, tp[c], fp[c], fn[c]);
+            subResult.setClazz(dictionary.className(c));
+            resultList.add(subResult);
+        }
+        return resultList;
+    }
+
+
+    /**
+     * 混淆矩阵结果，类别与每个类别的结果一致
+     * @return 混淆矩阵结果，不记录混淆矩阵时为null
+     */
+    public ConfusionResult toConfusionResult() {
+        if (confusion == null) {
+            return null;
+        }
+        int[] classes = new int[classCount()];
+        int n = 0;
+        for (int c = 0; c < classCount(); c++) {
+            if (tp[c] + fp[c] + fn[c] > 0) {
+                classes[n++] = c;
+            }
+        }
+        return confusion.toResult(dictionary, Arrays.copyOf(classes, n), tp, fp, fn);
+    }
+
+
+    LabelDictionary getDictionary() {
+        return dictionary;
+    }
+
+
+    private int classCount() {
+        return Math.min(dictionary.classCount(), tp.length);
+    }
+
+
+    /**
+     * 宏平均结果的TP/FP/FN与准确率取微平均的计数
+     */
+    static void fillMacroCounts(SubMetricsResult macroMetrics, SubMetricsResult microMetrics, long TN) {
+        macroMetrics.setFP(microMetrics.getFP());
+        macroMetrics.setTP(microMetrics.getTP());
+        macroMetrics.setFN(microMetrics.getFN());
+        macroMetrics.calculateAccuracy(TN);
+    }
+
+
+    /**
+     * 按计数填充精确率、召回率与F1，计数可超出int范围
+     */
+    static void fill(SubMetricsResult result, long tp, long fp, long fn) {
+        double precision = tp + fp == 0 ? 0.0 : (double) tp / (tp + fp);
+        double recall = tp + fn == 0 ? 0.0 : (double) tp / (tp + fn);
+        double f1 = precision + recall == 0 ? 0.0 : 2 * precision * recall / (precision + recall);
+
+        result.setTP(tp);
+        result.setFP(fp);
+        result.setFN(fn);
+        result.setPrecision(precision);
+        result.setRecall(recall);
+        result.setF1(f1);
+    }
+}
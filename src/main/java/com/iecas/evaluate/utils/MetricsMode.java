@@ -0,0 +1,55 @@
+package com.iecas.evaluate.utils;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 22:34
+ * @Description: 评估方式，用于区分不同接口的缓存结果
+ */
+public final class MetricsMode {
+
+    /**
+     * 完整评估结果 {@link EntityMetricsUtils#calculateMetrics(String, String)}
+     */
+    public static final String FULL = "full";
+
+    /**
+     * 包含混淆矩阵计数的完整评估结果
+     */
+    public static final String FULL_CONFUSION = "full-confusion";
+
+    /**
+     * 包含混淆矩阵计数与错误样例的完整评估结果
+     */
+    public static final String FULL_SAMPLES = "full-samples";
+
+    /**
+     * 轻量级评估结果 {@link EntityMetricsUtils#calculateLightMetrics(String, String)}
+     */
+    public static final String LIGHT = "light";
+
+    /**
+     * 空天模型评估结果 {@link EntityMetricsUtils#calculateIecasTextMetrics(String, String)}
+     */
+    public static final String IECAS = "iecas";
+
+
+    private MetricsMode() {
+    }
+
+
+    /**
+     * 完整评估结果按记录混淆矩阵的程度分别缓存，不需要混淆矩阵的请求不记录样例
+     * @param confusionLevel 记录混淆矩阵的程度
+     * @return 评估方式
+     */
+    public static String full(ConfusionLevel confusionLevel) {
+        switch (confusionLevel) {
+            case SAMPLES:
+                return FULL_SAMPLES;
+            case COUNTS:
+                return FULL_CONFUSION;
+            default:
+                return FULL;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.iecas.evaluate.utils;
+
+import com.iecas.evaluate.pojo.entity.OnlineMetricsResult;
+import com.iecas.evaluate.pojo.entity.SubMetricsResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 23:46
+ * @Description: 内存中的在线评估，持续接收(真实, 预测)句子对，按最近5分钟、1小时、24小时三个滑动窗口统计。
+ * 每批句子先在本地完成匹配，再将各类别的计数累加到每个窗口的当前时间桶；类别名称到id的映射全局共享，
+ * 各窗口的类别id一致。线程安全
+ */
+public class OnlineEvaluator {
+
+    /**
+     * 窗口名称，与 {@link #windows} 一一对应
+     */
+    public static final List<String> WINDOWS = Arrays.asList("5m", "1h", "24h");
+
+    private final SlidingWindowCounts[] windows;
+
+    private final int maxClasses;
+
+    private final ConcurrentMap<String, Integer> classIds = new ConcurrentHashMap<>();
+
+    private final AtomicReferenceArray<String> classNames;
+
+    private final AtomicInteger nextClassId = new AtomicInteger();
+
+
+    /**
+     * @param maxClasses 类别数上限
+     */
+    public OnlineEvaluator(int maxClasses) {
+        this.maxClasses = maxClasses;
+        this.classNames = new AtomicReferenceArray<>(maxClasses);
+        this.windows = new SlidingWindowCounts[]{
+                // 5分钟：30个10秒的桶
+                new SlidingWindowCounts(10_000L, 30, maxClasses),
+                // 1小时：60个1分钟的桶
+                new SlidingWindowCounts(60_000L, 60, maxClasses),
+                // 24小时：96个15分钟的桶
+                new SlidingWindowCounts(900_000L, 96, maxClasses)
+        };
+    }
+
+
+    /**
+     * 评估一批句子对并计入各时间窗口，匹配规则与文件评估一致
+     * @param trueTags 每个句子的真实标签
+     * @param predTags 每个句子的预测标签，与真实标签按token一一对应
+     * @param now 当前时间（毫秒）
+     * @throws IllegalArgumentException 句子两侧标签数不一致，或类别数超过上限
+     */
+    public void ingest(List<List<String>> trueTags, List<List<String>> predTags, long now) {
+        LabelDictionary dictionary = new LabelDictionary();
+        MetricsAccumulator accumulator = new MetricsAccumulator(dictionary, ConfusionLevel.NONE);
+        BioSentence truth = new BioSentence();
+        BioSentence pred = new BioSentence();
+        for (int i = 0; i < trueTags.size(); i++) {
+            if (trueTags.get(i).size() != predTags.get(i).size()) {
+                throw new IllegalArgumentException("第 " + i + " 个句子的真实标签与预测标签数量不一致");
+            }
+            truth.decode(trueTags.get(i), dictionary);
+            pred.decode(predTags.get(i), dictionary);
+            accumulator.accept(truth, pred);
+        }
+        // 先登记全部类别，超出上限时整批不计入
+        List<SubMetricsResult> perClass = accumulator.toPerClassMetrics();
+        int[] ids = new int[perClass.size()];
+        for (int k = 0; k < ids.length; k++) {
+            ids[k] = classId(perClass.get(k).getClazz());
+        }
+        for (SlidingWindowCounts window : windows) {
+            SlidingWindowCounts.Bucket bucket = window.current(now);
+            bucket.addSentences(trueTags.size(), accumulator.getTN());
+            for (int k = 0; k < ids.length; k++) {
+                SubMetricsResult counts = perClass.get(k);
+                bucket.addCounts(ids[k], (long) counts.getTP(), (long) counts.getFP(), (long) counts.getFN());
+            }
+        }
+    }
+
+
+    /**
+     * 计算某个时间窗口内的微平均、宏平均以及每个类别的结果
+     * @param window 窗口名称，见 {@link #WINDOWS}
+     * @param now 当前时间（毫秒）
+     * @return 窗口内的评估结果
+     * @throws IllegalArgumentException 未知的窗口名称
+     */
+    public OnlineMetricsResult snapshot(String window, long now) {
+        int index = WINDOWS.indexOf(window);
+        if (index < 0) {
+            throw new IllegalArgumentException("未知的时间窗口: " + window + "，可选 " + String.join("/", WINDOWS));
+        }
+        int classCount = Math.min(nextClassId.get(), maxClasses);
+        long[] counts = new long[classCount * SlidingWindowCounts.FIELDS];
+        long[] totals = new long[2];
+        windows[index].sum(now, classCount, counts, totals);
+
+        // 长时间窗口内的计数可能超出int范围，直接由long计数计算，规则与 MetricsAccumulator 一致；
+        // 按全局类别id的顺序输出，与首次出现的顺序一致
+        long sumTp = 0, sumFp = 0, sumFn = 0;
+        double sumPrecision = 0, sumRecall = 0, sumF1 = 0;
+        int macroClasses = 0;
+        List<SubMetricsResult> perClass = new ArrayList<>();
+        for (int c = 0; c < classCount; c++) {
+            String className = classNames.get(c);
+            int k = c * SlidingWindowCounts.FIELDS;
+            long tp = counts[k], fp = counts[k + 1], fn = counts[k + 2];
+            if (className == null || tp + fp + fn == 0) {
+                continue;
+            }
+            sumTp += tp;
+            sumFp += fp;
+            sumFn += fn;
+            SubMetricsResult sub = new SubMetricsResult();
+            MetricsAccumulator.fill(sub, tp, fp, fn);
+            sub.setClazz(className);
+            perClass.add(sub);
+            // 宏平均只统计真实实体中出现过的类别
+            if (tp + fn > 0) {
+                sumPrecision += sub.getPrecision();
+                sumRecall += sub.getRecall();
+                sumF1 += sub.getF1();
+                macroClasses++;
+            }
+        }
+        long tn = totals[1];
+        SubMetricsResult micro = new SubMetricsResult();
+        MetricsAccumulator.fill(micro, sumTp, sumFp, sumFn);
+        micro.calculateAccuracy(tn);
+        SubMetricsResult macro = new SubMetricsResult();
+        macro.setPrecision(sumPrecision / macroClasses);
+        macro.setRecall(sumRecall / macroClasses);
+        macro.setF1(sumF1 / macroClasses);
+        MetricsAccumulator.fillMacroCounts(macro, micro, tn);
+
+        OnlineMetricsResult result = new OnlineMetricsResult();
+        result.setWindow(window);
+        result.setWindowMillis(windows[index].getWindowMillis());
+        result.setSentences(totals[0]);
+        result.setMicro(micro);
+        result.setMacro(macro);
+        result.setPreClassResult(perClass);
+        return result;
+    }
+
+
+    /**
+     * 类别名称对应的全局id，首次出现时分配
+     */
+    private int classId(String className) {
+        return classIds.computeIfAbsent(className, name -> {
+            int id = nextClassId.getAndIncrement();
+            if (id >= maxClasses) {
+                throw new IllegalArgumentException("在线评估的类别数超过上限: " + maxClasses);
+            }
+            classNames.set(id, name);
+            return id;
+        });
+    }
+}
@@ -0,0 +1,241 @@
+package com.iecas.evaluate.utils;
+
+import com.iecas.evaluate.pojo.entity.MatchModeResult;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 23:16
+ * @Description: 句内实体边界重叠匹配。同一句内的真实实体互不重叠且按起始位置递增，结束位置同样递增，
+ * 对每个预测实体二分查找第一个结束位置不早于其起始位置的真实实体，再向后扫描到起始位置超过其结束位置为止，
+ * 一句的复杂度为 O(m log n + 重叠数)。每个预测实体按最优的重叠情况归入一种情形，
+ * 没有被任何预测实体重叠的真实实体计为遗漏，各匹配方式的计数都由这几种情形的数量得到。
+ * 实例保存最近一次匹配中边界一致、类别不同的实体对，供混淆矩阵使用，可逐句复用，非线程安全
+ */
+public class OverlapMatcher {
+
+    /**
+     * 边界与类别都一致
+     */
+    public static final int EXACT_TYPE = 0;
+
+    /**
+     * 边界一致，类别不同
+     */
+    public static final int EXACT_BOUNDARY = 1;
+
+    /**
+     * 边界重叠但不一致，类别相同
+     */
+    public static final int OVERLAP_TYPE = 2;
+
+    /**
+     * 边界重叠但不一致，类别不同
+     */
+    public static final int OVERLAP = 3;
+
+    /**
+     * 预测实体没有与任何真实实体重叠
+     */
+    public static final int SPURIOUS = 4;
+
+    /**
+     * 真实实体没有被任何预测实体重叠
+     */
+    public static final int MISSED = 5;
+
+    public static final int CASES = 6;
+
+    private boolean[] touched = new boolean[16];
+
+    /**
+     * 真实实体列的逐句拷贝，用于 {@link ParsedTruth}
+     */
+    private int[] starts = new int[16], ends = new int[16], classes = new int[16];
+
+    /**
+     * 最近一次匹配中边界一致、类别不同的预测实体序号，以及对应真实实体的类别id
+     */
+    private int[] confusedPred = new int[16], confusedClass = new int[16];
+
+    private int confusedCount;
+
+
+    /**
+     * 匹配一句的实体，按情形累加计数
+     * @param trueStart 真实实体起始位置，按起始位置递增
+     * @param trueEnd 真实实体结束位置（含）
+     * @param trueClass 真实实体类别id
+     * @param trueCount 真实实体数
+     * @param pred 预测句子，类别id需与真实实体使用同一字典
+     * @param cases 各情形的计数，长度为 {@link #CASES}
+     */
+    void match(int[] trueStart, int[] trueEnd, int[] trueClass, int trueCount, BioSentence pred, long[] cases) {
+        if (touched.length < trueCount) {
+            touched = new boolean[Math.max(touched.length * 2, trueCount)];
+        }
+        Arrays.fill(touched, 0, trueCount, false);
+        confusedCount = 0;
+        for (int p = 0; p < pred.spanCount; p++) {
+            int start = pred.spanStart[p];
+            int end = pred.spanEnd[p];
+            int classId = pred.spanClass[p];
+            int best = SPURIOUS;
+            for (int k = firstEndingAfter(trueEnd, trueCount, start); k < trueCount && trueStart[k] <= end; k++) {
+                touched[k] = true;
+                int found;
+                if (trueStart[k] == start && trueEnd[k] == end) {
+                    found = trueClass[k] == classId ? EXACT_TYPE : EXACT_BOUNDARY;
+                } else {
+                    found = trueClass[k] == classId ? OVERLAP_TYPE : OVERLAP;
+                }
+                if (found == EXACT_BOUNDARY) {
+                    addConfused(p, trueClass[k]);
+                }
+                best = Math.min(best, found);
+            }
+            cases[best]++;
+        }
+        for (int k = 0; k < trueCount; k++) {
+            if (!touched[k]) {
+                cases[MISSED]++;
+            }
+        }
+    }
+
+
+    /**
+     * 匹配列式存储的一句真实实体
+     * @param from 该句第一个真实实体的序号
+     * @param to 该句最后一个真实实体的序号（不含）
+     */
+    void match(IntBuffer trueStart, IntBuffer trueEnd, IntBuffer trueClass, int from, int to, BioSentence pred, long[] cases) {
+        int count = to - from;
+        confusedCount = 0;
+        if (pred.spanCount == 0) {
+            cases[MISSED] += count;
+            return;
+        }
+        if (starts.length < count) {
+            int capacity = Math.max(starts.length * 2, count);
+            starts = new int[capacity];
+            ends = new int[capacity];
+            classes = new int[capacity];
+        }
+        for (int k = 0; k < count; k++) {
+            starts[k] = trueStart.get(from + k);
+            ends[k] = trueEnd.get(from + k);
+            classes[k] = trueClass.get(from + k);
+        }
+        match(starts, ends, classes, count, pred, cases);
+    }
+
+
+    private void addConfused(int predIndex, int trueClassId) {
+        if (confusedCount == confusedPred.length) {
+            confusedPred = Arrays.copyOf(confusedPred, confusedCount * 2);
+            confusedClass = Arrays.copyOf(confusedClass, confusedCount * 2);
+        }
+        confusedPred[confusedCount] = predIndex;
+        confusedClass[confusedCount++] = trueClassId;
+    }
+
+
+    /**
+     * 最近一次匹配中边界一致、类别不同的实体对数
+     */
+    int confusedCount() {
+        return confusedCount;
+    }
+
+
+    /**
+     * 第i个边界一致、类别不同的实体对中预测实体的序号
+     */
+    int confusedPred(int i) {
+        return confusedPred[i];
+    }
+
+
+    /**
+     * 第i个边界一致、类别不同的实体对中真实实体的类别id
+     */
+    int confusedClass(int i) {
+        return confusedClass[i];
+    }
+
+
+    /**
+     * 第一个结束位置不小于start的真实实体
+     */
+    private static int firstEndingAfter(int[] trueEnd, int trueCount, int start) {
+        int low = 0, high = trueCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (trueEnd[mid] < start) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+
+    /**
+     * 由各情形的计数得到每种匹配方式的结果
+     * @param cases 各情形的计数
+     * @return 按匹配方式名称排列的结果
+     */
+    public static Map<String, MatchModeResult> toResults(long[] cases) {
+        Map<String, MatchModeResult> results = new LinkedHashMap<>();
+        for (MatchMode mode : MatchMode.values()) {
+            results.put(mode.key(), toResult(mode, cases));
+        }
+        return results;
+    }
+
+
+    private static MatchModeResult toResult(MatchMode mode, long[] cases) {
+        long correct, incorrect, partial = 0;
+        switch (mode) {
+            case STRICT:
+                correct = cases[EXACT_TYPE];
+                incorrect = cases[EXACT_BOUNDARY] + cases[OVERLAP_TYPE] + cases[OVERLAP];
+                break;
+            case EXACT:
+                correct = cases[EXACT_TYPE] + cases[EXACT_BOUNDARY];
+                incorrect = cases[OVERLAP_TYPE] + cases[OVERLAP];
+                break;
+            case PARTIAL:
+                correct = cases[EXACT_TYPE] + cases[EXACT_BOUNDARY];
+                incorrect = 0;
+                partial = cases[OVERLAP_TYPE] + cases[OVERLAP];
+                break;
+            default:
+                correct = cases[EXACT_TYPE] + cases[OVERLAP_TYPE];
+                incorrect = cases[EXACT_BOUNDARY] + cases[OVERLAP];
+        }
+        MatchModeResult result = new MatchModeResult();
+        result.setCorrect(correct);
+        result.setIncorrect(incorrect);
+        result.setPartial(partial);
+        result.setMissed(cases[MISSED]);
+        result.setSpurious(cases[SPURIOUS]);
+        long possible = correct + incorrect + partial + cases[MISSED];
+        long actual = correct + incorrect + partial + cases[SPURIOUS];
+        result.setPossible(possible);
+        result.setActual(actual);
+        double score = correct + 0.5 * partial;
+        double precision = actual == 0 ? 0.0 : score / actual;
+        double recall = possible == 0 ? 0.0 : score / possible;
+        result.setPrecision(precision);
+        result.setRecall(recall);
+        result.setF1(precision + recall == 0 ? 0.0 : 2 * precision * recall / (precision + recall));
+        return result;
+    }
+}
@@ -0,0 +1,252 @@
+package com.iecas.evaluate.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 22:29
+ * @Description: 按句分片的并行评估引擎。严格匹配不会跨越句子，因此将两个文件切分为句子对齐的分片，
+ * 各分片在ForkJoinPool上独立评估后按顺序合并计数，结果与串行评估完全一致
+ */
+@Slf4j
+public class ParallelBioEvaluator {
+
+    /**
+     * 小于该大小的文件直接串行评估
+     */
+    static final long MIN_PARALLEL_BYTES = 4L << 20;
+
+    /**
+     * 单个分片的最大字节数
+     */
+    static final long MAX_CHUNK_BYTES = 1L << 30;
+
+    /**
+     * 每个线程分配的分片数，用于平衡各分片的耗时差异
+     */
+    static final int CHUNKS_PER_THREAD = 4;
+
+
+    /**
+     * 并行评估两个BIO文件
+     * @param truePath 真实实体文件路径
+     * @param predPath 预测实体文件路径
+     * @param pool 执行评估的线程池
+     * @param progress 评估进度，可为null
+     * @return 评估计数
+     */
+    public static MetricsAccumulator evaluate(String truePath, String predPath, ForkJoinPool pool, EvaluationProgress progress) {
+        return evaluate(truePath, predPath, pool, progress, ConfusionLevel.SAMPLES);
+    }
+
+
+    /**
+     * 并行评估两个BIO文件
+     * @param truePath 真实实体文件路径
+     * @param predPath 预测实体文件路径
+     * @param pool 执行评估的线程池
+     * @param progress 评估进度，可为null
+     * @param confusionLevel 记录混淆矩阵的程度
+     * @return 评估计数
+     */
+    public static MetricsAccumulator evaluate(String truePath, String predPath, ForkJoinPool pool, EvaluationProgress progress,
+                                              ConfusionLevel confusionLevel) {
+        StageMetrics.Sample sample = StageMetrics.start();
+        List<long[]> chunks;
+        try {
+            chunks = split(truePath, predPath, pool);
+        } catch (IOException e) {
+            log.error("读取文件错误", e);
+            throw new RuntimeException(e.getMessage());
+        }
+        if (chunks.size() <= 1) {
+            return BioStreamEvaluator.evaluate(truePath, predPath, progress, confusionLevel);
+        }
+        MetricsAccumulator accumulator;
+        try {
+            accumulator = pool.invoke(new ChunkTask(truePath, predPath, chunks, progress, confusionLevel, 0, chunks.size()));
+        } catch (UncheckedIOException e) {
+            log.error("读取文件错误", e.getCause());
+            throw new RuntimeException(e.getCause().getMessage());
+        }
+        StageMetrics.stop(sample, StageMetrics.STAGE_EVALUATE, accumulator.bytesRead());
+        accumulator.publishCounts();
+        return accumulator;
+    }
+
+
+    /**
+     * 切分为句子对齐的分片
+     * @return 每个分片为 {真实文件起始, 真实文件结束, 预测文件起始, 预测文件结束, 第一个句子的序号}
+     */
+    static List<long[]> split(String truePath, String predPath, ForkJoinPool pool) throws IOException {
+        List<long[]> chunks = new ArrayList<>();
+        if (CompressedInput.isCompressed(truePath) || CompressedInput.isCompressed(predPath)) {
+            // 压缩文件无法按字节偏移切分，串行评估
+            return chunks;
+        }
+        long trueSize, predSize;
+        try (SentenceScanner trueScanner = new SentenceScanner(truePath);
+             SentenceScanner predScanner = new SentenceScanner(predPath)) {
+            trueSize = trueScanner.size();
+            predSize = predScanner.size();
+        }
+        if (trueSize + predSize < MIN_PARALLEL_BYTES) {
+            return chunks;
+        }
+        int count = (int) Math.max((long) pool.getParallelism() * CHUNKS_PER_THREAD,
+                Math.max(trueSize, predSize) / MAX_CHUNK_BYTES + 1);
+
+        // 两个文件各自按字节大致均分，并统计每段的句子数
+        long[] trueBounds = bounds(truePath, trueSize, count);
+        long[] predBounds = bounds(predPath, predSize, count);
+        long[] trueFirst = prefixSentences(truePath, trueBounds, pool);
+        long[] predFirst = prefixSentences(predPath, predBounds, pool);
+
+        // 以真实文件的分段为准，在预测文件中定位相同序号的句子
+        long[] predOffsets = pool.submit(() -> locate(predPath, predBounds, predFirst, trueFirst)).join();
+
+        for (int k = 0; k + 1 < trueBounds.length; k++) {
+            long predEnd = k + 2 < trueBounds.length ? predOffsets[k + 1] : predSize;
+            chunks.add(new long[]{trueBounds[k], trueBounds[k + 1], predOffsets[k], predEnd, trueFirst[k]});
+        }
+        return chunks;
+    }
+
+
+    /**
+     * 按字节均分后对齐到句首，去掉重复的边界
+     */
+    static long[] bounds(String path, long size, int count) throws IOException {
+        List<Long> bounds = new ArrayList<>();
+        try (SentenceScanner scanner = new SentenceScanner(path)) {
+            bounds.add(0L);
+            for (int k = 1; k < count; k++) {
+                long start = scanner.nextSentenceStart(size * k / count);
+                if (start > bounds.get(bounds.size() - 1) && start < size) {
+                    bounds.add(start);
+                }
+            }
+        }
+        bounds.add(size);
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+
+    /**
+     * 并行统计每段的句子数，返回每段第一个句子的序号
+     */
+    static long[] prefixSentences(String path, long[] bounds, ForkJoinPool pool) {
+        long[] first = new long[bounds.length];
+        long[] counts = pool.submit(() -> IntStream.range(0, bounds.length - 1).parallel()
+                .mapToLong(k -> {
+                    try (SentenceScanner scanner = new SentenceScanner(path)) {
+                        return scanner.countSentences(bounds[k], bounds[k + 1]);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }).toArray()).join();
+        for (int k = 0; k < counts.length; k++) {
+            first[k + 1] = first[k] + counts[k];
+        }
+        return first;
+    }
+
+
+    /**
+     * 在预测文件中定位真实文件每段第一个句子对应的句首
+     */
+    private static long[] locate(String path, long[] bounds, long[] first, long[] targets) {
+        return IntStream.range(0, targets.length - 1).parallel().mapToLong(k -> {
+            long target = targets[k];
+            int segment = bounds.length - 2;
+            while (segment > 0 && first[segment] > target) {
+                segment--;
+            }
+            if (target >= first[bounds.length - 1]) {
+                return bounds[bounds.length - 1];
+            }
+            try (SentenceScanner scanner = new SentenceScanner(path)) {
+                return scanner.skipSentences(bounds[segment], target - first[segment]);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).toArray();
+    }
+
+
+    /**
+     * 分片评估任务，二分拆分后按顺序合并
+     */
+    private static class ChunkTask extends RecursiveTask<MetricsAccumulator> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String truePath;
+
+        private final String predPath;
+
+        private final List<long[]> chunks;
+
+        private final EvaluationProgress progress;
+
+        private final ConfusionLevel confusionLevel;
+
+        private final int from;
+
+        private final int to;
+
+
+        ChunkTask(String truePath, String predPath, List<long[]> chunks, EvaluationProgress progress,
+                  ConfusionLevel confusionLevel, int from, int to) {
+            this.truePath = truePath;
+            this.predPath = predPath;
+            this.chunks = chunks;
+            this.progress = progress;
+            this.confusionLevel = confusionLevel;
+            this.from = from;
+            this.to = to;
+        }
+
+
+        @Override
+        protected MetricsAccumulator compute() {
+            if (to - from == 1) {
+                return evaluateChunk(chunks.get(from));
+            }
+            int mid = (from + to) >>> 1;
+            ChunkTask right = new ChunkTask(truePath, predPath, chunks, progress, confusionLevel, mid, to);
+            right.fork();
+            MetricsAccumulator left = new ChunkTask(truePath, predPath, chunks, progress, confusionLevel, from, mid).compute();
+            left.merge(right.join());
+            return left;
+        }
+
+
+        private MetricsAccumulator evaluateChunk(long[] chunk) {
+            LabelDictionary dictionary = new LabelDictionary();
+            MetricsAccumulator accumulator = new MetricsAccumulator(dictionary, confusionLevel);
+            accumulator.startAt(chunk[4]);
+            try (BioSentenceReader trueReader = new BioSentenceReader(BioTokenizer.open(truePath, chunk[0], chunk[1]), dictionary, false);
+                 BioSentenceReader predReader = new BioSentenceReader(BioTokenizer.open(predPath, chunk[2], chunk[3]), dictionary, false)) {
+                BioStreamEvaluator.evaluate(trueReader, predReader, accumulator, progress);
+                accumulator.countBytes(trueReader.consumed(), predReader.consumed());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return accumulator;
+        }
+    }
+}
@@ -0,0 +1,460 @@
+package com.iecas.evaluate.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 22:38
+ * @Description: 解析后的真实文件，按列保存真实实体、每个类别的实体数、每句的token偏移、O标签掩码以及每个token的词哈希。
+ * 各列可以是堆内数组，也可以直接映射自 {@link BioIndexFile} 写出的索引文件。
+ * 构建完成后只读，可被多个评估同时使用，同一份真实文件对应多个预测文件时只需解析预测文件
+ */
+@Slf4j
+public class ParsedTruth {
+
+    /**
+     * 类别名称，下标即类别id
+     */
+    final String[] classNames;
+
+    /**
+     * 每个类别的真实实体数
+     */
+    final int[] classTotals;
+
+    final int sentenceCount;
+
+    /**
+     * 每个句子第一个实体的序号，长度为句子数+1
+     */
+    final IntBuffer spanOffsets;
+
+    /**
+     * 实体列，同一句内按起始位置递增排列。BIO标注中同一句内的实体互不重叠，起始位置不会重复
+     */
+    final IntBuffer spanStart;
+
+    final IntBuffer spanEnd;
+
+    final IntBuffer spanClass;
+
+    /**
+     * 每个句子第一个token的全局序号，长度为句子数+1
+     */
+    final LongBuffer tokenOffsets;
+
+    /**
+     * 按全局token序号排列的位图，标签为O的位置为1
+     */
+    final LongBuffer outsideMask;
+
+    /**
+     * 按全局token序号排列的词哈希，预测句子token数不一致时用于按词文本对齐
+     */
+    final IntBuffer tokenHash;
+
+    final long fileBytes;
+
+
+    ParsedTruth(String[] classNames, int[] classTotals, int sentenceCount, IntBuffer spanOffsets,
+                IntBuffer spanStart, IntBuffer spanEnd, IntBuffer spanClass,
+                LongBuffer tokenOffsets, LongBuffer outsideMask, IntBuffer tokenHash, long fileBytes) {
+        this.classNames = classNames;
+        this.classTotals = classTotals;
+        this.sentenceCount = sentenceCount;
+        this.spanOffsets = spanOffsets;
+        this.spanStart = spanStart;
+        this.spanEnd = spanEnd;
+        this.spanClass = spanClass;
+        this.tokenOffsets = tokenOffsets;
+        this.outsideMask = outsideMask;
+        this.tokenHash = tokenHash;
+        this.fileBytes = fileBytes;
+    }
+
+
+    /**
+     * 解析真实文件
+     * @param truePath 真实实体文件路径
+     * @return 解析结果
+     * @throws IOException 文件读取异常
+     */
+    public static ParsedTruth parse(String truePath) throws IOException {
+        return parse(BioTokenizer.open(truePath));
+    }
+
+
+    /**
+     * 从输入流解析真实文件，流由调用方关闭
+     * @param input BIO格式内容
+     * @return 解析结果
+     * @throws IOException 读取异常
+     */
+    public static ParsedTruth parse(InputStream input) throws IOException {
+        return parse(BioTokenizer.open(input));
+    }
+
+
+    private static ParsedTruth parse(BioTokenizer tokenizer) throws IOException {
+        StageMetrics.Sample sample = StageMetrics.start();
+        LabelDictionary dictionary = new LabelDictionary();
+        int[] totals = new int[16];
+        int[] spanOffsets = new int[1024];
+        int[] starts = new int[1024];
+        int[] ends = new int[1024];
+        int[] classes = new int[1024];
+        long[] offsets = new long[1024];
+        long[] mask = new long[1024];
+        int[] hashes = new int[1024];
+        long tokens = 0;
+        int spans = 0;
+        int sentenceCount = 0;
+        long fileBytes;
+
+        BioSentence sentence = new BioSentence();
+        try (BioSentenceReader reader = new BioSentenceReader(tokenizer, dictionary, false)) {
+            while (reader.next(sentence)) {
+                if (spans + sentence.spanCount > starts.length) {
+                    int capacity = Math.max(starts.length * 2, spans + sentence.spanCount);
+                    starts = Arrays.copyOf(starts, capacity);
+                    ends = Arrays.copyOf(ends, capacity);
+                    classes = Arrays.copyOf(classes, capacity);
+                }
+                for (int t = 0; t < sentence.spanCount; t++) {
+                    int classId = sentence.spanClass[t];
+                    if (classId >= totals.length) {
+                        totals = Arrays.copyOf(totals, Math.max(totals.length * 2, classId + 1));
+                    }
+                    starts[spans] = sentence.spanStart[t];
+                    ends[spans] = sentence.spanEnd[t];
+                    classes[spans] = classId;
+                    spans++;
+                    totals[classId]++;
+                }
+                long words = (tokens + sentence.tokenCount + 63) >>> 6;
+                if (words > mask.length) {
+                    mask = Arrays.copyOf(mask, (int) Math.max(mask.length * 2L, words));
+                }
+                if (tokens + sentence.tokenCount > hashes.length) {
+                    hashes = Arrays.copyOf(hashes, (int) Math.max(hashes.length * 2L, tokens + sentence.tokenCount));
+                }
+                System.arraycopy(sentence.wordHash, 0, hashes, (int) tokens, sentence.tokenCount);
+                for (int i = 0; i < sentence.tokenCount; i++) {
+                    if (sentence.tags[i] == LabelDictionary.OUTSIDE) {
+                        long bit = tokens + i;
+                        mask[(int) (bit >>> 6)] |= 1L << bit;
+                    }
+                }
+                if (sentenceCount + 1 >= offsets.length) {
+                    offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                    spanOffsets = Arrays.copyOf(spanOffsets, offsets.length);
+                }
+                offsets[sentenceCount] = tokens;
+                spanOffsets[sentenceCount + 1] = spans;
+                tokens += sentence.tokenCount;
+                sentenceCount++;
+            }
+            fileBytes = reader.consumed();
+        }
+        offsets[sentenceCount] = tokens;
+        StageMetrics.stop(sample, StageMetrics.STAGE_PARSE_TRUTH, fileBytes);
+        StageMetrics.count(StageMetrics.SIDE_TRUTH, tokens, spans, fileBytes);
+
+        String[] classNames = new String[dictionary.classCount()];
+        for (int c = 0; c < classNames.length; c++) {
+            classNames[c] = dictionary.className(c);
+        }
+        return new ParsedTruth(classNames, Arrays.copyOf(totals, classNames.length), sentenceCount,
+                IntBuffer.wrap(spanOffsets, 0, sentenceCount + 1).slice(),
+                IntBuffer.wrap(starts, 0, spans).slice(), IntBuffer.wrap(ends, 0, spans).slice(),
+                IntBuffer.wrap(classes, 0, spans).slice(),
+                LongBuffer.wrap(offsets, 0, sentenceCount + 1).slice(),
+                LongBuffer.wrap(mask, 0, (int) ((tokens + 63) >>> 6)).slice(),
+                IntBuffer.wrap(hashes, 0, (int) tokens).slice(), fileBytes);
+    }
+
+
+    /**
+     * 使用已解析的真实文件评估预测文件
+     * @param predPath 预测实体文件路径
+     * @param pool 执行评估的线程池，为null时串行评估
+     * @param progress 评估进度，可为null，真实文件部分直接计为已读取
+     * @return 评估计数
+     */
+    public MetricsAccumulator evaluate(String predPath, ForkJoinPool pool, EvaluationProgress progress) {
+        return evaluate(predPath, pool, progress, ConfusionLevel.SAMPLES);
+    }
+
+
+    /**
+     * 使用已解析的真实文件评估预测文件
+     * @param predPath 预测实体文件路径
+     * @param pool 执行评估的线程池，为null时串行评估
+     * @param progress 评估进度，可为null，真实文件部分直接计为已读取
+     * @param confusionLevel 记录混淆矩阵的程度
+     * @return 评估计数
+     */
+    public MetricsAccumulator evaluate(String predPath, ForkJoinPool pool, EvaluationProgress progress, ConfusionLevel confusionLevel) {
+        StageMetrics.Sample sample = StageMetrics.start();
+        if (progress != null) {
+            progress.add(fileBytes, 0);
+        }
+        try {
+            long predSize;
+            try (SentenceScanner scanner = new SentenceScanner(predPath)) {
+                predSize = scanner.size();
+            }
+            MetricsAccumulator accumulator;
+            long predSentences;
+            if (pool == null || predSize < ParallelBioEvaluator.MIN_PARALLEL_BYTES || CompressedInput.isCompressed(predPath)) {
+                accumulator = newAccumulator(confusionLevel);
+                try (BioSentenceReader reader = new BioSentenceReader(BioTokenizer.open(predPath), accumulator.getDictionary(), false)) {
+                    predSentences = evaluateRange(reader, 0, accumulator, progress);
+                }
+            } else {
+                int count = (int) Math.max((long) pool.getParallelism() * ParallelBioEvaluator.CHUNKS_PER_THREAD,
+                        predSize / ParallelBioEvaluator.MAX_CHUNK_BYTES + 1);
+                long[] bounds = ParallelBioEvaluator.bounds(predPath, predSize, count);
+                long[] first = ParallelBioEvaluator.prefixSentences(predPath, bounds, pool);
+                List<MetricsAccumulator> parts = pool.submit(() -> IntStream.range(0, bounds.length - 1).parallel()
+                        .mapToObj(k -> {
+                            MetricsAccumulator part = newAccumulator(confusionLevel);
+                            try {
+                                evaluateRange(predPath, bounds[k], bounds[k + 1], first[k], part, progress);
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                            return part;
+                        }).collect(Collectors.toList())).join();
+                accumulator = parts.get(0);
+                for (int k = 1; k < parts.size(); k++) {
+                    accumulator.merge(parts.get(k));
+                }
+                predSentences = first[bounds.length - 1];
+            }
+            if (progress != null) {
+                // 预测文件句子较少时，剩余真实句子中的实体计入进度的真实实体数
+                progress.add(0, 0, 0, 0, trueSpans(predSentences, sentenceCount));
+            }
+            return complete(accumulator, predSentences, sample);
+        } catch (IOException e) {
+            log.error("读取文件错误", e);
+            throw new RuntimeException(e.getMessage());
+        } catch (UncheckedIOException e) {
+            log.error("读取文件错误", e.getCause());
+            throw new RuntimeException(e.getCause().getMessage());
+        }
+    }
+
+
+    /**
+     * 使用已解析的真实文件评估输入流中的预测内容，边读取边评估，流由调用方关闭
+     * @param input BIO格式的预测内容
+     * @return 评估计数
+     * @throws IOException 读取异常
+     */
+    public MetricsAccumulator evaluate(InputStream input) throws IOException {
+        return evaluate(input, ConfusionLevel.SAMPLES);
+    }
+
+
+    /**
+     * 使用已解析的真实文件评估输入流中的预测内容，边读取边评估，流由调用方关闭
+     * @param input BIO格式的预测内容
+     * @param confusionLevel 记录混淆矩阵的程度
+     * @return 评估计数
+     * @throws IOException 读取异常
+     */
+    public MetricsAccumulator evaluate(InputStream input, ConfusionLevel confusionLevel) throws IOException {
+        StageMetrics.Sample sample = StageMetrics.start();
+        MetricsAccumulator accumulator = newAccumulator(confusionLevel);
+        long predSentences;
+        try (BioSentenceReader reader = new BioSentenceReader(BioTokenizer.open(input), accumulator.getDictionary(), false)) {
+            predSentences = evaluateRange(reader, 0, accumulator, null);
+        }
+        return complete(accumulator, predSentences, sample);
+    }
+
+
+    /**
+     * 由真实实体总数补全FN，预测文件句子较少时剩余真实句子的token计为未配对
+     */
+    private MetricsAccumulator complete(MetricsAccumulator accumulator, long predSentences, StageMetrics.Sample sample) {
+        // 分片中只记录预测实体，FN由真实实体总数得到
+        for (int c = 0; c < classNames.length; c++) {
+            accumulator.completeFalseNegatives(c, classTotals[c]);
+        }
+        if (predSentences < sentenceCount) {
+            accumulator.addAlignment(0, tokenOffsets.get(sentenceCount) - tokenOffsets.get((int) predSentences));
+            accumulator.addOverlapCase(OverlapMatcher.MISSED, spanOffsets.get(sentenceCount) - spanOffsets.get((int) predSentences));
+        }
+        StageMetrics.stop(sample, StageMetrics.STAGE_EVALUATE, accumulator.bytesRead());
+        accumulator.publishCounts();
+        return accumulator;
+    }
+
+
+    /**
+     * 新建计数器，字典中预先按顺序登记真实文件的类别，使类别id与真实文件一致
+     */
+    private MetricsAccumulator newAccumulator(ConfusionLevel confusionLevel) {
+        LabelDictionary dictionary = new LabelDictionary();
+        for (String className : classNames) {
+            dictionary.classId(className);
+        }
+        return new MetricsAccumulator(dictionary, confusionLevel);
+    }
+
+
+    /**
+     * 评估预测文件的一段
+     * @return 该段的句子数
+     */
+    private long evaluateRange(String predPath, long from, long to, long firstSentence,
+                               MetricsAccumulator accumulator, EvaluationProgress progress) throws IOException {
+        try (BioSentenceReader reader = new BioSentenceReader(BioTokenizer.open(predPath, from, to),
+                accumulator.getDictionary(), false)) {
+            return evaluateRange(reader, firstSentence, accumulator, progress);
+        }
+    }
+
+
+    private long evaluateRange(BioSentenceReader reader, long firstSentence,
+                               MetricsAccumulator accumulator, EvaluationProgress progress) throws IOException {
+        BioSentence pred = new BioSentence();
+        long sentence = firstSentence;
+        accumulator.startAt(firstSentence);
+        long reportedBytes = 0;
+        int pending = 0;
+        while (reader.next(pred)) {
+            accept(sentence++, pred, accumulator);
+            if (progress != null && ++pending == EvaluationProgress.REPORT_INTERVAL) {
+                accumulator.reportProgress(progress, reader.consumed() - reportedBytes, pending, trueSpans(firstSentence, sentence));
+                reportedBytes = reader.consumed();
+                pending = 0;
+            }
+        }
+        if (progress != null) {
+            accumulator.reportProgress(progress, reader.consumed() - reportedBytes, pending, trueSpans(firstSentence, sentence));
+        }
+        accumulator.countBytes(0, reader.consumed());
+        return sentence - firstSentence;
+    }
+
+
+    /**
+     * 真实文件中 [from, to) 句子内的实体数，超出真实文件的句子没有实体
+     */
+    private long trueSpans(long from, long to) {
+        return spanOffsets.get((int) Math.min(to, sentenceCount)) - spanOffsets.get((int) Math.min(from, sentenceCount));
+    }
+
+
+    private void accept(long sentence, BioSentence pred, MetricsAccumulator accumulator) {
+        accumulator.countRead(null, pred);
+        if (sentence >= sentenceCount) {
+            // 预测文件句子更多，剩余句子只计入FP
+            for (int p = 0; p < pred.spanCount; p++) {
+                accumulator.recordPrediction(pred.spanClass[p], false);
+            }
+            accumulator.addAlignment(0, pred.tokenCount);
+            accumulator.addOverlapCase(OverlapMatcher.SPURIOUS, pred.spanCount);
+            return;
+        }
+        int s = (int) sentence;
+        for (int p = 0; p < pred.spanCount; p++) {
+            int classId = pred.spanClass[p];
+            accumulator.recordPrediction(classId, classId < classNames.length
+                    && contains(s, pred.spanStart[p], pred.spanEnd[p], classId));
+        }
+        accumulator.matchOverlap(spanStart, spanEnd, spanClass, spanOffsets.get(s), spanOffsets.get(s + 1), pred);
+
+        // 计算TN
+        long offset = tokenOffsets.get(s);
+        int trueCount = (int) (tokenOffsets.get(s + 1) - offset);
+        if (trueCount != pred.tokenCount) {
+            align(offset, trueCount, pred, accumulator);
+            return;
+        }
+        long tn = 0;
+        for (int i = 0; i < pred.tokenCount; i++) {
+            long bit = offset + i;
+            if (pred.tags[i] == LabelDictionary.OUTSIDE && (outsideMask.get((int) (bit >>> 6)) & (1L << bit)) != 0) {
+                tn++;
+            }
+        }
+        accumulator.addTN(tn);
+    }
+
+
+    /**
+     * 取出真实句子的词哈希与O标签后按词文本对齐，只在token数不一致的句子上执行
+     */
+    private void align(long offset, int trueCount, BioSentence pred, MetricsAccumulator accumulator) {
+        int[] hashes = new int[trueCount];
+        int[] tags = new int[trueCount];
+        for (int i = 0; i < trueCount; i++) {
+            long bit = offset + i;
+            hashes[i] = tokenHash.get((int) bit);
+            // 只需区分是否为O标签
+            tags[i] = (outsideMask.get((int) (bit >>> 6)) & (1L << bit)) != 0 ? LabelDictionary.OUTSIDE : -1;
+        }
+        accumulator.align(hashes, tags, trueCount, pred);
+    }
+
+
+    /**
+     * 在句子的实体列中按起始位置二分查找
+     */
+    private boolean contains(int sentence, int start, int end, int classId) {
+        int low = spanOffsets.get(sentence);
+        int high = spanOffsets.get(sentence + 1) - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midStart = spanStart.get(mid);
+            if (midStart < start) {
+                low = mid + 1;
+            } else if (midStart > start) {
+                high = mid - 1;
+            } else {
+                return spanEnd.get(mid) == end && spanClass.get(mid) == classId;
+            }
+        }
+        return false;
+    }
+
+
+    public int getSentenceCount() {
+        return sentenceCount;
+    }
+
+
+    public int getEntityCount() {
+        return spanStart.limit();
+    }
+
+
+    public int getClassCount() {
+        return classNames.length;
+    }
+
+
+    /**
+     * 估算占用的内存字节数
+     */
+    public long estimateBytes() {
+        return 4L * (spanOffsets.capacity() + 3L * spanStart.capacity()) + 8L * tokenOffsets.capacity()
+                + 8L * outsideMask.capacity() + 4L * tokenHash.capacity() + 64L * classNames.length + 64;
+    }
+}
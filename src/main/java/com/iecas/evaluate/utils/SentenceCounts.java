@@ -0,0 +1,174 @@
+package com.iecas.evaluate.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 23:29
+ * @Description: 每个句子对各类别TP/FP/FN的贡献，按句压缩存储，句子i的贡献位于 [offsets[i], offsets[i+1])，
+ * 同一句内按类别id递增排列。只有一侧存在的句子同样按序号记录。用于按句重采样，无需重新匹配实体
+ */
+@Slf4j
+public class SentenceCounts {
+
+    private final LabelDictionary dictionary;
+
+    private int sentenceCount;
+
+    private int[] offsets = new int[1025];
+
+    private int[] classes = new int[1024];
+
+    private int[] tp = new int[1024];
+
+    private int[] fp = new int[1024];
+
+    private int[] fn = new int[1024];
+
+    private int size;
+
+
+    private SentenceCounts(LabelDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+
+    /**
+     * 同步读取真实文件与预测文件，记录每个句子的计数贡献
+     * @param truePath 真实实体文件路径
+     * @param predPath 预测实体文件路径
+     * @param dictionary 标签字典，对比多个预测文件时共用同一个字典，使类别id一致
+     * @return 每句的计数贡献
+     */
+    public static SentenceCounts collect(String truePath, String predPath, LabelDictionary dictionary) {
+        SentenceCounts counts = new SentenceCounts(dictionary);
+        BioSentence truth = new BioSentence();
+        BioSentence pred = new BioSentence();
+        SpanIndex index = new SpanIndex();
+        try (BioSentenceReader trueReader = new BioSentenceReader(truePath, dictionary);
+             BioSentenceReader predReader = new BioSentenceReader(predPath, dictionary)) {
+            boolean hasTruth = trueReader.next(truth);
+            boolean hasPred = predReader.next(pred);
+            while (hasTruth || hasPred) {
+                counts.add(hasTruth ? truth : null, hasPred ? pred : null, index);
+                hasTruth = hasTruth && trueReader.next(truth);
+                hasPred = hasPred && predReader.next(pred);
+            }
+        } catch (IOException e) {
+            log.error("读取文件错误", e);
+            throw new RuntimeException(e.getMessage());
+        }
+        return counts;
+    }
+
+
+    /**
+     * 记录一个句子对的贡献，与 {@link MetricsAccumulator#accept} 的规则一致
+     */
+    private void add(BioSentence truth, BioSentence pred, SpanIndex index) {
+        int first = size;
+        index.clear();
+        if (truth != null) {
+            for (int t = 0; t < truth.spanCount; t++) {
+                index.add(0, truth.spanStart[t], truth.spanEnd[t], truth.spanClass[t]);
+                // 先取得位置再访问数组，slot可能扩容
+                int k = slot(first, truth.spanClass[t]);
+                fn[k]++;
+            }
+        }
+        if (pred != null) {
+            for (int p = 0; p < pred.spanCount; p++) {
+                int classId = pred.spanClass[p];
+                int k = slot(first, classId);
+                if (index.consume(0, pred.spanStart[p], pred.spanEnd[p], classId)) {
+                    tp[k]++;
+                    fn[k]--;
+                } else {
+                    fp[k]++;
+                }
+            }
+        }
+        if (sentenceCount + 2 > offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        offsets[++sentenceCount] = size;
+    }
+
+
+    /**
+     * 查找当前句子中某个类别的位置，不存在时按类别id顺序插入
+     */
+    private int slot(int first, int classId) {
+        int k = first;
+        while (k < size && classes[k] < classId) {
+            k++;
+        }
+        if (k < size && classes[k] == classId) {
+            return k;
+        }
+        if (size == classes.length) {
+            int capacity = size * 2;
+            classes = Arrays.copyOf(classes, capacity);
+            tp = Arrays.copyOf(tp, capacity);
+            fp = Arrays.copyOf(fp, capacity);
+            fn = Arrays.copyOf(fn, capacity);
+        }
+        int moved = size - k;
+        System.arraycopy(classes, k, classes, k + 1, moved);
+        System.arraycopy(tp, k, tp, k + 1, moved);
+        System.arraycopy(fp, k, fp, k + 1, moved);
+        System.arraycopy(fn, k, fn, k + 1, moved);
+        classes[k] = classId;
+        tp[k] = 0;
+        fp[k] = 0;
+        fn[k] = 0;
+        size++;
+        return k;
+    }
+
+
+    public int getSentenceCount() {
+        return sentenceCount;
+    }
+
+
+    LabelDictionary getDictionary() {
+        return dictionary;
+    }
+
+
+    /**
+     * 句子第一个贡献的位置，超出句子数的句子没有贡献
+     */
+    int start(int sentence) {
+        return offsets[Math.min(sentence, sentenceCount)];
+    }
+
+
+    int end(int sentence) {
+        return offsets[Math.min(sentence + 1, sentenceCount)];
+    }
+
+
+    int classId(int k) {
+        return classes[k];
+    }
+
+
+    int tp(int k) {
+        return tp[k];
+    }
+
+
+    int fp(int k) {
+        return fp[k];
+    }
+
+
+    int fn(int k) {
+        return fn[k];
+    }
+}
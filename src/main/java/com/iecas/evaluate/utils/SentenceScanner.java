@@ -0,0 +1,232 @@
+package com.iecas.evaluate.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 22:29
+ * @Description: BIO文件句子边界扫描器，只按字节判断空行，不做任何解码，用于按句切分文件。
+ * 句子的定义与 {@link BioSentenceReader} 一致：连续的非空行为一个句子，句首即前一行为空行的非空行
+ */
+public class SentenceScanner implements Closeable {
+
+    private static final int WINDOW = 1 << 26;
+
+    private final FileChannel channel;
+
+    private final long size;
+
+    private MappedByteBuffer buffer;
+
+    private long base = -1;
+
+    private int limit;
+
+
+    public SentenceScanner(String filePath) throws IOException {
+        this.channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ);
+        this.size = channel.size();
+    }
+
+
+    public long size() {
+        return size;
+    }
+
+
+    /**
+     * 查找不早于from的第一个句首
+     * @param from 起始偏移
+     * @return 句首所在行的起始偏移，不存在时返回文件大小
+     */
+    public long nextSentenceStart(long from) throws IOException {
+        if (from <= 0) {
+            return 0;
+        }
+        // 跳到下一行行首，无法确认上一行是否为空行时，保守地从下一个句首开始
+        long pos = lineEnd(from - 1);
+        boolean prevBlank = false;
+        while (pos < size) {
+            long end = lineEnd(pos);
+            boolean blank = isBlank(pos, end);
+            if (!blank && prevBlank) {
+                return pos;
+            }
+            prevBlank = blank;
+            pos = end;
+        }
+        return size;
+    }
+
+
+    /**
+     * 统计[from, to)之间的句子数量，from需为句首或文件开头
+     */
+    public long countSentences(long from, long to) throws IOException {
+        long count = 0;
+        boolean prevBlank = true;
+        long pos = from;
+        while (pos < to) {
+            long end = lineEnd(pos);
+            boolean blank = isBlank(pos, end);
+            if (!blank && prevBlank) {
+                count++;
+            }
+            prevBlank = blank;
+            pos = end;
+        }
+        return count;
+    }
+
+
+    /**
+     * 从from开始跳过n个句子，返回第n+1个句子的句首
+     * @param from 句首或文件开头
+     * @param n 需要跳过的句子数
+     * @return 句首偏移，句子不足时返回文件大小
+     */
+    public long skipSentences(long from, long n) throws IOException {
+        if (n == 0) {
+            return from;
+        }
+        long count = 0;
+        boolean prevBlank = true;
+        long pos = from;
+        while (pos < size) {
+            long end = lineEnd(pos);
+            boolean blank = isBlank(pos, end);
+            if (!blank && prevBlank && count++ == n) {
+                return pos;
+            }
+            prevBlank = blank;
+            pos = end;
+        }
+        return size;
+    }
+
+
+    /**
+     * 逐句计算内容哈希，同时记录每个句子的字节范围
+     * @return 句子哈希
+     */
+    public SentenceHashes hashSentences() throws IOException {
+        SentenceHashes hashes = new SentenceHashes();
+        boolean prevBlank = true;
+        long hash = 0;
+        long pos = 0;
+        while (pos < size) {
+            long end = lineEnd(pos);
+            boolean blank = isBlank(pos, end);
+            if (!blank) {
+                if (prevBlank) {
+                    hash = 0xCBF29CE484222325L;
+                    hashes.open(pos);
+                }
+                for (long i = pos; i < end; i++) {
+                    hash = (hash ^ get(i)) * 0x100000001B3L;
+                }
+                hashes.extend(end, hash);
+            }
+            prevBlank = blank;
+            pos = end;
+        }
+        return hashes;
+    }
+
+
+    /**
+     * 每个句子的字节范围与内容哈希
+     */
+    public static class SentenceHashes {
+
+        private int count;
+
+        private long[] start = new long[1024];
+
+        private long[] end = new long[1024];
+
+        private long[] hash = new long[1024];
+
+
+        private void open(long from) {
+            if (count == start.length) {
+                start = Arrays.copyOf(start, count * 2);
+                end = Arrays.copyOf(end, count * 2);
+                hash = Arrays.copyOf(hash, count * 2);
+            }
+            start[count++] = from;
+        }
+
+
+        private void extend(long to, long value) {
+            end[count - 1] = to;
+            hash[count - 1] = value;
+        }
+
+
+        public int count() {
+            return count;
+        }
+
+
+        public long start(int sentence) {
+            return start[sentence];
+        }
+
+
+        public long end(int sentence) {
+            return end[sentence];
+        }
+
+
+        public long hash(int sentence) {
+            return hash[sentence];
+        }
+    }
+
+
+    /**
+     * 返回下一行的行首（即换行符之后的位置）
+     */
+    private long lineEnd(long pos) throws IOException {
+        while (pos < size) {
+            if (get(pos++) == '\n') {
+                return pos;
+            }
+        }
+        return size;
+    }
+
+
+    private boolean isBlank(long from, long to) throws IOException {
+        for (long i = from; i < to; i++) {
+            byte b = get(i);
+            if (b < 0 || b > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    private byte get(long pos) throws IOException {
+        if (pos < base || pos >= base + limit) {
+            base = pos;
+            limit = (int) Math.min(WINDOW, size - pos);
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, base, limit);
+        }
+        return buffer.get((int) (pos - base));
+    }
+
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
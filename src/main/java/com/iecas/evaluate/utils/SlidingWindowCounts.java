@@ -0,0 +1,142 @@
+package com.iecas.evaluate.utils;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 23:46
+ * @Description: 按时间分桶的滑动窗口计数。固定数量的桶组成环形数组，每个桶记录一个时间段内的句子数、TN以及各类别的TP/FP/FN，
+ * 计数使用LongAdder，写入不加锁。桶过期后由第一个写入方整体替换为新桶；窗口为最近若干个桶（含当前未满的桶），
+ * 读取时只累加仍在窗口内的桶，代价与类别数成正比，与写入量无关
+ */
+public class SlidingWindowCounts {
+
+    /**
+     * 每个类别的计数个数：TP、FP、FN
+     */
+    static final int FIELDS = 3;
+
+    private final long bucketMillis;
+
+    private final int maxClasses;
+
+    private final AtomicReferenceArray<Bucket> buckets;
+
+
+    /**
+     * @param bucketMillis 每个桶的时长（毫秒）
+     * @param bucketCount 桶的数量
+     * @param maxClasses 类别数上限
+     */
+    public SlidingWindowCounts(long bucketMillis, int bucketCount, int maxClasses) {
+        this.bucketMillis = bucketMillis;
+        this.maxClasses = maxClasses;
+        this.buckets = new AtomicReferenceArray<>(bucketCount);
+    }
+
+
+    /**
+     * 窗口时长（毫秒）
+     */
+    public long getWindowMillis() {
+        return bucketMillis * buckets.length();
+    }
+
+
+    /**
+     * 获取当前时间所在的桶，槽位中是上一轮的桶时替换为新桶。
+     * 槽位只有在整个窗口过去后才会被替换，拿到当前桶的写入方不会写入被替换的桶
+     * @param now 当前时间（毫秒）
+     * @return 当前桶
+     */
+    Bucket current(long now) {
+        long epoch = now / bucketMillis;
+        int slot = (int) (epoch % buckets.length());
+        while (true) {
+            Bucket bucket = buckets.get(slot);
+            // 时钟稍慢的线程遇到已被替换的新桶时直接写入新桶
+            if (bucket != null && bucket.epoch >= epoch) {
+                return bucket;
+            }
+            Bucket fresh = new Bucket(epoch, maxClasses);
+            if (buckets.compareAndSet(slot, bucket, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+
+    /**
+     * 累加窗口内各桶的计数
+     * @param now 当前时间（毫秒）
+     * @param classCount 需要累加的类别数
+     * @param counts 各类别的TP/FP/FN，类别c位于 [c * FIELDS, c * FIELDS + FIELDS)
+     * @param totals 句子数与TN
+     */
+    void sum(long now, int classCount, long[] counts, long[] totals) {
+        long epoch = now / bucketMillis;
+        for (int slot = 0; slot < buckets.length(); slot++) {
+            Bucket bucket = buckets.get(slot);
+            if (bucket == null || bucket.epoch <= epoch - buckets.length() || bucket.epoch > epoch) {
+                continue;
+            }
+            totals[0] += bucket.sentences.sum();
+            totals[1] += bucket.tn.sum();
+            for (int c = 0; c < classCount; c++) {
+                LongAdder[] adders = bucket.classes.get(c);
+                if (adders == null) {
+                    continue;
+                }
+                for (int k = 0; k < FIELDS; k++) {
+                    counts[c * FIELDS + k] += adders[k].sum();
+                }
+            }
+        }
+    }
+
+
+    /**
+     * 一个时间段内的计数
+     */
+    static class Bucket {
+
+        /**
+         * 桶的序号，即起始时间 / 桶时长
+         */
+        private final long epoch;
+
+        private final LongAdder sentences = new LongAdder();
+
+        private final LongAdder tn = new LongAdder();
+
+        /**
+         * 各类别的TP/FP/FN，首次写入时创建
+         */
+        private final AtomicReferenceArray<LongAdder[]> classes;
+
+
+        Bucket(long epoch, int maxClasses) {
+            this.epoch = epoch;
+            this.classes = new AtomicReferenceArray<>(maxClasses);
+        }
+
+
+        void addSentences(long sentenceCount, long tnCount) {
+            sentences.add(sentenceCount);
+            tn.add(tnCount);
+        }
+
+
+        void addCounts(int classId, long tpCount, long fpCount, long fnCount) {
+            LongAdder[] adders = classes.get(classId);
+            if (adders == null) {
+                LongAdder[] created = {new LongAdder(), new LongAdder(), new LongAdder()};
+                adders = classes.compareAndSet(classId, null, created) ? created : classes.get(classId);
+            }
+            adders[0].add(tpCount);
+            adders[1].add(fpCount);
+            adders[2].add(fnCount);
+        }
+    }
+}
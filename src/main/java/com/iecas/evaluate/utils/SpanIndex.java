@@ -0,0 +1,153 @@
+package com.iecas.evaluate.utils;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 22:21
+ * @Description: 实体区间哈希索引，以 (句子, 起始位置, 结束位置, 类别id) 为键的开放寻址表，
+ * 键全部使用基本类型存储，并记录重复实体的数量，用于线性时间完成严格匹配
+ */
+public class SpanIndex {
+
+    /**
+     * 键的高位部分: 句子id << 32 | 类别id
+     */
+    private long[] sentenceClass;
+
+    /**
+     * 键的低位部分: 起始位置 << 32 | 结束位置
+     */
+    private long[] startEnd;
+
+    /**
+     * 每个键尚未被匹配的实体数量
+     */
+    private int[] counts;
+
+    private boolean[] used;
+
+    /**
+     * 已占用的槽位，用于快速清空
+     */
+    private int[] usedSlots;
+
+    private int size;
+
+    private int mask;
+
+
+    public SpanIndex() {
+        this(16);
+    }
+
+
+    public SpanIndex(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2 - 1)) << 1;
+        allocate(capacity);
+    }
+
+
+    private void allocate(int capacity) {
+        sentenceClass = new long[capacity];
+        startEnd = new long[capacity];
+        counts = new int[capacity];
+        used = new boolean[capacity];
+        usedSlots = new int[capacity];
+        mask = capacity - 1;
+        size = 0;
+    }
+
+
+    /**
+     * 添加一个实体
+     */
+    public void add(int sentence, int start, int end, int classId) {
+        if (size * 2 >= used.length) {
+            rehash();
+        }
+        long hi = pack(sentence, classId);
+        long lo = pack(start, end);
+        int slot = find(hi, lo);
+        if (!used[slot]) {
+            used[slot] = true;
+            sentenceClass[slot] = hi;
+            startEnd[slot] = lo;
+            usedSlots[size++] = slot;
+        }
+        counts[slot]++;
+    }
+
+
+    /**
+     * 消费一个与之严格匹配的实体
+     * @return 存在尚未匹配的相同实体时返回true
+     */
+    public boolean consume(int sentence, int start, int end, int classId) {
+        int slot = find(pack(sentence, classId), pack(start, end));
+        if (used[slot] && counts[slot] > 0) {
+            counts[slot]--;
+            return true;
+        }
+        return false;
+    }
+
+
+    /**
+     * 清空索引，只重置已占用的槽位
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            int slot = usedSlots[i];
+            used[slot] = false;
+            counts[slot] = 0;
+        }
+        size = 0;
+    }
+
+
+    public int size() {
+        return size;
+    }
+
+
+    private int find(long hi, long lo) {
+        int slot = hash(hi, lo) & mask;
+        while (used[slot] && (sentenceClass[slot] != hi || startEnd[slot] != lo)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+
+    private void rehash() {
+        long[] oldHi = sentenceClass;
+        long[] oldLo = startEnd;
+        int[] oldCounts = counts;
+        int[] oldSlots = usedSlots;
+        int oldSize = size;
+
+        allocate(used.length * 2);
+        for (int i = 0; i < oldSize; i++) {
+            int old = oldSlots[i];
+            int slot = find(oldHi[old], oldLo[old]);
+            used[slot] = true;
+            sentenceClass[slot] = oldHi[old];
+            startEnd[slot] = oldLo[old];
+            counts[slot] = oldCounts[old];
+            usedSlots[size++] = slot;
+        }
+    }
+
+
+    private static long pack(int high, int low) {
+        return ((long) high << 32) | (low & 0xFFFFFFFFL);
+    }
+
+
+    private static int hash(long hi, long lo) {
+        long h = hi * 0x9E3779B97F4A7C15L + lo;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+}
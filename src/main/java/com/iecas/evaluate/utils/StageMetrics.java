@@ -0,0 +1,225 @@
+package com.iecas.evaluate.utils;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 22:51
+ * @Description: 评估各阶段的耗时、内存分配与计数指标，发布到Micrometer全局注册表（Spring Boot会将其注册表加入其中）。
+ * 指标按接口与文件大小区间打标签，接口名称由调用线程通过 {@link #withEndpoint} 设置
+ */
+public class StageMetrics {
+
+    /**
+     * 阶段耗时
+     */
+    public static final String STAGE_TIMER = "evaluate.stage";
+
+    /**
+     * 阶段内调用线程分配的堆内存字节数，并行阶段中工作线程的分配不计入
+     */
+    public static final String STAGE_ALLOCATED = "evaluate.stage.allocated";
+
+    /**
+     * 读取的token数
+     */
+    public static final String TOKENS = "evaluate.tokens";
+
+    /**
+     * 读取的实体数
+     */
+    public static final String ENTITIES = "evaluate.entities";
+
+    /**
+     * 读取的文件字节数
+     */
+    public static final String BYTES_READ = "evaluate.bytes.read";
+
+    public static final String STAGE_PARSE_TRUTH = "parse_truth";
+
+    public static final String STAGE_PARSE_TABLE = "parse_table";
+
+    /**
+     * 解析预测文件、匹配实体与计算TN在同一遍扫描中完成，作为一个阶段统计
+     */
+    public static final String STAGE_EVALUATE = "evaluate";
+
+    public static final String STAGE_TN = "tn";
+
+    public static final String STAGE_MICRO = "micro";
+
+    public static final String STAGE_MACRO = "macro";
+
+    public static final String STAGE_PER_CLASS = "per_class";
+
+    public static final String SIDE_TRUTH = "truth";
+
+    public static final String SIDE_PRED = "pred";
+
+    private static final String NO_ENDPOINT = "none";
+
+    private static final ThreadLocal<String> ENDPOINT = new ThreadLocal<>();
+
+    /**
+     * 阶段耗时直方图的上限，超大文件的评估可达数十分钟
+     */
+    private static final Duration MAX_EXPECTED_DURATION = Duration.ofHours(1);
+
+    /**
+     * 支持按线程统计内存分配的JVM上为HotSpot扩展接口，否则为null，不记录分配量
+     */
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN = threadBean();
+
+
+    /**
+     * 在指定接口名称下执行
+     * @param endpoint 接口名称
+     * @param action 执行内容
+     * @return 执行结果
+     */
+    public static <T> T withEndpoint(String endpoint, Supplier<T> action) {
+        String previous = ENDPOINT.get();
+        ENDPOINT.set(endpoint);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                ENDPOINT.remove();
+            } else {
+                ENDPOINT.set(previous);
+            }
+        }
+    }
+
+
+    public static void setEndpoint(String endpoint) {
+        ENDPOINT.set(endpoint);
+    }
+
+
+    public static void clearEndpoint() {
+        ENDPOINT.remove();
+    }
+
+
+    private static String endpoint() {
+        String endpoint = ENDPOINT.get();
+        return endpoint == null ? NO_ENDPOINT : endpoint;
+    }
+
+
+    /**
+     * 文件大小区间
+     */
+    public static String sizeBucket(long bytes) {
+        if (bytes < (1L << 20)) {
+            return "lt_1MB";
+        }
+        if (bytes < (10L << 20)) {
+            return "1MB_10MB";
+        }
+        if (bytes < (100L << 20)) {
+            return "10MB_100MB";
+        }
+        if (bytes < (1L << 30)) {
+            return "100MB_1GB";
+        }
+        return "ge_1GB";
+    }
+
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        return threadBean.isThreadAllocatedMemorySupported() && threadBean.isThreadAllocatedMemoryEnabled() ? threadBean : null;
+    }
+
+
+    private static long allocatedBytes() {
+        return THREAD_BEAN == null ? -1 : THREAD_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+
+    public static Sample start() {
+        return new Sample(Timer.start(Metrics.globalRegistry), allocatedBytes());
+    }
+
+
+    /**
+     * 记录阶段耗时与调用线程的内存分配量，需在开始阶段的线程中调用
+     * @param sample 开始时间
+     * @param stage 阶段名称
+     * @param bytes 该阶段处理的数据大小，用于区间标签
+     */
+    public static void stop(Sample sample, String stage, long bytes) {
+        String endpoint = endpoint();
+        String size = sizeBucket(bytes);
+        sample.timer.stop(Timer.builder(STAGE_TIMER)
+                .tag("stage", stage)
+                .tag("endpoint", endpoint)
+                .tag("size", size)
+                .publishPercentileHistogram()
+                .maximumExpectedValue(MAX_EXPECTED_DURATION)
+                .register(Metrics.globalRegistry));
+        if (sample.allocatedBytes >= 0) {
+            DistributionSummary.builder(STAGE_ALLOCATED)
+                    .baseUnit("bytes")
+                    .tag("stage", stage)
+                    .tag("endpoint", endpoint)
+                    .tag("size", size)
+                    .register(Metrics.globalRegistry)
+                    .record(allocatedBytes() - sample.allocatedBytes);
+        }
+    }
+
+
+    /**
+     * 记录一侧文件的读取量
+     * @param side 真实或预测文件
+     * @param tokens token数
+     * @param entities 实体数
+     * @param bytes 字节数
+     */
+    public static void count(String side, long tokens, long entities, long bytes) {
+        String endpoint = endpoint();
+        if (tokens > 0) {
+            Metrics.counter(TOKENS, "side", side, "endpoint", endpoint).increment(tokens);
+        }
+        if (entities > 0) {
+            Metrics.counter(ENTITIES, "side", side, "endpoint", endpoint).increment(entities);
+        }
+        if (bytes > 0) {
+            Metrics.counter(BYTES_READ, "side", side, "endpoint", endpoint).increment(bytes);
+        }
+    }
+
+
+    /**
+     * 阶段的开始时间与调用线程此时已分配的字节数
+     */
+    public static class Sample {
+
+        private final Timer.Sample timer;
+
+        /**
+         * 不支持按线程统计时为-1
+         */
+        private final long allocatedBytes;
+
+
+        private Sample(Timer.Sample timer, long allocatedBytes) {
+            this.timer = timer;
+            this.allocatedBytes = allocatedBytes;
+        }
+    }
+}
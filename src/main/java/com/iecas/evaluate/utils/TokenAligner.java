@@ -0,0 +1,101 @@
+package com.iecas.evaluate.utils;
+
+/**
+ * @author: getao
+ * @Date: 2026/10/17 23:12
+ * @Description: 句内token对齐。两侧句子的token数不一致时（预测结果丢失或多出了token），按词文本的哈希做有界窗口的差异对齐：
+ * 依次比较两侧当前位置的词，不一致时在窗口内查找最近的重新同步点，跳过的token不参与TN统计；
+ * 窗口内找不到同步点时按当前位置配对后继续。只有配对上的token计算TN。
+ * 实例保存最近一次对齐的结果，可逐句复用，非线程安全
+ */
+public class TokenAligner {
+
+    /**
+     * 查找重新同步点时，两侧跳过的token总数上限
+     */
+    static final int WINDOW = 8;
+
+    /**
+     * 两侧均为O标签的配对token数
+     */
+    private int tn;
+
+    /**
+     * 按词文本配对、且两侧位置不同的token对数
+     */
+    private int realigned;
+
+    /**
+     * 未能配对、不参与TN统计的token数（两侧合计）
+     */
+    private int unmatched;
+
+
+    /**
+     * 对齐一对句子
+     * @param trueHash 真实句子每个token的词哈希
+     * @param trueTags 真实句子每个token的标签id
+     * @param n 真实句子的token数
+     * @param predHash 预测句子每个token的词哈希
+     * @param predTags 预测句子每个token的标签id
+     * @param m 预测句子的token数
+     */
+    void align(int[] trueHash, int[] trueTags, int n, int[] predHash, int[] predTags, int m) {
+        tn = 0;
+        realigned = 0;
+        int skipped = 0;
+        int i = 0, j = 0;
+        while (i < n && j < m) {
+            if (trueHash[i] != predHash[j]) {
+                // 按跳过的token总数由少到多查找同步点
+                search:
+                for (int d = 1; d <= WINDOW; d++) {
+                    for (int a = 0; a <= d; a++) {
+                        int b = d - a;
+                        if (matches(trueHash, i + a, n, predHash, j + b, m)) {
+                            skipped += d;
+                            i += a;
+                            j += b;
+                            break search;
+                        }
+                    }
+                }
+            }
+            if (trueTags[i] == LabelDictionary.OUTSIDE && predTags[j] == LabelDictionary.OUTSIDE) {
+                tn++;
+            }
+            if (i != j) {
+                realigned++;
+            }
+            i++;
+            j++;
+        }
+        unmatched = skipped + (n - i) + (m - j);
+    }
+
+
+    /**
+     * 两侧在给定位置重新同步：当前词相同，且下一个词也相同或已到句尾，避免常见词造成误配
+     */
+    private static boolean matches(int[] trueHash, int i, int n, int[] predHash, int j, int m) {
+        if (i >= n || j >= m || trueHash[i] != predHash[j]) {
+            return false;
+        }
+        return i + 1 >= n || j + 1 >= m || trueHash[i + 1] == predHash[j + 1];
+    }
+
+
+    int tn() {
+        return tn;
+    }
+
+
+    int realigned() {
+        return realigned;
+    }
+
+
+    int unmatched() {
+        return unmatched;
+    }
+}
@@ -0,0 +1,653 @@
+package com.iecas.evaluate.test;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import com.iecas.evaluate.pojo.entity.BootstrapInterval;
+import com.iecas.evaluate.pojo.entity.ConfusionResult;
+import com.iecas.evaluate.pojo.entity.ConfusionSample;
+import com.iecas.evaluate.pojo.entity.EntityInfo;
+import com.iecas.evaluate.pojo.entity.MatchModeResult;
+import com.iecas.evaluate.pojo.entity.MetricsResult;
+import com.iecas.evaluate.pojo.entity.OnlineMetricsResult;
+import com.iecas.evaluate.pojo.entity.StatisticsResult;
+import com.iecas.evaluate.pojo.entity.SubMetricsResult;
+import com.iecas.evaluate.utils.BioTokenizer;
+import com.iecas.evaluate.utils.BootstrapStatistics;
+import com.iecas.evaluate.utils.ConfusionLevel;
+import com.iecas.evaluate.utils.ConfusionMatrix;
+import com.iecas.evaluate.utils.EntityMetricsUtils;
+import com.iecas.evaluate.utils.EntityTable;
+import com.iecas.evaluate.utils.EvaluationProgress;
+import com.iecas.evaluate.utils.IncrementalEvaluation;
+import com.iecas.evaluate.utils.LabelDictionary;
+import com.iecas.evaluate.utils.OnlineEvaluator;
+import com.iecas.evaluate.utils.ParallelBioEvaluator;
+import com.iecas.evaluate.utils.ParsedTruth;
+import com.iecas.evaluate.utils.SentenceCounts;
+import com.iecas.evaluate.utils.StageMetrics;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+
+public class EntityMetricsTest {
+
+    private static final String TRUTH =
+            "中 B-LOC\n国 I-LOC\n成 O\n立 O\n\n" +
+            "张 B-PER\n三 I-PER\n在 O\n北 B-LOC\n京 I-LOC\n\n";
+
+    private static final String PRED =
+            "中 B-LOC\n国 I-LOC\n成 O\n立 B-ORG\n\n" +
+            "张 B-PER\n三 O\n在 O\n北 B-LOC\n京 I-LOC\n\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+
+    private String write(String name, String content) throws IOException {
+        File file = folder.newFile(name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file.getAbsolutePath();
+    }
+
+
+    @Test
+    public void testCalculateMetrics() throws IOException {
+        MetricsResult result = EntityMetricsUtils.calculateMetrics(write("true.txt", TRUTH), write("pred.txt", PRED));
+
+        SubMetricsResult micro = result.getMicro();
+        assertEquals(2, micro.getTP(), 0);
+        assertEquals(2, micro.getFP(), 0);
+        assertEquals(1, micro.getFN(), 0);
+        // 两侧均为O的token: 成, 在
+        assertEquals((2 + 2.0) / (2 + 2 + 2 + 1), micro.getAccuracy(), 1e-9);
+        assertEquals(3, result.getPreClassResult().size());
+
+        SubMetricsResult light = EntityMetricsUtils.calculateLightMetrics(write("true2.txt", TRUTH), write("pred2.txt", PRED));
+        assertEquals(result.getMacro(), light);
+        // LOC: p=1 r=1, PER: p=0 r=0
+        assertEquals(0.5, light.getF1(), 1e-9);
+    }
+
+
+    @Test
+    public void testOnlineEvaluator() throws IOException, InterruptedException {
+        List<List<String>> trueTags = tagColumns(TRUTH);
+        List<List<String>> predTags = tagColumns(PRED);
+        MetricsResult expected = EntityMetricsUtils.calculateMetrics(write("true.txt", TRUTH), write("pred.txt", PRED));
+
+        OnlineEvaluator evaluator = new OnlineEvaluator(16);
+        long now = 1_000_000_000L;
+        evaluator.ingest(trueTags, predTags, now);
+        OnlineMetricsResult online = evaluator.snapshot("5m", now);
+        assertEquals(2, online.getSentences());
+        assertEquals(expected.getMicro(), online.getMicro());
+        assertEquals(expected.getMacro(), online.getMacro());
+        assertEquals(expected.getPreClassResult(), online.getPreClassResult());
+
+        // 并发上报，计数不丢失
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 400; i++) {
+            executor.execute(() -> evaluator.ingest(trueTags, predTags, now + 1000));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        online = evaluator.snapshot("5m", now + 1000);
+        assertEquals(802, online.getSentences());
+        assertEquals(401 * expected.getMicro().getTP(), online.getMicro().getTP(), 0);
+        assertEquals(expected.getMicro().getF1(), online.getMicro().getF1(), 1e-12);
+
+        // 超出5分钟后只保留在更长的窗口中
+        long later = now + 6 * 60_000L;
+        evaluator.ingest(trueTags.subList(0, 1), predTags.subList(0, 1), later);
+        assertEquals(1, evaluator.snapshot("5m", later).getSentences());
+        assertEquals(803, evaluator.snapshot("1h", later).getSentences());
+        assertEquals(803, evaluator.snapshot("24h", later).getSentences());
+        assertEquals(0, evaluator.snapshot("1h", later + 2 * 3_600_000L).getSentences());
+    }
+
+
+    /**
+     * 取出BIO内容中每个句子的标签列
+     */
+    private static List<List<String>> tagColumns(String content) {
+        List<List<String>> sentences = new ArrayList<>();
+        for (String block : content.split("\n\n")) {
+            List<String> tags = new ArrayList<>();
+            for (String line : block.split("\n")) {
+                tags.add(line.split(" ")[1]);
+            }
+            sentences.add(tags);
+        }
+        return sentences;
+    }
+
+
+    @Test
+    public void testListMetricsMatchStreaming() throws IOException {
+        String truePath = write("true.txt", TRUTH);
+        String predPath = write("pred.txt", PRED);
+        List<EntityInfo> truth = EntityMetricsUtils.extraEntity(truePath);
+        List<EntityInfo> pred = EntityMetricsUtils.extraEntity(predPath);
+        MetricsResult result = EntityMetricsUtils.calculateMetrics(truePath, predPath);
+
+        SubMetricsResult micro = EntityMetricsUtils.computeMicroEntityMetrics(truth, pred);
+        assertEquals(result.getMicro().getF1(), micro.getF1(), 1e-9);
+        assertEquals(result.getMacro().getF1(), EntityMetricsUtils.computeMacroEntityMetrics(truth, pred).getF1(), 1e-9);
+        assertEquals(new HashSet<>(result.getPreClassResult()), new HashSet<>(EntityMetricsUtils.computePerClassMetricsFast(truth, pred)));
+    }
+
+
+    @Test
+    public void testSpansOnlyMatchWithinSentence() {
+        List<EntityInfo> truth = Arrays.asList(new EntityInfo("中国", "LOC", 0, 1, 0), new EntityInfo("中国", "LOC", 0, 1, 0));
+        List<EntityInfo> pred = Arrays.asList(new EntityInfo("中国", "LOC", 0, 1, 0), new EntityInfo("北京", "LOC", 0, 1, 1));
+
+        SubMetricsResult micro = EntityMetricsUtils.computeMicroEntityMetrics(truth, pred);
+        assertEquals(1, micro.getTP(), 0);
+        assertEquals(1, micro.getFP(), 0);
+        assertEquals(1, micro.getFN(), 0);
+    }
+
+
+    @Test
+    public void testExtraEntity() throws IOException {
+        List<EntityInfo> entities = EntityMetricsUtils.extraEntity(write("true.txt", "\n" + TRUTH.replace("国 I-LOC", "国\tI-LOC \r")));
+        assertEquals(Arrays.asList(
+                new EntityInfo("中国", "LOC", 0, 1, 0),
+                new EntityInfo("张三", "PER", 0, 1, 1),
+                new EntityInfo("北京", "LOC", 3, 4, 1)), entities);
+    }
+
+
+    @Test
+    public void testTokenizerRemapsAcrossWindows() throws IOException {
+        String path = write("true.txt", TRUTH);
+        int tokens = 0, blanks = 0;
+        try (BioTokenizer tokenizer = BioTokenizer.open(path, 16)) {
+            int type;
+            while ((type = tokenizer.next()) != BioTokenizer.EOF) {
+                if (type == BioTokenizer.TOKEN) tokens++;
+                if (type == BioTokenizer.BLANK) blanks++;
+            }
+        }
+        assertEquals(9, tokens);
+        assertEquals(2, blanks);
+    }
+
+
+    @Test
+    public void testTokenizerReadsStream() throws IOException {
+        // 输入流每次只返回少量字节，并包含超过初始缓冲区的长行
+        StringBuilder content = new StringBuilder(TRUTH);
+        for (int i = 0; i < 100000; i++) {
+            content.append('长');
+        }
+        content.append(" O\n");
+        byte[] bytes = content.toString().getBytes(StandardCharsets.UTF_8);
+        InputStream input = new FilterInputStream(new ByteArrayInputStream(bytes)) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return super.read(b, off, Math.min(len, 7));
+            }
+        };
+        int tokens = 0, blanks = 0;
+        long consumed;
+        try (BioTokenizer tokenizer = BioTokenizer.open(input)) {
+            int type;
+            while ((type = tokenizer.next()) != BioTokenizer.EOF) {
+                if (type == BioTokenizer.TOKEN) tokens++;
+                if (type == BioTokenizer.BLANK) blanks++;
+            }
+            consumed = tokenizer.consumed();
+        }
+        assertEquals(10, tokens);
+        assertEquals(2, blanks);
+        assertEquals(bytes.length, consumed);
+
+        String truePath = write("true.txt", TRUTH);
+        String predPath = write("pred.txt", PRED);
+        ParsedTruth truth = ParsedTruth.parse(new ByteArrayInputStream(TRUTH.getBytes(StandardCharsets.UTF_8)));
+        MetricsResult streamed = truth.evaluate(new ByteArrayInputStream(PRED.getBytes(StandardCharsets.UTF_8))).toMetricsResult();
+        MetricsResult expected = EntityMetricsUtils.calculateMetrics(truePath, predPath);
+        assertEquals(expected.getMicro(), streamed.getMicro());
+        assertEquals(expected.getMacro(), streamed.getMacro());
+    }
+
+
+    @Test
+    public void testMatchModes() throws IOException {
+        String truePath = write("true.txt", TRUTH);
+        String predPath = write("pred.txt", PRED);
+        // 中国、北京完全一致；张与张三重叠且类别相同；立(ORG)与任何真实实体都不重叠
+        Map<String, MatchModeResult> modes = EntityMetricsUtils.calculateMetrics(truePath, predPath).getMatchModes();
+        assertEquals(Arrays.asList("strict", "exact", "partial", "type"), new ArrayList<>(modes.keySet()));
+        assertMatchMode(modes.get("strict"), 2, 1, 0, 0, 1);
+        assertMatchMode(modes.get("exact"), 2, 1, 0, 0, 1);
+        assertMatchMode(modes.get("partial"), 2, 0, 1, 0, 1);
+        assertMatchMode(modes.get("type"), 3, 0, 0, 0, 1);
+        assertEquals(2.5 / 4, modes.get("partial").getPrecision(), 1e-9);
+        assertEquals(2.5 / 3, modes.get("partial").getRecall(), 1e-9);
+
+        // 边界一致类别不同、边界重叠类别相同、遗漏
+        String otherPath = write("other.txt", "中 B-PER\n国 I-PER\n成 O\n立 O\n\n张 O\n三 O\n在 B-LOC\n北 I-LOC\n京 O\n\n");
+        Map<String, MatchModeResult> other = EntityMetricsUtils.calculateMetrics(truePath, otherPath).getMatchModes();
+        assertMatchMode(other.get("strict"), 0, 2, 0, 1, 0);
+        assertMatchMode(other.get("exact"), 1, 1, 0, 1, 0);
+        assertMatchMode(other.get("partial"), 1, 0, 1, 1, 0);
+        assertMatchMode(other.get("type"), 1, 1, 0, 1, 0);
+
+        // 各评估路径结果一致
+        for (String path : new String[]{predPath, otherPath}) {
+            Map<String, MatchModeResult> expected = EntityMetricsUtils.calculateMetrics(truePath, path).getMatchModes();
+            assertEquals(expected, EntityMetricsUtils.calculateMetrics(truePath, path, true).getMatchModes());
+            assertEquals(expected, ParsedTruth.parse(truePath).evaluate(path, null, null).toMetricsResult().getMatchModes());
+        }
+    }
+
+
+    private static void assertMatchMode(MatchModeResult result, long correct, long incorrect, long partial, long missed, long spurious) {
+        assertEquals(correct, result.getCorrect());
+        assertEquals(incorrect, result.getIncorrect());
+        assertEquals(partial, result.getPartial());
+        assertEquals(missed, result.getMissed());
+        assertEquals(spurious, result.getSpurious());
+    }
+
+
+    @Test
+    public void testConfusionMatrix() throws IOException {
+        String truePath = write("true.txt", "中 B-LOC\n国 I-LOC\n成 O\n立 O\n\n张 B-PER\n三 I-PER\n在 O\n北 B-LOC\n京 I-LOC\n");
+        String predPath = write("pred.txt", "中 B-PER\n国 I-PER\n成 O\n立 B-ORG\n\n张 B-LOC\n三 I-LOC\n在 O\n北 B-LOC\n京 I-LOC\n");
+        ConfusionResult confusion = EntityMetricsUtils.calculateMetrics(truePath, predPath).getConfusion();
+        assertEquals(Arrays.asList("LOC", "PER", "ORG", "O"), confusion.getLabels());
+        // 行为真实类别，列为预测类别，立(ORG)在真实文件中没有同边界的实体
+        assertTrue(Arrays.deepEquals(new long[][]{{1, 1, 0, 0}, {1, 0, 0, 0}, {0, 0, 0, 0}, {0, 0, 1, 0}}, confusion.getMatrix()));
+        assertEquals(2, confusion.getTypeMismatches());
+        assertEquals(Arrays.asList(new ConfusionSample("LOC", "PER", 0, 0, 1), new ConfusionSample("PER", "LOC", 1, 0, 1)),
+                confusion.getSamples());
+    }
+
+
+    @Test
+    public void testConfusionSamplesMatchAcrossPaths() throws IOException {
+        int sentences = 50000;
+        StringBuilder truth = new StringBuilder();
+        StringBuilder pred = new StringBuilder();
+        for (int s = 0; s < sentences; s++) {
+            truth.append("北 B-LOC\n京 I-LOC\n在 O\n张 B-PER\n三 I-PER\n\n");
+            boolean place = s == 1000 || s == 25000 || s == 49000;
+            pred.append(place ? "北 B-PER\n京 I-PER\n" : "北 B-LOC\n京 I-LOC\n").append("在 O\n");
+            if (s % 1000 == 7) {
+                pred.append("张 B-ORG\n三 I-ORG\n\n");
+            } else if (s % 997 == 3) {
+                pred.append("张 B-PER\n三 O\n\n");
+            } else {
+                pred.append("张 B-PER\n三 I-PER\n\n");
+            }
+        }
+        String truePath = write("true.txt", truth.toString());
+        String predPath = write("pred.txt", pred.toString());
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        ConfusionResult serial = EntityMetricsUtils.calculateMetrics(truePath, predPath).getConfusion();
+        assertConfusionSamples(serial);
+        // 样例与记录顺序及分片方式无关，各评估路径结果完全一致
+        assertEquals(serial, ParallelBioEvaluator.evaluate(truePath, predPath, pool, null).toConfusionResult());
+        assertEquals(serial, ParsedTruth.parse(truePath).evaluate(predPath, null, null).toConfusionResult());
+        assertEquals(serial, ParsedTruth.parse(truePath).evaluate(predPath, pool, null).toConfusionResult());
+        assertEquals(serial, IncrementalEvaluation.evaluate(truePath, predPath, null).toAccumulator().toConfusionResult());
+
+        // 不需要样例时只记录计数，不需要混淆矩阵时不记录
+        ConfusionResult counts = ParallelBioEvaluator.evaluate(truePath, predPath, pool, null, ConfusionLevel.COUNTS).toConfusionResult();
+        assertTrue(Arrays.deepEquals(serial.getMatrix(), counts.getMatrix()));
+        assertEquals(serial.getTypeMismatches(), counts.getTypeMismatches());
+        assertTrue(counts.getSamples().isEmpty());
+        assertEquals(counts, ParsedTruth.parse(truePath).evaluate(predPath, pool, null, ConfusionLevel.COUNTS).toConfusionResult());
+        assertNull(EntityMetricsUtils.calculateMetrics(truePath, predPath, true, null, ConfusionLevel.NONE).getConfusion());
+    }
+
+
+    private static void assertConfusionSamples(ConfusionResult confusion) {
+        assertEquals(Arrays.asList("LOC", "PER", "ORG", "O"), confusion.getLabels());
+        assertEquals(3, confusion.getMatrix()[0][1]);
+        assertEquals(50, confusion.getMatrix()[1][2]);
+        assertEquals(53, confusion.getTypeMismatches());
+        List<ConfusionSample> samples = confusion.getSamples();
+        assertEquals(3 + ConfusionMatrix.SAMPLES_PER_CELL, samples.size());
+        assertEquals(Arrays.asList(new ConfusionSample("LOC", "PER", 1000, 0, 1), new ConfusionSample("LOC", "PER", 25000, 0, 1),
+                new ConfusionSample("LOC", "PER", 49000, 0, 1)), samples.subList(0, 3));
+        HashSet<Long> sampled = new HashSet<>();
+        for (ConfusionSample sample : samples.subList(3, samples.size())) {
+            assertEquals("PER", sample.getTrueClass());
+            assertEquals("ORG", sample.getPredClass());
+            assertEquals(7, sample.getSentence() % 1000);
+            assertEquals(3, sample.getStart());
+            assertTrue(sampled.add(sample.getSentence()));
+        }
+    }
+
+
+    @Test
+    public void testTokenAlignment() throws IOException {
+        String truePath = write("true.txt", TRUTH);
+        // 按token解析标签，"词 O"格式的行计入TN: 成, 在
+        assertEquals(2, EntityMetricsUtils.calculateTNFromFiles(write("pred.txt", PRED), truePath));
+
+        // 第一句丢失"成"，第二句多出"，"
+        String predPath = write("shifted.txt", "中 B-LOC\n国 I-LOC\n立 O\n\n" +
+                "张 B-PER\n三 I-PER\n， O\n在 O\n北 B-LOC\n京 I-LOC\n\n");
+        assertEquals(2, EntityMetricsUtils.calculateTNFromFiles(predPath, truePath));
+
+        MetricsResult result = EntityMetricsUtils.calculateMetrics(truePath, predPath);
+        // TP: 中国、张三，FP/FN: 北京位置偏移；TN: 立、在
+        assertEquals((2 + 2.0) / (2 + 1 + 1 + 2), result.getMicro().getAccuracy(), 1e-9);
+        // 立；在、北、京 按词文本配对到不同位置
+        assertEquals(4, result.getRealignedTokens());
+        // 成、，未能配对
+        assertEquals(2, result.getUnmatchedTokens());
+
+        MetricsResult parsed = ParsedTruth.parse(truePath).evaluate(predPath, null, null).toMetricsResult();
+        assertEquals(result.getMicro(), parsed.getMicro());
+        assertEquals(4, parsed.getRealignedTokens());
+        assertEquals(2, parsed.getUnmatchedTokens());
+
+        // 预测文件缺少第二句，第二句的token均未配对
+        MetricsResult missing = EntityMetricsUtils.calculateMetrics(truePath, write("missing.txt", "中 B-LOC\n国 I-LOC\n成 O\n立 O\n"));
+        // TP: 中国，FN: 张三、北京，TN: 成、立
+        assertEquals((1 + 2.0) / (1 + 2 + 2), missing.getMicro().getAccuracy(), 1e-9);
+        assertEquals(5, missing.getUnmatchedTokens());
+        assertEquals(missing.getMicro(), ParsedTruth.parse(truePath).evaluate(write("missing2.txt", "中 B-LOC\n国 I-LOC\n成 O\n立 O\n"),
+                null, null).toMetricsResult().getMicro());
+    }
+
+
+    @Test
+    public void testCompressedInput() throws IOException {
+        // 足够大的文件会在独立线程中解压
+        StringBuilder truth = new StringBuilder();
+        StringBuilder pred = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            truth.append(TRUTH);
+            pred.append(PRED);
+        }
+        String truePath = write("true.txt", truth.toString());
+        String predPath = write("pred.txt", pred.toString());
+        MetricsResult expected = EntityMetricsUtils.calculateMetrics(truePath, predPath);
+        int expectedTN = EntityMetricsUtils.calculateTNFromFiles(predPath, truePath);
+
+        for (String suffix : new String[]{".gz", ".zst"}) {
+            String trueCompressed = compress(truePath, suffix);
+            String predCompressed = compress(predPath, suffix);
+            MetricsResult actual = EntityMetricsUtils.calculateMetrics(trueCompressed, predCompressed, true);
+            assertEquals(expected.getMicro(), actual.getMicro());
+            assertEquals(expected.getMacro(), actual.getMacro());
+            assertEquals(expected.getMicro(), ParsedTruth.parse(trueCompressed)
+                    .evaluate(predCompressed, ForkJoinPool.commonPool(), null).toMetricsResult().getMicro());
+            assertEquals(expectedTN, EntityMetricsUtils.calculateTNFromFiles(predCompressed, trueCompressed));
+            assertEquals(EntityMetricsUtils.extraEntity(truePath), EntityMetricsUtils.extraEntity(trueCompressed));
+        }
+
+        String gtPath = write("gt.json", "[{\"start\":0,\"end\":2,\"type\":\"LOC\",\"word\":\"北京\"}]");
+        assertEquals(1, EntityMetricsUtils.fileToEntity(compress(gtPath, ".gz")).size());
+        assertEquals(1, EntityMetricsUtils.calculateIecasTextMetrics(compress(gtPath, ".zst"), gtPath).getTP(), 0);
+    }
+
+
+    private String compress(String path, String suffix) throws IOException {
+        String target = path + suffix;
+        try (OutputStream output = suffix.equals(".gz")
+                ? new GZIPOutputStream(new FileOutputStream(target)) : new ZstdOutputStream(new FileOutputStream(target))) {
+            Files.copy(new File(path).toPath(), output);
+        }
+        return target;
+    }
+
+
+    @Test
+    public void testLabelDictionary() {
+        LabelDictionary dictionary = new LabelDictionary();
+        assertEquals(LabelDictionary.OUTSIDE, dictionary.tagId("O"));
+        int begin = dictionary.tagId("B-地点");
+        int inside = dictionary.tagId("I-地点");
+        assertEquals(begin, dictionary.tagId("B-地点"));
+        assertEquals(LabelDictionary.KIND_BEGIN, dictionary.tagKind(begin));
+        assertEquals(LabelDictionary.KIND_INSIDE, dictionary.tagKind(inside));
+        assertEquals(dictionary.tagClass(begin), dictionary.tagClass(inside));
+        assertEquals("地点", dictionary.className(dictionary.tagClass(begin)));
+        assertEquals(LabelDictionary.KIND_OTHER, dictionary.tagKind(dictionary.tagId("S-地点")));
+    }
+
+
+    @Test
+    public void testEntityTable() throws IOException {
+        EntityTable truth = EntityMetricsUtils.parseEntityTable(write("true.txt", TRUTH), false);
+        EntityTable pred = EntityMetricsUtils.parseEntityTable(write("pred.txt", PRED), true);
+        assertEquals(3, truth.size());
+        assertEquals(null, truth.text(0));
+        assertEquals("北京", pred.text(pred.size() - 1));
+
+        SubMetricsResult micro = EntityMetricsUtils.computeMicroEntityMetrics(truth, pred);
+        assertEquals(2, micro.getTP(), 0);
+        assertEquals(2, micro.getFP(), 0);
+        assertEquals(1, micro.getFN(), 0);
+    }
+
+
+    @Test
+    public void testParallelMatchesSerial() throws IOException {
+        Random random = new Random(7);
+        String[] classes = {"LOC", "PER", "ORG", "TIME", "EVENT"};
+        StringBuilder truth = new StringBuilder();
+        StringBuilder pred = new StringBuilder();
+        while (truth.length() < (3 << 20)) {
+            int length = 1 + random.nextInt(20);
+            for (int i = 0; i < length; i++) {
+                String label = random.nextInt(3) == 0 ? "O" : (random.nextBoolean() ? "B-" : "I-") + classes[random.nextInt(classes.length)];
+                String predLabel = random.nextInt(5) == 0 ? "B-" + classes[random.nextInt(classes.length)] : label;
+                truth.append("词").append(i).append(' ').append(label).append('\n');
+                pred.append("词").append(i).append(' ').append(predLabel).append('\n');
+            }
+            truth.append('\n');
+            pred.append(random.nextInt(50) == 0 ? "\n\n" : "\n");
+        }
+        String truePath = write("true.txt", truth.toString());
+        String predPath = write("pred.txt", pred.toString());
+
+        MetricsResult serial = EntityMetricsUtils.calculateMetrics(truePath, predPath, false);
+        MetricsResult parallel = EntityMetricsUtils.calculateMetrics(truePath, predPath, true);
+        assertEquals(serial, parallel);
+        assertTrue(serial.getMicro().getAccuracy() > 0);
+
+        // 使用已解析的真实文件评估，类别顺序以真实文件为准
+        ParsedTruth parsed = ParsedTruth.parse(truePath);
+        for (ForkJoinPool pool : new ForkJoinPool[]{null, ForkJoinPool.commonPool()}) {
+            MetricsResult cached = parsed.evaluate(predPath, pool, null).toMetricsResult();
+            assertEquals(serial.getMicro(), cached.getMicro());
+            assertEquals(serial.getMacro(), cached.getMacro());
+            assertEquals(new HashSet<>(serial.getPreClassResult()), new HashSet<>(cached.getPreClassResult()));
+        }
+    }
+
+
+    @Test
+    public void testProgressReportsMicroCounts() throws IOException {
+        Random random = new Random(11);
+        String[] classes = {"LOC", "PER", "ORG"};
+        StringBuilder truth = new StringBuilder();
+        StringBuilder pred = new StringBuilder();
+        while (truth.length() < (2 << 20)) {
+            int length = 1 + random.nextInt(20);
+            for (int i = 0; i < length; i++) {
+                String label = random.nextInt(3) == 0 ? "O" : (random.nextBoolean() ? "B-" : "I-") + classes[random.nextInt(classes.length)];
+                String predLabel = random.nextInt(5) == 0 ? "B-" + classes[random.nextInt(classes.length)] : label;
+                truth.append("词").append(i).append(' ').append(label).append('\n');
+                pred.append("词").append(i).append(' ').append(predLabel).append('\n');
+            }
+            truth.append('\n');
+            pred.append('\n');
+        }
+        // 真实文件多出的句子只计入真实实体数
+        truth.append("北 B-LOC\n京 I-LOC\n\n张 B-PER\n三 I-PER\n\n");
+        String truePath = write("true.txt", truth.toString());
+        String predPath = write("pred.txt", pred.toString());
+        long totalBytes = new File(truePath).length() + new File(predPath).length();
+        SubMetricsResult micro = EntityMetricsUtils.calculateMetrics(truePath, predPath).getMicro();
+        double expected = 2 * micro.getTP() / (2 * micro.getTP() + micro.getFP() + micro.getFN());
+
+        ParsedTruth parsed = ParsedTruth.parse(truePath);
+        IncrementalEvaluation previous = IncrementalEvaluation.evaluate(truePath, predPath, null);
+        for (int path = 0; path < 6; path++) {
+            EvaluationProgress progress = new EvaluationProgress(totalBytes);
+            switch (path) {
+                case 0:
+                    EntityMetricsUtils.calculateMetrics(truePath, predPath, false, progress);
+                    break;
+                case 1:
+                    EntityMetricsUtils.calculateMetrics(truePath, predPath, true, progress);
+                    break;
+                case 2:
+                    parsed.evaluate(predPath, null, progress);
+                    break;
+                case 3:
+                    parsed.evaluate(predPath, ForkJoinPool.commonPool(), progress);
+                    break;
+                case 4:
+                    IncrementalEvaluation.evaluate(truePath, predPath, null, progress);
+                    break;
+                default:
+                    // 全部沿用上一次的贡献
+                    IncrementalEvaluation.evaluate(truePath, predPath, previous, progress);
+            }
+            // 评估结束后进度中的计数与最终结果一致
+            assertEquals(totalBytes, progress.getBytesRead());
+            assertEquals(expected, progress.getMicroF1(), 1e-12);
+            assertEquals(micro.getTP() / (micro.getTP() + micro.getFN()), progress.getMicroRecall(), 1e-12);
+        }
+    }
+
+
+    @Test
+    public void testBootstrapStatistics() throws IOException {
+        Random random = new Random(11);
+        String[] classes = {"LOC", "PER", "ORG"};
+        StringBuilder truth = new StringBuilder();
+        StringBuilder pred = new StringBuilder();
+        for (int s = 0; s < 2000; s++) {
+            int length = 1 + random.nextInt(10);
+            for (int i = 0; i < length; i++) {
+                String label = random.nextInt(3) == 0 ? "O" : (random.nextBoolean() ? "B-" : "I-") + classes[random.nextInt(classes.length)];
+                String predLabel = random.nextInt(6) == 0 ? "B-" + classes[random.nextInt(classes.length)] : label;
+                truth.append("词").append(i).append(' ').append(label).append('\n');
+                pred.append("词").append(i).append(' ').append(predLabel).append('\n');
+            }
+            truth.append('\n');
+            pred.append('\n');
+        }
+        String truePath = write("true.txt", truth.toString());
+        String predPath = write("pred.txt", pred.toString());
+        LabelDictionary dictionary = new LabelDictionary();
+        SentenceCounts predCounts = SentenceCounts.collect(truePath, predPath, dictionary);
+        SentenceCounts trueCounts = SentenceCounts.collect(truePath, truePath, dictionary);
+        assertEquals(2000, predCounts.getSentenceCount());
+
+        // 点估计与直接计算的指标一致，区间包含点估计
+        StatisticsResult result = BootstrapStatistics.evaluate(new SentenceCounts[]{predCounts}, 500, 0.95, 42, ForkJoinPool.commonPool());
+        MetricsResult metrics = EntityMetricsUtils.calculateMetrics(truePath, predPath);
+        assertEquals(metrics.getMicro().getF1(), result.getMetrics().get("microF1").getEstimate(), 1e-9);
+        assertEquals(metrics.getMacro().getF1(), result.getMetrics().get("macroF1").getEstimate(), 1e-9);
+        for (BootstrapInterval interval : result.getMetrics().values()) {
+            assertTrue(interval.getLower() <= interval.getEstimate() && interval.getEstimate() <= interval.getUpper());
+            assertTrue(interval.getStdError() > 0);
+        }
+        assertNull(result.getDifference());
+
+        // 相同种子的结果与线程数无关
+        StatisticsResult single = BootstrapStatistics.evaluate(new SentenceCounts[]{predCounts}, 500, 0.95, 42, new ForkJoinPool(1));
+        assertEquals(result, single);
+
+        // 与自身对比差值恒为0，与真实标注对比差值显著为负
+        StatisticsResult self = BootstrapStatistics.evaluate(new SentenceCounts[]{predCounts, predCounts}, 200, 0.95, 1, ForkJoinPool.commonPool());
+        BootstrapInterval same = self.getDifference().get("microF1");
+        assertEquals(0.0, same.getLower(), 0.0);
+        assertEquals(0.0, same.getUpper(), 0.0);
+        assertEquals(1.0, same.getPvalue(), 0.0);
+        StatisticsResult paired = BootstrapStatistics.evaluate(new SentenceCounts[]{predCounts, trueCounts}, 200, 0.95, 1, ForkJoinPool.commonPool());
+        assertEquals(1.0, paired.getCompareMetrics().get("microF1").getEstimate(), 1e-9);
+        BootstrapInterval worse = paired.getDifference().get("microF1");
+        assertTrue(worse.getUpper() < 0);
+        assertTrue(worse.getPvalue() < 0.05);
+    }
+
+
+    @Test
+    public void testIecasTextMetrics() throws IOException {
+        String gtPath = write("gt.json", "[{\"start\":0,\"end\":2,\"type\":\"LOC\",\"word\":\"北京\"},"
+                + "{\"start\":3,\"end\":5,\"type\":\"PER\",\"word\":\"张三\"}]");
+        // 重复实体只计一次，未知字段直接跳过
+        String prePath = write("pre.json", "[{\"start\":0,\"end\":2,\"type\":\"LOC\",\"word\":\"北京\",\"score\":{\"a\":[1]}},"
+                + "{\"start\":0,\"end\":2,\"type\":\"LOC\",\"word\":\"北京\"},"
+                + "{\"start\":3,\"end\":5,\"type\":\"LOC\",\"word\":\"张三\"}]");
+
+        SubMetricsResult result = EntityMetricsUtils.calculateIecasTextMetrics(prePath, gtPath);
+        assertEquals(1, result.getTP(), 0);
+        assertEquals(1, result.getFP(), 0);
+        assertEquals(1, result.getFN(), 0);
+        assertEquals(0.5, result.getF1(), 1e-9);
+        assertEquals(3, EntityMetricsUtils.fileToEntity(prePath).size());
+        assertNull(EntityMetricsUtils.calculateIecasTextMetrics(prePath, write("bad.json", "{}")));
+    }
+
+
+    @Test
+    public void testStageMetrics() throws IOException {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Metrics.addRegistry(registry);
+        try {
+            String truePath = write("true.txt", TRUTH);
+            StageMetrics.withEndpoint("test", () -> EntityMetricsUtils.calculateMetrics(truePath, truePath));
+
+            assertEquals(1, registry.get(StageMetrics.STAGE_TIMER).tags("stage", StageMetrics.STAGE_EVALUATE, "endpoint", "test")
+                    .timer().count());
+            assertEquals(1, registry.get(StageMetrics.STAGE_TIMER).tags("stage", StageMetrics.STAGE_PER_CLASS, "endpoint", "test").timer().count());
+            assertEquals(9, registry.get(StageMetrics.TOKENS).tags("side", StageMetrics.SIDE_TRUTH, "endpoint", "test").counter().count(), 0);
+            assertEquals(3, registry.get(StageMetrics.ENTITIES).tags("side", StageMetrics.SIDE_PRED, "endpoint", "test").counter().count(), 0);
+            assertEquals(TRUTH.getBytes(StandardCharsets.UTF_8).length,
+                    registry.get(StageMetrics.BYTES_READ).tags("side", StageMetrics.SIDE_PRED, "endpoint", "test").counter().count(), 0);
+            // HotSpot上同时记录阶段内的内存分配量
+            DistributionSummary allocated = registry.get(StageMetrics.STAGE_ALLOCATED)
+                    .tags("stage", StageMetrics.STAGE_EVALUATE, "endpoint", "test").summary();
+            assertEquals(1, allocated.count());
+            assertTrue(allocated.totalAmount() > 0);
+        } finally {
+            Metrics.removeRegistry(registry);
+        }
+    }
+}
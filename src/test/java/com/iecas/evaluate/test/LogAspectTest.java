@@ -0,0 +1,183 @@
+package com.iecas.evaluate.test;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.read.ListAppender;
+import com.iecas.evaluate.aop.annotation.Logger;
+import com.iecas.evaluate.aop.aspect.LogAspect;
+import com.iecas.evaluate.common.CommonResult;
+import com.iecas.evaluate.config.EvaluateLogProperties;
+import com.iecas.evaluate.pojo.entity.MetricsResult;
+import com.iecas.evaluate.pojo.entity.SubMetricsResult;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+
+public class LogAspectTest {
+
+    private final ch.qos.logback.classic.Logger logger = (ch.qos.logback.classic.Logger) LoggerFactory.getLogger(LogAspect.class);
+
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+
+    @Before
+    public void setUp() {
+        appender.start();
+        logger.addAppender(appender);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest("POST", "/metrics/test")));
+    }
+
+
+    @After
+    public void tearDown() {
+        logger.detachAppender(appender);
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+
+    /**
+     * 被记录日志的接口
+     */
+    public static class Endpoint {
+
+        @Logger("评估")
+        public CommonResult evaluate(String path) {
+            MetricsResult result = new MetricsResult();
+            SubMetricsResult micro = new SubMetricsResult();
+            micro.setTP(3);
+            micro.setFP(1);
+            micro.setFN(2);
+            micro.setF1(0.6666666);
+            result.setMicro(micro);
+            result.setMacro(new SubMetricsResult());
+            result.setPreClassResult(Collections.singletonList(micro));
+            return new CommonResult().data(result).success();
+        }
+    }
+
+
+    private Endpoint proxy(LogAspect aspect) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(new Endpoint());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        return factory.getProxy();
+    }
+
+
+    private List<String> messages() {
+        return appender.list.stream().map(ILoggingEvent::getFormattedMessage)
+                .filter(message -> !message.startsWith("执行时间为"))
+                .collect(Collectors.toList());
+    }
+
+
+    @Test
+    public void testModes() {
+        EvaluateLogProperties properties = new EvaluateLogProperties();
+        properties.setAsync(false);
+
+        // 摘要模式只记录关键指标
+        proxy(new LogAspect(properties)).evaluate("/data/pred.txt");
+        List<String> messages = messages();
+        assertEquals(2, messages.size());
+        assertTrue(messages.get(0).contains("url: /metrics/test") && messages.get(0).contains("args: [/data/pred.txt]"));
+        assertEquals("评估方法返回值为: status=200, classes=1, micro={TP=3, FP=1, FN=2, F1=0.6667}, "
+                + "macro={TP=0, FP=0, FN=0, F1=0.0000}", messages.get(1));
+
+        // 完整模式输出JSON
+        appender.list.clear();
+        properties.setMode(EvaluateLogProperties.MODE_FULL);
+        proxy(new LogAspect(properties)).evaluate("/data/pred.txt");
+        messages = messages();
+        assertEquals(2, messages.size());
+        assertTrue(messages.get(1).startsWith("评估方法返回值为: {"));
+        assertTrue(messages.get(1).contains("\"status\":200"));
+        assertFalse(messages.get(1).contains("...(共"));
+
+        // 超过长度上限时截断并给出原长度
+        appender.list.clear();
+        properties.setMaxLength(20);
+        proxy(new LogAspect(properties)).evaluate("/data/pred.txt");
+        messages = messages();
+        String returned = messages.get(1).substring("评估方法返回值为: ".length());
+        assertTrue(returned.matches(".{20}\\.\\.\\.\\(共\\d+字符\\)"));
+
+        // 不输出参数与返回值，执行时间仍然记录
+        appender.list.clear();
+        properties.setMode(EvaluateLogProperties.MODE_NONE);
+        proxy(new LogAspect(properties)).evaluate("/data/pred.txt");
+        assertTrue(messages().isEmpty());
+        assertEquals(1, appender.list.size());
+    }
+
+
+    @Test
+    public void testDropWhenQueueFull() throws InterruptedException {
+        EvaluateLogProperties properties = new EvaluateLogProperties();
+        properties.setQueueCapacity(1);
+        LogAspect aspect = new LogAspect(properties);
+        Endpoint endpoint = proxy(aspect);
+
+        // 阻塞后台日志线程，使后续日志只能进入队列
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> written = Collections.synchronizedList(new ArrayList<>());
+        UnsynchronizedAppenderBase<ILoggingEvent> blocking = new UnsynchronizedAppenderBase<ILoggingEvent>() {
+            @Override
+            protected void append(ILoggingEvent event) {
+                if (!Thread.currentThread().getName().equals("log-writer")) {
+                    return;
+                }
+                written.add(event.getFormattedMessage());
+                writing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        blocking.start();
+        logger.addAppender(blocking);
+        try {
+            // 请求日志正在输出，返回值日志进入队列
+            endpoint.evaluate("/data/pred.txt");
+            assertTrue(writing.await(5, TimeUnit.SECONDS));
+            assertEquals(0, aspect.getDropped());
+
+            // 队列已满，请求线程不等待，两条日志都被丢弃
+            endpoint.evaluate("/data/pred.txt");
+            assertEquals(2, aspect.getDropped());
+
+            release.countDown();
+            long deadline = System.currentTimeMillis() + 5000;
+            while (written.size() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(2, written.size());
+            assertTrue(written.get(0).startsWith("请求 --> "));
+            assertTrue(written.get(1).startsWith("评估方法返回值为: "));
+        } finally {
+            release.countDown();
+            logger.detachAppender(blocking);
+            aspect.shutdown();
+        }
+    }
+}
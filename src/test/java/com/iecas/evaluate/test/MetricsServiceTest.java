@@ -0,0 +1,572 @@
+package com.iecas.evaluate.test;
+
+import com.iecas.evaluate.common.AdmissionRejectedException;
+import com.iecas.evaluate.common.CommonResult;
+import com.iecas.evaluate.config.CommonGlobalExceptionHandler;
+import com.iecas.evaluate.config.EvaluateAdmissionProperties;
+import com.iecas.evaluate.config.EvaluateCacheProperties;
+import com.iecas.evaluate.config.EvaluateIncrementalProperties;
+import com.iecas.evaluate.config.EvaluateJobProperties;
+import com.iecas.evaluate.config.EvaluateTruthCacheProperties;
+import com.iecas.evaluate.config.EvaluateTruthIndexProperties;
+import com.iecas.evaluate.pojo.dto.BatchParamsDTO;
+import com.iecas.evaluate.pojo.dto.ParamsDTO;
+import com.iecas.evaluate.pojo.entity.BatchMetricsItem;
+import com.iecas.evaluate.pojo.entity.ConfusionResult;
+import com.iecas.evaluate.pojo.entity.EvaluationJob;
+import com.iecas.evaluate.pojo.entity.MetricsResult;
+import com.iecas.evaluate.pojo.entity.TruthIndexInfo;
+import com.iecas.evaluate.service.AdmissionService;
+import com.iecas.evaluate.service.EvaluationJobService;
+import com.iecas.evaluate.service.MetricsResultCache;
+import com.iecas.evaluate.service.MetricsService;
+import com.iecas.evaluate.service.TruthCache;
+import com.iecas.evaluate.service.TruthIndexService;
+import com.iecas.evaluate.service.UploadEvaluationService;
+import com.iecas.evaluate.utils.ConfusionMatrix;
+import com.iecas.evaluate.utils.EntityMetricsUtils;
+import com.iecas.evaluate.utils.EvaluationProgress;
+import com.iecas.evaluate.utils.IncrementalEvaluation;
+import com.iecas.evaluate.utils.ParsedTruth;
+import com.iecas.evaluate.utils.MetricsMode;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+
+public class MetricsServiceTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+
+    private String write(String name, String content) throws IOException {
+        File file = folder.newFile(name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file.getAbsolutePath();
+    }
+
+
+    @Test
+    public void testAdmission() throws Exception {
+        EvaluateAdmissionProperties properties = new EvaluateAdmissionProperties();
+        properties.setHeapBudgetBytes(100);
+        properties.setBaseRequestBytes(10);
+        properties.setMaxConcurrentPerClient(1);
+        properties.setMaxWaiting(2);
+        properties.setMaxWaitMillis(200);
+        AdmissionService admission = new AdmissionService(properties);
+
+        ParamsDTO dto = new ParamsDTO();
+        dto.setTrueFilePath(write("true.txt", "中 B-LOC\n"));
+        dto.setPredFilePath(write("pred.txt", "中 O\n"));
+        assertEquals(10 + 2 * (10 + 6), admission.estimate(new Object[]{dto}, 2));
+
+        // 上传请求按Content-Length估算，分块传输时按配置的大小估算
+        MockHttpServletRequest upload = new MockHttpServletRequest("POST", "/metrics/uploadTextMetrics");
+        upload.setContent(new byte[30]);
+        assertEquals(10 + 2 * 30, admission.estimate(new Object[]{upload}, 2));
+        properties.setUnknownContentLength(40);
+        assertEquals(10 + 2 * 40, admission.estimate(new Object[]{new MockHttpServletRequest("POST", "/metrics/uploadTextMetrics")}, 2));
+        properties.setUnknownContentLength(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, admission.estimate(new Object[]{new MockHttpServletRequest("POST", "/metrics/uploadTextMetrics")}, 2));
+
+        // 同一客户端超过配额时等待，超时后拒绝
+        AdmissionService.Permit a = admission.acquire("a", 60);
+        try {
+            admission.acquire("a", 1);
+            fail();
+        } catch (AdmissionRejectedException e) {
+            assertEquals(properties.getRetryAfterSeconds(), e.getRetryAfterSeconds());
+        }
+
+        // 预算不足的请求排在前面时，后到的小请求不能越过它
+        properties.setMaxWaitMillis(5000);
+        CompletableFuture<AdmissionService.Permit> b = CompletableFuture.supplyAsync(() -> admission.acquire("b", 60));
+        waitFor(() -> admission.stats().getWaiting() == 1);
+        CompletableFuture<AdmissionService.Permit> c = CompletableFuture.supplyAsync(() -> admission.acquire("c", 10));
+        waitFor(() -> admission.stats().getWaiting() == 2);
+        try {
+            admission.acquire("d", 10);
+            fail();
+        } catch (AdmissionRejectedException e) {
+            assertEquals(2, admission.stats().getRejected());
+        }
+        assertEquals(60, admission.stats().getUsedBytes());
+
+        a.close();
+        a.close();
+        AdmissionService.Permit bPermit = b.get(5, TimeUnit.SECONDS);
+        AdmissionService.Permit cPermit = c.get(5, TimeUnit.SECONDS);
+        assertEquals(70, admission.stats().getUsedBytes());
+        assertEquals(2, admission.stats().getActive());
+        bPermit.close();
+        cPermit.close();
+
+        // 超过整个预算的请求按预算计，单独执行
+        AdmissionService.Permit huge = admission.acquire("a", 1000);
+        assertEquals(100, huge.getCost());
+        huge.close();
+        assertEquals(0, admission.stats().getUsedBytes());
+        assertTrue(admission.stats().getClients().isEmpty());
+    }
+
+
+    @Test
+    public void testEvaluationJobs() throws Exception {
+        String truePath = write("true.txt", "北 B-LOC\n京 I-LOC\n是 O\n张 B-PER\n\n");
+        String predPath = write("pred.txt", "北 B-LOC\n京 I-LOC\n是 O\n张 O\n\n");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        EvaluateCacheProperties cacheProperties = new EvaluateCacheProperties();
+        cacheProperties.setEnabled(false);
+        MetricsService metricsService = new MetricsService(new MetricsResultCache(cacheProperties),
+                new TruthCache(new EvaluateTruthCacheProperties(), new TruthIndexService(new EvaluateTruthIndexProperties())), new EvaluateIncrementalProperties()) {
+            @Override
+            public MetricsResult calculateMetrics(ParamsDTO dto, EvaluationProgress progress) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.calculateMetrics(dto, progress);
+            }
+        };
+        EvaluateJobProperties properties = new EvaluateJobProperties();
+        properties.setPoolSize(1);
+        properties.setQueueCapacity(1);
+        properties.setRetentionMinutes(0);
+        EvaluationJobService jobService = new EvaluationJobService(properties, metricsService);
+        try {
+            // 路径为空时不创建任务
+            ParamsDTO missing = new ParamsDTO();
+            missing.setTrueFilePath(truePath);
+            try {
+                jobService.submit(missing);
+                fail();
+            } catch (IllegalArgumentException e) {
+                assertEquals("真实文件路径与预测文件路径不能为空", e.getMessage());
+            }
+
+            ParamsDTO dto = new ParamsDTO();
+            dto.setTrueFilePath(truePath);
+            dto.setPredFilePath(predPath);
+            EvaluationJob running = jobService.submit(dto);
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            EvaluationJob queued = jobService.submit(dto);
+            assertEquals(EvaluationJob.RUNNING, jobService.getJob(running.getJobId()).getStatus());
+            assertEquals(EvaluationJob.QUEUED, jobService.getJob(queued.getJobId()).getStatus());
+            assertNull(jobService.getJob(running.getJobId()).getResult());
+
+            // 队列已满时拒绝，由全局异常处理返回429
+            try {
+                jobService.submit(dto);
+                fail();
+            } catch (RejectedExecutionException e) {
+                EvaluateAdmissionProperties admissionProperties = new EvaluateAdmissionProperties();
+                ResponseEntity<Object> response = new CommonGlobalExceptionHandler(admissionProperties).handleRejectedException(e);
+                assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+                assertEquals(String.valueOf(admissionProperties.getRetryAfterSeconds()),
+                        response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+            }
+
+            release.countDown();
+            waitFor(() -> running.isFinished() && queued.isFinished());
+            assertEquals(EvaluationJob.SUCCESS, running.getStatus());
+            assertEquals(running.getProgress().getTotalBytes(), running.getProgress().getBytesRead());
+            assertEquals(EntityMetricsUtils.calculateMetrics(truePath, predPath).getMicro(), running.getResult().getMicro());
+            assertEquals(EntityMetricsUtils.calculateMetrics(truePath, predPath).getMicro(), queued.getResult().getMicro());
+
+            // 超过保留时间的已结束任务不再返回，没有新任务提交时同样如此
+            Thread.sleep(5);
+            assertNull(jobService.getJob(running.getJobId()));
+            EvaluationJob next = jobService.submit(dto);
+            assertNull(jobService.getJob(queued.getJobId()));
+            assertEquals(next, jobService.getJob(next.getJobId()));
+        } finally {
+            release.countDown();
+            jobService.shutdown();
+        }
+    }
+
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(5);
+        }
+    }
+
+
+    @Test
+    public void testResultCache() throws IOException {
+        EvaluateCacheProperties properties = new EvaluateCacheProperties();
+        properties.setMaxEntries(1);
+        MetricsResultCache cache = new MetricsResultCache(properties);
+        String truePath = write("true.txt", "中 B-LOC\n");
+        String predPath = write("pred.txt", "中 O\n");
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("a", cache.get(MetricsMode.FULL, truePath, predPath, () -> {
+            loads.incrementAndGet();
+            return "a";
+        }));
+        assertEquals("a", cache.get(MetricsMode.FULL, truePath, predPath, () -> "b"));
+        assertEquals(1, cache.stats().getHits());
+
+        // 评估方式不同则分别缓存，超过条目上限时淘汰最久未使用的结果
+        assertEquals("c", cache.get(MetricsMode.LIGHT, truePath, predPath, () -> "c"));
+        assertEquals(1, cache.stats().getEvictions());
+
+        // 文件内容变化后指纹随之变化
+        Files.write(new File(predPath).toPath(), "中 B-PER\n".getBytes(StandardCharsets.UTF_8));
+        assertEquals("d", cache.get(MetricsMode.LIGHT, truePath, predPath, () -> "d"));
+        assertEquals(3, cache.stats().getMisses());
+        assertEquals(1, loads.get());
+    }
+
+
+    @Test
+    public void testTruthCache() throws IOException {
+        EvaluateCacheProperties cacheProperties = new EvaluateCacheProperties();
+        cacheProperties.setEnabled(false);
+        TruthCache truthCache = new TruthCache(new EvaluateTruthCacheProperties(), new TruthIndexService(new EvaluateTruthIndexProperties()));
+        MetricsService service = new MetricsService(new MetricsResultCache(cacheProperties), truthCache, new EvaluateIncrementalProperties());
+
+        String truePath = write("true.txt", "北 B-LOC\n京 I-LOC\n是 O\n\n张 B-PER\n三 I-PER\n\n在 O\n");
+        String[] predPaths = {
+                write("pred1.txt", "北 B-LOC\n京 I-LOC\n是 O\n\n张 B-LOC\n三 I-LOC\n\n在 O\n"),
+                // 句子数量不一致，多出的真实句子不计入TN
+                write("pred2.txt", "北 B-LOC\n京 O\n是 O\n\n张 B-PER\n三 I-PER\n"),
+                // 预测文件句子更多，多出的实体计入FP
+                write("pred3.txt", "北 O\n京 O\n是 B-TIME\n\n张 B-PER\n三 I-PER\n\n在 O\n\n了 B-ORG\n")
+        };
+        for (String predPath : predPaths) {
+            ParamsDTO dto = new ParamsDTO();
+            dto.setTrueFilePath(truePath);
+            dto.setPredFilePath(predPath);
+            MetricsResult expected = EntityMetricsUtils.calculateMetrics(truePath, predPath);
+            MetricsResult actual = service.calculateMetrics(dto, null);
+            assertEquals(expected.getMicro(), actual.getMicro());
+            assertEquals(expected.getMacro(), actual.getMacro());
+            assertEquals(new HashSet<>(expected.getPreClassResult()), new HashSet<>(actual.getPreClassResult()));
+            assertEquals(EntityMetricsUtils.calculateLightMetrics(truePath, predPath), service.calculateLightMetrics(dto));
+        }
+        // 真实文件只解析一次
+        assertEquals(1, truthCache.stats().getMisses());
+        assertEquals(5, truthCache.stats().getHits());
+    }
+
+
+    @Test
+    public void testBatchMetrics() throws IOException {
+        TruthCache truthCache = new TruthCache(new EvaluateTruthCacheProperties(), new TruthIndexService(new EvaluateTruthIndexProperties()));
+        MetricsService service = new MetricsService(new MetricsResultCache(new EvaluateCacheProperties()), truthCache, new EvaluateIncrementalProperties());
+        String truePath = write("true.txt", "北 B-LOC\n京 I-LOC\n\n张 B-PER\n");
+        String predPath = write("pred.txt", "北 B-LOC\n京 O\n\n张 B-PER\n");
+
+        BatchParamsDTO dto = new BatchParamsDTO();
+        dto.setTrueFilePath(truePath);
+        dto.setPredFilePaths(Arrays.asList(predPath, truePath, predPath + ".missing"));
+        List<CommonResult> items = new CopyOnWriteArrayList<>();
+        service.calculateBatchMetrics(dto, ForkJoinPool.commonPool(), items::add);
+
+        assertEquals(3, items.size());
+        assertEquals(1, truthCache.stats().getMisses());
+        for (CommonResult item : items) {
+            BatchMetricsItem batchItem = (BatchMetricsItem) item.getData();
+            if (batchItem.getIndex() == 2) {
+                assertEquals(Integer.valueOf(500), item.getStatus());
+            } else {
+                String path = dto.getPredFilePaths().get(batchItem.getIndex());
+                assertEquals(EntityMetricsUtils.calculateMetrics(truePath, path).getMicro(), batchItem.getResult().getMicro());
+            }
+        }
+    }
+
+
+    @Test
+    public void testIncrementalMetrics() throws IOException {
+        StringBuilder truth = new StringBuilder();
+        StringBuilder pred = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            truth.append("北 B-LOC\n京 I-LOC\n是 O\n张 B-PER\n\n");
+            pred.append(i % 3 == 0 ? "北 B-LOC\n京 I-LOC\n是 O\n张 O\n\n" : "北 B-LOC\n京 O\n是 B-ORG\n张 B-PER\n\n");
+        }
+        String truePath = write("true.txt", truth.toString());
+        String predPath = write("pred.txt", pred.toString());
+
+        IncrementalEvaluation first = IncrementalEvaluation.evaluate(truePath, predPath, null);
+        assertEquals(200, first.getChanged());
+        assertMetricsEquals(EntityMetricsUtils.calculateMetrics(truePath, predPath), first.toAccumulator().toMetricsResult());
+
+        // 未变化时不重新计算任何句子
+        IncrementalEvaluation same = IncrementalEvaluation.evaluate(truePath, predPath, first);
+        assertEquals(0, same.getChanged());
+        assertMetricsEquals(EntityMetricsUtils.calculateMetrics(truePath, predPath), same.toAccumulator().toMetricsResult());
+
+        // 修改一个句子（长度变化），只重新计算该句
+        String edited = pred.toString().replaceFirst("北 B-LOC\n京 O\n是 B-ORG\n张 B-PER\n", "北 B-TIME\n京 I-TIME\n是 O\n张 B-PER\n");
+        Files.write(new File(predPath).toPath(), edited.getBytes(StandardCharsets.UTF_8));
+        IncrementalEvaluation second = IncrementalEvaluation.evaluate(truePath, predPath, same);
+        assertEquals(1, second.getChanged());
+        assertMetricsEquals(EntityMetricsUtils.calculateMetrics(truePath, predPath), second.toAccumulator().toMetricsResult());
+
+        // 删除末尾句子后句子数不一致，多出的真实句子不计入TN
+        Files.write(new File(predPath).toPath(), edited.substring(0, edited.length() - 20).getBytes(StandardCharsets.UTF_8));
+        IncrementalEvaluation third = IncrementalEvaluation.evaluate(truePath, predPath, second);
+        assertEquals(1, third.getChanged());
+        assertMetricsEquals(EntityMetricsUtils.calculateMetrics(truePath, predPath), third.toAccumulator().toMetricsResult());
+
+        // 通过服务调用时复用上一次的状态
+        EvaluateCacheProperties cacheProperties = new EvaluateCacheProperties();
+        cacheProperties.setEnabled(false);
+        MetricsService service = new MetricsService(new MetricsResultCache(cacheProperties),
+                new TruthCache(new EvaluateTruthCacheProperties(), new TruthIndexService(new EvaluateTruthIndexProperties())), new EvaluateIncrementalProperties());
+        ParamsDTO dto = new ParamsDTO();
+        dto.setTrueFilePath(truePath);
+        dto.setPredFilePath(predPath);
+        dto.setIncremental(true);
+        dto.setMatchModes(Arrays.asList("strict", "exact", "partial", "type"));
+        dto.setErrorSamples(ConfusionMatrix.SAMPLES_PER_CELL);
+        assertMetricsEquals(EntityMetricsUtils.calculateMetrics(truePath, predPath), service.calculateMetrics(dto, null));
+        assertMetricsEquals(EntityMetricsUtils.calculateMetrics(truePath, predPath), service.calculateMetrics(dto, null));
+        assertEquals(third.estimateBytes(), service.getIncrementalBytes());
+
+        // 超过内存上限的状态不保留
+        EvaluateIncrementalProperties smallProperties = new EvaluateIncrementalProperties();
+        smallProperties.setMaxBytes(third.estimateBytes() - 1);
+        MetricsService smallService = new MetricsService(new MetricsResultCache(cacheProperties),
+                new TruthCache(new EvaluateTruthCacheProperties(), new TruthIndexService(new EvaluateTruthIndexProperties())), smallProperties);
+        assertMetricsEquals(EntityMetricsUtils.calculateMetrics(truePath, predPath), smallService.calculateMetrics(dto, null));
+        assertEquals(0, smallService.getIncrementalBytes());
+    }
+
+
+    @Test
+    public void testIncrementalGrowsTrimmedContributions() throws IOException {
+        String truePath = write("true.txt", "北 B-LOC\n京 I-LOC\n\n");
+        String predPath = write("pred.txt", "北 B-LOC\n京 I-LOC\n\n");
+        IncrementalEvaluation first = IncrementalEvaluation.evaluate(truePath, predPath, null);
+
+        // 上一次的贡献数组已按实际大小截短，新句子的真实实体类别数超过其容量，计数时需要扩容
+        StringBuilder truth = new StringBuilder();
+        StringBuilder pred = new StringBuilder();
+        for (int c = 0; c < 40; c++) {
+            truth.append("字 B-C").append(c).append('\n');
+            pred.append(c % 2 == 0 ? "字 B-C" + c + "\n" : "字 O\n");
+        }
+        Files.write(new File(truePath).toPath(), truth.append('\n').toString().getBytes(StandardCharsets.UTF_8));
+        Files.write(new File(predPath).toPath(), pred.append('\n').toString().getBytes(StandardCharsets.UTF_8));
+        IncrementalEvaluation second = IncrementalEvaluation.evaluate(truePath, predPath, first);
+        assertEquals(1, second.getChanged());
+        assertMetricsEquals(EntityMetricsUtils.calculateMetrics(truePath, predPath), second.toAccumulator().toMetricsResult());
+    }
+
+
+    private void assertMetricsEquals(MetricsResult expected, MetricsResult actual) {
+        assertEquals(expected.getMicro(), actual.getMicro());
+        assertEquals(expected.getMacro(), actual.getMacro());
+        assertEquals(new HashSet<>(expected.getPreClassResult()), new HashSet<>(actual.getPreClassResult()));
+        assertEquals(expected.getMatchModes(), actual.getMatchModes());
+        assertEquals(expected.getUnmatchedTokens(), actual.getUnmatchedTokens());
+        assertEquals(confusionCells(expected.getConfusion()), confusionCells(actual.getConfusion()));
+        assertEquals(new HashSet<>(expected.getConfusion().getSamples()), new HashSet<>(actual.getConfusion().getSamples()));
+    }
+
+
+    /**
+     * 混淆矩阵的非零单元格，类别顺序与评估路径有关，按类别名称比较
+     */
+    private static Map<String, Long> confusionCells(ConfusionResult confusion) {
+        Map<String, Long> cells = new HashMap<>();
+        List<String> labels = confusion.getLabels();
+        for (int i = 0; i < labels.size(); i++) {
+            for (int j = 0; j < labels.size(); j++) {
+                if (confusion.getMatrix()[i][j] != 0) {
+                    cells.put(labels.get(i) + "->" + labels.get(j), confusion.getMatrix()[i][j]);
+                }
+            }
+        }
+        return cells;
+    }
+
+
+    @Test
+    public void testMatchModes() throws IOException {
+        TruthCache truthCache = new TruthCache(new EvaluateTruthCacheProperties(), new TruthIndexService(new EvaluateTruthIndexProperties()));
+        MetricsService service = new MetricsService(new MetricsResultCache(new EvaluateCacheProperties()), truthCache, new EvaluateIncrementalProperties());
+        String truePath = write("true.txt", "北 B-LOC\n京 I-LOC\n\n张 B-PER\n三 I-PER\n");
+        String predPath = write("pred.txt", "北 B-LOC\n京 O\n\n张 B-PER\n三 I-PER\n");
+
+        ParamsDTO dto = new ParamsDTO();
+        dto.setTrueFilePath(truePath);
+        dto.setPredFilePath(predPath);
+        assertEquals(null, service.calculateMetrics(dto, null).getMatchModes());
+
+        // 缓存中的结果包含全部匹配方式，只输出请求的部分
+        dto.setMatchModes(Arrays.asList("partial", "TYPE"));
+        MetricsResult result = service.calculateMetrics(dto, null);
+        assertEquals(Arrays.asList("partial", "type"), new ArrayList<>(result.getMatchModes().keySet()));
+        assertEquals(0.75, result.getMatchModes().get("partial").getPrecision(), 1e-9);
+        assertEquals(1.0, result.getMatchModes().get("type").getRecall(), 1e-9);
+
+        dto.setMatchModes(Arrays.asList("fuzzy"));
+        try {
+            service.calculateMetrics(dto, null);
+            fail();
+        } catch (IllegalArgumentException expected) {
+            // 未知的匹配方式
+        }
+    }
+
+
+    @Test
+    public void testConfusionOutput() throws IOException {
+        TruthCache truthCache = new TruthCache(new EvaluateTruthCacheProperties(), new TruthIndexService(new EvaluateTruthIndexProperties()));
+        MetricsResultCache cache = new MetricsResultCache(new EvaluateCacheProperties());
+        MetricsService service = new MetricsService(cache, truthCache, new EvaluateIncrementalProperties());
+        String truePath = write("true.txt", "北 B-LOC\n京 I-LOC\n\n上 B-LOC\n海 I-LOC\n\n张 B-PER\n三 I-PER\n");
+        String predPath = write("pred.txt", "北 B-ORG\n京 I-ORG\n\n上 B-ORG\n海 I-ORG\n\n张 B-PER\n三 I-PER\n");
+
+        ParamsDTO dto = new ParamsDTO();
+        dto.setTrueFilePath(truePath);
+        dto.setPredFilePath(predPath);
+        assertNull(service.calculateMetrics(dto, null).getConfusion());
+        long plainBytes = cache.stats().getBytes();
+
+        // 混淆矩阵与错误样例分别缓存，估算大小包含矩阵与样例
+        dto.setConfusion(true);
+        ConfusionResult confusion = service.calculateMetrics(dto, null).getConfusion();
+        assertEquals(2, confusion.getTypeMismatches());
+        assertNull(confusion.getSamples());
+        long countsBytes = cache.stats().getBytes() - plainBytes;
+        assertTrue(countsBytes > plainBytes);
+
+        // 每个单元格只输出请求数量的样例
+        dto.setErrorSamples(1);
+        confusion = service.calculateMetrics(dto, null).getConfusion();
+        assertEquals(1, confusion.getSamples().size());
+        assertEquals(0, confusion.getSamples().get(0).getSentence());
+        assertEquals(3, cache.stats().getEntries());
+        assertTrue(cache.stats().getBytes() - plainBytes - countsBytes > countsBytes);
+
+        dto.setErrorSamples(ConfusionMatrix.SAMPLES_PER_CELL + 1);
+        try {
+            service.calculateMetrics(dto, null);
+            fail();
+        } catch (IllegalArgumentException expected) {
+            // 错误样例数超出范围
+        }
+    }
+
+
+    @Test
+    public void testTruthIndex() throws IOException {
+        String truePath = write("true.txt", "北 B-LOC\n京 I-LOC\n是 O\n\n张 B-PER\n三 I-PER\n\n在 O\n\n他 B-PER\n去 O\n上 B-LOC\n海 I-LOC\n");
+        String predPath = write("pred.txt", "北 B-LOC\n京 I-LOC\n是 O\n\n张 B-LOC\n三 I-LOC\n\n在 O\n\n他 B-PER\n去 O\n上 B-LOC\n海 O\n");
+        EvaluateTruthIndexProperties properties = new EvaluateTruthIndexProperties();
+        properties.setDirectory(folder.newFolder("index").getPath());
+        TruthIndexService service = new TruthIndexService(properties);
+
+        TruthIndexInfo info = service.build(truePath);
+        assertEquals(4, info.getSentences());
+        assertEquals(4, info.getEntities());
+        assertEquals(2, info.getClasses());
+        assertEquals(info.getBytes(), new File(info.getIndexPath()).length());
+
+        // 从索引映射的结果与解析文本一致
+        ParsedTruth mapped = service.load(truePath);
+        assertMetricsEquals(EntityMetricsUtils.calculateMetrics(truePath, predPath),
+                mapped.evaluate(predPath, null, null).toMetricsResult());
+
+        // 源文件变化后索引失效，重新解析并写出新的索引
+        long oldLength = new File(info.getIndexPath()).length();
+        Files.write(new File(truePath).toPath(), "北 B-LOC\n京 I-LOC\n是 B-TIME\n\n张 B-PER\n三 I-PER\n".getBytes(StandardCharsets.UTF_8));
+        assertTrue(new File(truePath).setLastModified(System.currentTimeMillis() + 2000));
+        ParsedTruth reparsed = service.load(truePath);
+        assertEquals(2, reparsed.getSentenceCount());
+        assertEquals(3, reparsed.getClassCount());
+        assertNotEquals(oldLength, new File(info.getIndexPath()).length());
+        assertMetricsEquals(EntityMetricsUtils.calculateMetrics(truePath, predPath),
+                service.load(truePath).evaluate(predPath, null, null).toMetricsResult());
+    }
+
+
+    @Test
+    public void testUploadMetrics() throws IOException {
+        String truth = "北 B-LOC\n京 I-LOC\n是 O\n\n张 B-PER\n三 I-PER\n";
+        String pred = "北 B-LOC\n京 I-LOC\n是 O\n\n张 B-LOC\n三 I-LOC\n";
+        String truePath = write("true.txt", truth);
+        MetricsResult expected = EntityMetricsUtils.calculateMetrics(truePath, write("pred.txt", pred));
+        UploadEvaluationService service = new UploadEvaluationService(new TruthCache(new EvaluateTruthCacheProperties(),
+                new TruthIndexService(new EvaluateTruthIndexProperties())));
+
+        MetricsResult uploaded = service.calculateMetrics(multipart(UploadEvaluationService.TRUE_FILE, truth,
+                UploadEvaluationService.PRED_FILE, pred));
+        assertEquals(expected.getMicro(), uploaded.getMicro());
+        MetricsResult byPath = service.calculateMetrics(multipart(UploadEvaluationService.TRUE_FILE_PATH, truePath,
+                UploadEvaluationService.PRED_FILE, pred));
+        assertEquals(expected.getMicro(), byPath.getMicro());
+
+        String gt = "[{\"start\":0,\"end\":2,\"type\":\"LOC\",\"word\":\"北京\"}]";
+        assertEquals(1, service.calculateIecasTextMetrics(multipart(UploadEvaluationService.TRUE_FILE, gt,
+                UploadEvaluationService.PRED_FILE, gt)).getTP(), 0);
+
+        // 预测内容位于真实内容之前
+        try {
+            service.calculateMetrics(multipart(UploadEvaluationService.PRED_FILE, pred, UploadEvaluationService.TRUE_FILE, truth));
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains(UploadEvaluationService.PRED_FILE));
+        }
+    }
+
+
+    private MockHttpServletRequest multipart(String... parts) {
+        String boundary = "----evaluate";
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < parts.length; i += 2) {
+            body.append("--").append(boundary).append("\r\n")
+                    .append("Content-Disposition: form-data; name=\"").append(parts[i]).append("\"; filename=\"")
+                    .append(parts[i]).append("\"\r\n\r\n")
+                    .append(parts[i + 1]).append("\r\n");
+        }
+        body.append("--").append(boundary).append("--\r\n");
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/metrics/uploadTextMetrics");
+        request.setContentType("multipart/form-data; boundary=" + boundary);
+        request.setContent(body.toString().getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+}